@@ -2,6 +2,7 @@ package com.lmg.online.chatbot.ai.analytics;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -108,6 +109,29 @@ public class AiAnalyticsService
             Boolean toolCalled,
             String toolName,
             Long responseTimeMs) {
+        return trackUsage(sessionId, userId, userPrompt, aiResponse, promptTokens, completionTokens,
+                model, finishReason, toolCalled, toolName, responseTimeMs, null, null);
+    }
+
+    /**
+     * Calculate and save token usage analytics for a routed query
+     * @param intent   intent the query was resolved to
+     * @param routedBy name of the IntentTier that resolved it, null when not routed
+     */
+    public AiUsageAnalytics trackUsage(
+            String sessionId,
+            String userId,
+            String userPrompt,
+            String aiResponse,
+            Integer promptTokens,
+            Integer completionTokens,
+            String model,
+            String finishReason,
+            Boolean toolCalled,
+            String toolName,
+            Long responseTimeMs,
+            String intent,
+            String routedBy) {
 
         // null-safe token values
         int pTokens = (promptTokens == null) ? 0 : promptTokens;
@@ -138,6 +162,8 @@ public class AiAnalyticsService
                 .toolName(toolName)
                 .responseLength(aiResponse != null ? aiResponse.length() : 0)
                 .responseTimeMs(responseTimeMs)
+                .intent(intent)
+                .routedBy(routedBy)
                 .build();
 
         AiUsageAnalytics saved = repository.save(analytics);
@@ -197,6 +223,49 @@ public class AiAnalyticsService
                 .toList();
     }
 
+    /**
+     * Get usage by tool - compares routing paths, e.g. "classifyAndAnswer" against
+     * "intentClassifier" plus the handler that answered
+     */
+    public List<ToolUsageStats> getUsageByTool(LocalDateTime since) {
+        List<Object[]> results = repository.getUsageByTool(since);
+
+        return results.stream()
+                .map(row -> {
+                    String toolName = row[0] != null ? row[0].toString() : null;
+                    long requestCount = row[1] != null ? ((Number) row[1]).longValue() : 0L;
+                    long totalTokensTool = row[2] != null ? ((Number) row[2]).longValue() : 0L;
+                    double totalCostTool = row[3] != null ? ((Number) row[3]).doubleValue() : 0.0;
+                    double avgResponseTime = row[4] != null ? ((Number) row[4]).doubleValue() : 0.0;
+
+                    return ToolUsageStats.builder()
+                            .toolName(toolName)
+                            .requestCount(requestCount)
+                            .totalTokens(totalTokensTool)
+                            .totalCost(totalCostTool)
+                            .avgTokensPerRequest(requestCount > 0 ? (double) totalTokensTool / requestCount : 0.0)
+                            .avgResponseTimeMs(avgResponseTime)
+                            .build();
+                })
+                .toList();
+    }
+
+    /**
+     * Rows served by the given tools and routed by the given tiers with id above a watermark, oldest first
+     */
+    public List<AiUsageAnalytics> getToolUsageAfter(
+            long afterId, Collection<String> toolNames, Collection<String> routedBy, int limit) {
+        return repository.findByIdGreaterThanAndToolNameInAndRoutedByInOrderByIdAsc(
+                afterId, toolNames, routedBy, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Most frequent user prompts since the given time, most frequent first
+     */
+    public List<String> getTopPrompts(LocalDateTime since, Collection<String> excludedTools, int limit) {
+        return repository.getTopPrompts(since, excludedTools, PageRequest.of(0, limit));
+    }
+
     /**
      * Get user-specific analytics
      */
@@ -45,6 +45,10 @@ public class AiUsageAnalytics {
     private Integer responseLength;
     private Long responseTimeMs;
 
+    // Routing: the intent the query was resolved to and the IntentTier that resolved it
+    private String intent;
+    private String routedBy;
+
 
 
     private LocalDateTime createdAt;
@@ -1,9 +1,11 @@
 package com.lmg.online.chatbot.ai.analytics;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -15,6 +17,9 @@ public interface AiUsageAnalyticsRepository extends JpaRepository<AiUsageAnalyti
 
     List<AiUsageAnalytics> findByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
 
+    List<AiUsageAnalytics> findByIdGreaterThanAndToolNameInAndRoutedByInOrderByIdAsc(
+            Long id, Collection<String> toolNames, Collection<String> routedBy, Pageable pageable);
+
     @Query("SELECT SUM(a.totalTokens) FROM AiUsageAnalytics a WHERE a.createdAt >= :start")
     Long getTotalTokensSince(LocalDateTime start);
 
@@ -27,4 +32,14 @@ public interface AiUsageAnalyticsRepository extends JpaRepository<AiUsageAnalyti
     @Query("SELECT a.model, COUNT(a), SUM(a.totalTokens), SUM(a.totalCost) " +
             "FROM AiUsageAnalytics a WHERE a.createdAt >= :start GROUP BY a.model")
     List<Object[]> getUsageByModel(LocalDateTime start);
+
+    @Query("SELECT a.toolName, COUNT(a), SUM(a.totalTokens), SUM(a.totalCost), AVG(a.responseTimeMs) " +
+            "FROM AiUsageAnalytics a WHERE a.createdAt >= :start GROUP BY a.toolName")
+    List<Object[]> getUsageByTool(LocalDateTime start);
+
+    @Query("SELECT a.userPrompt FROM AiUsageAnalytics a " +
+            "WHERE a.createdAt >= :start AND a.userPrompt IS NOT NULL " +
+            "AND (a.toolName IS NULL OR a.toolName NOT IN :excludedTools) " +
+            "GROUP BY a.userPrompt ORDER BY COUNT(a) DESC")
+    List<String> getTopPrompts(LocalDateTime start, Collection<String> excludedTools, Pageable pageable);
 }
\ No newline at end of file
@@ -33,6 +33,11 @@ public class AnalyticsController {
         return analyticsService.getUsageByModel(LocalDateTime.now().minusDays(7));
     }
 
+    @GetMapping("/tools/week")
+    public List<ToolUsageStats> getToolUsageWeekly() {
+        return analyticsService.getUsageByTool(LocalDateTime.now().minusDays(7));
+    }
+
     @GetMapping("/user/{userId}")
     public List<AiUsageAnalytics> getUserAnalytics(@PathVariable String userId) {
         return analyticsService.getUserAnalytics(userId);
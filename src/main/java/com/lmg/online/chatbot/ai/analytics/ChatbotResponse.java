@@ -1,13 +1,18 @@
 package com.lmg.online.chatbot.ai.analytics;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.util.List;
 import java.util.Map;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class ChatbotResponse<T> {
     private T data;
     private TokenUsage tokenUsage;
@@ -17,4 +22,7 @@ public class ChatbotResponse<T> {
     private Map<String,Object> metadata;
     private String errorResponse;
     private boolean success;
+    // Policy documents the answer came from; only used to tag its cache entry, never serialised
+    @JsonIgnore
+    private List<String> sourceDocumentIds;
  }
\ No newline at end of file
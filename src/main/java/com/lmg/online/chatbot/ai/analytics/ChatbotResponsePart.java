@@ -0,0 +1,23 @@
+package com.lmg.online.chatbot.ai.analytics;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One handler's answer inside a multi-intent ChatbotResponse
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatbotResponsePart {
+    private String intent;
+    private String query;
+    private Object data;
+    private TokenUsage tokenUsage;
+    private Long responseTimeMs;
+    private String errorResponse;
+    private boolean success;
+}
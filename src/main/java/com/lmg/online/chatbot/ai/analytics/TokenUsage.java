@@ -4,6 +4,8 @@ import lombok.*;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class TokenUsage {
     private Integer promptTokens;
     private Integer completionTokens;
@@ -0,0 +1,14 @@
+package com.lmg.online.chatbot.ai.analytics;
+
+import lombok.*;
+
+@Data
+@Builder
+class ToolUsageStats {
+    private String toolName;
+    private Long requestCount;
+    private Long totalTokens;
+    private Double totalCost;
+    private Double avgTokensPerRequest;
+    private Double avgResponseTimeMs;
+}
\ No newline at end of file
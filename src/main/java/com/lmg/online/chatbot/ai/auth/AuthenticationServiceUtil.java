@@ -1,7 +1,10 @@
 package com.lmg.online.chatbot.ai.auth;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lmg.online.chatbot.ai.common.SingleFlight;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
@@ -19,10 +22,18 @@ public class AuthenticationServiceUtil { private static final String TOKEN_URL =
     private static final String GRANT_TYPE = "client_credentials";
 @Autowired
     private  RestTemplate restTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Value("${chatbot.http.coalesce.wait-timeout-ms:10000}")
+    private long coalesceWaitTimeoutMs;
     private final Map<String, String> tokenCache = new ConcurrentHashMap<>();
+    private final SingleFlight<String, ResponseEntity<?>> getFlight = new SingleFlight<>();
 
     /**
-     * Main method to call your API with automatic 401 recovery
+     * Main method to call your API with automatic 401 recovery.
+     * Identical concurrent GETs (same app, env, URL and headers) share one upstream call;
+     * callers that joined it get their own copy of the body, and stop waiting after
+     * chatbot.http.coalesce.wait-timeout-ms to make the call themselves.
      */
     public <T> ResponseEntity<T> callWithAuthRetry(
             String appId,
@@ -32,6 +43,52 @@ public class AuthenticationServiceUtil { private static final String TOKEN_URL =
             Object body,
             Class<T> responseType,String env) {
 
+        if (method != HttpMethod.GET || body != null) {
+            return callWithTokenRefresh(appId, url, method, header, body, responseType, env);
+        }
+
+        // The call sets access_token on its headers, so key and call use a private copy
+        HttpHeaders requestHeaders = new HttpHeaders();
+        requestHeaders.putAll(header);
+        String key = appId + "|" + env + "|" + responseType.getName() + "|" + url + "|" + requestHeaders;
+        SingleFlight.Result<ResponseEntity<?>> result = getFlight.execute(key,
+                () -> callWithTokenRefresh(appId, url, method, requestHeaders, null, responseType, env),
+                coalesceWaitTimeoutMs);
+        @SuppressWarnings("unchecked")
+        ResponseEntity<T> response = (ResponseEntity<T>) result.value();
+        if (result.shared()) {
+            log.info("🔗 Coalesced GET with an in-flight call: {}", url);
+            return copyOf(response, responseType);
+        }
+        return response;
+    }
+
+    /**
+     * Upstream GETs made and how many callers were coalesced onto them
+     */
+    public Map<String, Object> getCoalescingStats() {
+        return getFlight.snapshot();
+    }
+
+    /**
+     * A shared response with a deep copy of its body, so no caller sees another's changes
+     */
+    private <T> ResponseEntity<T> copyOf(ResponseEntity<T> response, Class<T> responseType) {
+        if (response.getBody() == null) {
+            return response;
+        }
+        T body = objectMapper.convertValue(response.getBody(), responseType);
+        return new ResponseEntity<>(body, response.getHeaders(), response.getStatusCode());
+    }
+
+    private <T> ResponseEntity<T> callWithTokenRefresh(
+            String appId,
+            String url,
+            HttpMethod method,
+            HttpHeaders header,
+            Object body,
+            Class<T> responseType,String env) {
+
 log.info(" Token Fetch for {} {} {}",url,appId,env);
         String token = getOrFetchToken(appId,env);
         header.set("access_token",token);
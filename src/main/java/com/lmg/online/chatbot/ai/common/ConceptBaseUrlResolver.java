@@ -4,6 +4,7 @@ import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.StringJoiner;
 
 public class ConceptBaseUrlResolver {
@@ -30,6 +31,11 @@ public class ConceptBaseUrlResolver {
     );
 
 
+    /** Concept codes we have sites for, e.g. MAX, LIFESTYLE */
+    public static Set<String> getConcepts() {
+        return BASE_URLS.keySet();
+    }
+
     public static String getPhoneNumber(String concept) {
 
         String phoneNumber=conceptContactMap.get(concept);
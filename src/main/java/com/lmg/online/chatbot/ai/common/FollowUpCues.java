@@ -0,0 +1,98 @@
+package com.lmg.online.chatbot.ai.common;
+
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cues that a message continues the previous turn instead of asking something new: a
+ * reference back ("is it shipped yet?", "same for that one"), an ordinal ("the second one")
+ * or nothing but filler ("and now?"). Greetings and thanks are small talk, not follow-ups,
+ * even with a reference in them ("hello there", "thanks for that").
+ *
+ * Reads QueryCanonicalizer's folded form (lower case, single spaces); other text is folded first.
+ */
+public final class FollowUpCues {
+
+    private static final Set<String> REFERENCES = Set.of(
+            "it", "its", "that", "this", "these", "those", "them", "they", "there", "same", "one", "ones",
+            "again", "another", "other", "else"
+    );
+
+    private static final List<String> ORDINALS = List.of(
+            "first", "second", "third", "fourth", "fifth", "sixth", "seventh", "eighth", "ninth", "tenth"
+    );
+    private static final String LAST = "last";
+    private static final Pattern NUMERIC_ORDINAL = Pattern.compile("(\\d{1,2})(?:st|nd|rd|th)");
+
+    // Words that carry no topic of their own
+    private static final Set<String> FILLER = Set.of(
+            "and", "or", "but", "so", "then", "now", "what", "whats", "about", "how", "when", "where", "why",
+            "yes", "yeah", "no", "please", "pls", "also", "too", "the", "a", "an", "is", "are", "was", "any",
+            "still", "yet", "more", "update", "status", "for", "to", "of", "in", "on", "with", "i", "me", "my"
+    );
+
+    private static final Set<String> SMALL_TALK = Set.of(
+            "hi", "hello", "hey", "thanks", "thank", "you", "thx", "ok", "okay", "bye", "good", "morning",
+            "evening", "night", "great", "cool", "nice", "welcome", "fine"
+    );
+
+    private FollowUpCues() {
+    }
+
+    /**
+     * @return true when the message refers back to the previous turn
+     */
+    public static boolean isFollowUp(String query) {
+        String[] words = words(query);
+        if (words.length == 0) {
+            return false;
+        }
+
+        boolean reference = false;
+        boolean smallTalk = false;
+        boolean content = false;
+        for (String word : words) {
+            if (isOrdinal(word)) {
+                return true;
+            }
+            if (REFERENCES.contains(word)) {
+                reference = true;
+            } else if (SMALL_TALK.contains(word)) {
+                smallTalk = true;
+            } else if (!FILLER.contains(word)) {
+                content = true;
+            }
+        }
+        return smallTalk ? reference && content : reference || !content;
+    }
+
+    /**
+     * Item of a previously shown list an ordinal points at ("the second one", "3rd", "the last")
+     * @param size length of the list
+     * @return zero-based index, or -1 when there is no ordinal or it is past the end
+     */
+    public static int ordinalIndex(String query, int size) {
+        for (String word : words(query)) {
+            int index = word.equals(LAST) ? size - 1 : ORDINALS.indexOf(word);
+            if (index < 0) {
+                Matcher matcher = NUMERIC_ORDINAL.matcher(word);
+                index = matcher.matches() ? Integer.parseInt(matcher.group(1)) - 1 : -1;
+            }
+            if (index >= 0) {
+                return index < size ? index : -1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isOrdinal(String word) {
+        return word.equals(LAST) || ORDINALS.contains(word) || NUMERIC_ORDINAL.matcher(word).matches();
+    }
+
+    private static String[] words(String query) {
+        String folded = QueryCanonicalizer.canonicalize(query, false);
+        return folded.isEmpty() ? new String[0] : folded.split(" ");
+    }
+}
@@ -0,0 +1,57 @@
+package com.lmg.online.chatbot.ai.common;
+
+/**
+ * Geohash encoding, used to bucket coordinates for cache keys: nearby points share a
+ * prefix, and precision 6 is a cell of about 1.2 km x 0.6 km.
+ */
+public final class GeoHash {
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private GeoHash() {
+    }
+
+    public static String encode(double latitude, double longitude, int precision) {
+        StringBuilder sb = new StringBuilder(precision);
+        append(sb, latitude, longitude, precision);
+        return sb.toString();
+    }
+
+    public static StringBuilder append(StringBuilder sb, double latitude, double longitude, int precision) {
+        double minLat = -90;
+        double maxLat = 90;
+        double minLng = -180;
+        double maxLng = 180;
+        boolean lngBit = true;
+        int bits = 0;
+        int ch = 0;
+
+        while (precision > 0) {
+            if (lngBit) {
+                double mid = (minLng + maxLng) / 2;
+                if (longitude >= mid) {
+                    ch |= 1 << (4 - bits);
+                    minLng = mid;
+                } else {
+                    maxLng = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    ch |= 1 << (4 - bits);
+                    minLat = mid;
+                } else {
+                    maxLat = mid;
+                }
+            }
+            lngBit = !lngBit;
+            if (++bits == 5) {
+                sb.append(BASE32[ch]);
+                bits = 0;
+                ch = 0;
+                precision--;
+            }
+        }
+        return sb;
+    }
+}
@@ -0,0 +1,74 @@
+package com.lmg.online.chatbot.ai.common;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free fixed-bucket latency histogram (microsecond resolution)
+ */
+public class LatencyHistogram {
+
+    private static final long[] BOUNDS_MICROS = {
+            10, 50, 100, 500,
+            1_000, 5_000, 10_000, 50_000, 100_000, 500_000,
+            1_000_000, 2_000_000, 5_000_000, 10_000_000
+    };
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS_MICROS.length + 1);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+
+    public void record(long elapsedNanos) {
+        long micros = elapsedNanos / 1_000;
+        int i = 0;
+        while (i < BOUNDS_MICROS.length && micros > BOUNDS_MICROS[i]) {
+            i++;
+        }
+        buckets.incrementAndGet(i);
+        count.increment();
+        totalMicros.add(micros);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * Upper bound (micros) of the bucket holding the given percentile, -1 when empty
+     */
+    public long percentileMicros(double percentile) {
+        long total = count.sum();
+        if (total == 0) {
+            return -1;
+        }
+        long rank = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return i < BOUNDS_MICROS.length ? BOUNDS_MICROS[i] : Long.MAX_VALUE;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        long total = count.sum();
+        snapshot.put("count", total);
+        snapshot.put("avgMicros", total > 0 ? totalMicros.sum() / total : 0);
+        snapshot.put("p50Micros", percentileMicros(0.50));
+        snapshot.put("p95Micros", percentileMicros(0.95));
+        snapshot.put("p99Micros", percentileMicros(0.99));
+
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < buckets.length(); i++) {
+            String label = i < BOUNDS_MICROS.length ? "le_" + BOUNDS_MICROS[i] + "us" : "gt_" + BOUNDS_MICROS[i - 1] + "us";
+            histogram.put(label, buckets.get(i));
+        }
+        snapshot.put("buckets", histogram);
+        return snapshot;
+    }
+}
@@ -0,0 +1,57 @@
+package com.lmg.online.chatbot.ai.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chat message template with named placeholders, e.g. "Your order for {product} is {status}."
+ *
+ * The pattern is split into literal and placeholder segments once, at compile time, so
+ * rendering is a single StringBuilder pass. Instances are immutable and thread-safe;
+ * keep them in static finals. Missing or null values render as an empty string.
+ */
+public final class MessageTemplate {
+
+    private final String[] literals;
+    private final String[] names;
+
+    private MessageTemplate(String[] literals, String[] names) {
+        this.literals = literals;
+        this.names = names;
+    }
+
+    public static MessageTemplate compile(String pattern) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        int start = 0;
+        int open = pattern.indexOf('{');
+        while (open >= 0) {
+            int close = pattern.indexOf('}', open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder in template: " + pattern);
+            }
+            literals.add(pattern.substring(start, open));
+            names.add(pattern.substring(open + 1, close).trim());
+            start = close + 1;
+            open = pattern.indexOf('{', start);
+        }
+        literals.add(pattern.substring(start));
+        return new MessageTemplate(literals.toArray(String[]::new), names.toArray(String[]::new));
+    }
+
+    public String render(Map<String, ?> values) {
+        return appendTo(new StringBuilder(64), values).toString();
+    }
+
+    public StringBuilder appendTo(StringBuilder sb, Map<String, ?> values) {
+        for (int i = 0; i < names.length; i++) {
+            sb.append(literals[i]);
+            Object value = values.get(names[i]);
+            if (value != null) {
+                sb.append(value);
+            }
+        }
+        return sb.append(literals[names.length]);
+    }
+}
@@ -0,0 +1,163 @@
+package com.lmg.online.chatbot.ai.common;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent single-item calls into batches.
+ *
+ * A collector thread waits for the first item, then keeps gathering until the batching
+ * window closes or the batch is full, and hands the batch to the executor so the next
+ * window can open while the previous batch is still in flight. Each caller gets a future
+ * completed from its own slot of the batch result.
+ */
+@Slf4j
+public class MicroBatcher<I, O> implements AutoCloseable {
+
+    private static final int[] SIZE_BOUNDS = {1, 2, 4, 8, 16, 32, 64};
+
+    private final BlockingQueue<Pending<I, O>> queue = new LinkedBlockingQueue<>();
+    private final Function<List<I>, List<O>> batchFunction;
+    private final Executor executor;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final Thread collector;
+    private volatile boolean running = true;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder items = new LongAdder();
+    private final AtomicLongArray sizeBuckets = new AtomicLongArray(SIZE_BOUNDS.length + 1);
+
+    /**
+     * @param batchFunction must return one result per input, in input order
+     */
+    public MicroBatcher(String name, long windowMillis, int maxBatchSize,
+                        Function<List<I>, List<O>> batchFunction, Executor executor) {
+        this.batchFunction = batchFunction;
+        this.executor = executor;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.collector = new Thread(this::collect, name);
+        this.collector.setDaemon(true);
+        this.collector.start();
+    }
+
+    public CompletableFuture<O> submit(I item) {
+        CompletableFuture<O> future = new CompletableFuture<>();
+        if (!running) {
+            future.completeExceptionally(new IllegalStateException("Batcher is shut down"));
+            return future;
+        }
+        queue.add(new Pending<>(item, future));
+        return future;
+    }
+
+    private void collect() {
+        List<Pending<I, O>> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                Pending<I, O> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending<I, O> next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                dispatch(List.copyOf(batch));
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        List<Pending<I, O>> leftovers = new ArrayList<>(batch);
+        queue.drainTo(leftovers);
+        leftovers.forEach(p -> p.future().completeExceptionally(new IllegalStateException("Batcher is shut down")));
+    }
+
+    private void dispatch(List<Pending<I, O>> batch) {
+        batches.increment();
+        items.add(batch.size());
+        int bucket = 0;
+        while (bucket < SIZE_BOUNDS.length && batch.size() > SIZE_BOUNDS[bucket]) {
+            bucket++;
+        }
+        sizeBuckets.incrementAndGet(bucket);
+
+        try {
+            executor.execute(() -> run(batch));
+        } catch (RejectedExecutionException e) {
+            run(batch);
+        }
+    }
+
+    private void run(List<Pending<I, O>> batch) {
+        try {
+            List<O> results = batchFunction.apply(batch.stream().map(Pending::item).toList());
+            if (results.size() != batch.size()) {
+                throw new IllegalStateException("Batch returned " + results.size() + " results for "
+                        + batch.size() + " items");
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future().complete(results.get(i));
+            }
+        } catch (Exception e) {
+            log.error("❌ Batch of {} failed", batch.size(), e);
+            batch.forEach(p -> p.future().completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Realised batch sizes: count, mean and a histogram of sizes
+     */
+    public Map<String, Object> snapshot() {
+        long batchCount = batches.sum();
+        long itemCount = items.sum();
+
+        Map<String, Long> distribution = new LinkedHashMap<>();
+        for (int i = 0; i < SIZE_BOUNDS.length; i++) {
+            distribution.put("<=" + SIZE_BOUNDS[i], sizeBuckets.get(i));
+        }
+        distribution.put(">" + SIZE_BOUNDS[SIZE_BOUNDS.length - 1], sizeBuckets.get(SIZE_BOUNDS.length));
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("batches", batchCount);
+        snapshot.put("items", itemCount);
+        snapshot.put("meanBatchSize", batchCount > 0 ? (double) itemCount / batchCount : 0.0);
+        snapshot.put("batchSizes", distribution);
+        snapshot.put("queued", queue.size());
+        return snapshot;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        collector.interrupt();
+    }
+
+    private record Pending<I, O>(I item, CompletableFuture<O> future) {
+    }
+}
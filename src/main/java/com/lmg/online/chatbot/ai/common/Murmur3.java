@@ -0,0 +1,114 @@
+package com.lmg.online.chatbot.ai.common;
+
+/**
+ * MurmurHash3 x64 128-bit over the UTF-16 code units of a CharSequence, so no byte[] is
+ * encoded first. Output matches Guava's Hashing.murmur3_128().hashUnencodedChars(...).
+ *
+ * Non-cryptographic: fine for cache keys (collisions at 2^-64 birthday odds), not for
+ * anything an attacker must not be able to collide.
+ */
+public final class Murmur3 {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private Murmur3() {
+    }
+
+    /**
+     * 32 lowercase hex characters, h1 then h2 little-endian byte order
+     */
+    public static String hash128Hex(CharSequence text) {
+        long h1 = 0;
+        long h2 = 0;
+        int length = text.length();
+        int blocks = length / 8;
+
+        for (int block = 0; block < blocks; block++) {
+            int i = block * 8;
+            long k1 = chars(text, i);
+            long k2 = chars(text, i + 4);
+
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        int tail = blocks * 8;
+        int remaining = length - tail;
+        if (remaining > 0) {
+            long k1 = 0;
+            long k2 = 0;
+            for (int j = 0; j < remaining; j++) {
+                long c = text.charAt(tail + j);
+                if (j < 4) {
+                    k1 |= c << (16 * j);
+                } else {
+                    k2 |= c << (16 * (j - 4));
+                }
+            }
+            if (remaining > 4) {
+                h2 ^= mixK2(k2);
+            }
+            h1 ^= mixK1(k1);
+        }
+
+        long byteLength = 2L * length;
+        h1 ^= byteLength;
+        h2 ^= byteLength;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        h1 += h2;
+        h2 += h1;
+
+        char[] hex = new char[32];
+        appendHex(hex, 0, h1);
+        appendHex(hex, 16, h2);
+        return new String(hex);
+    }
+
+    private static long chars(CharSequence text, int i) {
+        return text.charAt(i)
+                | (long) text.charAt(i + 1) << 16
+                | (long) text.charAt(i + 2) << 32
+                | (long) text.charAt(i + 3) << 48;
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        return k1 * C2;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        return k2 * C1;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    private static void appendHex(char[] out, int offset, long value) {
+        for (int b = 0; b < 8; b++) {
+            int octet = (int) (value >>> (8 * b)) & 0xff;
+            out[offset + 2 * b] = HEX[octet >>> 4];
+            out[offset + 2 * b + 1] = HEX[octet & 0xf];
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.lmg.online.chatbot.ai.common;
+
+import java.util.Arrays;
+
+/**
+ * Single-pass query canonicalisation for cache keys.
+ *
+ * Folds case, whitespace and punctuation, and optionally masks every token that
+ * contains a digit (order numbers, pincodes, amounts) to "#", so that
+ * "Where is my order 12345?" and "where is my order 67890" share one key.
+ *
+ * The key form additionally drops filler and stop words ("please", "can you", "the"),
+ * so "Can you please tell me the return policy" and "return policy" share one key.
+ * Negations and question words are deliberately not fillers - they change the answer.
+ */
+public final class QueryCanonicalizer {
+
+    public static final char DIGIT_MASK = '#';
+
+    private static final String[] FILLER_WORDS = {
+            "a", "an", "the", "please", "pls", "plz", "kindly", "hi", "hello", "hey", "thanks",
+            "thank", "you", "u", "can", "could", "would", "will", "i", "me", "my", "is", "are",
+            "am", "do", "does", "to", "of", "for", "in", "on", "tell", "know", "want", "need",
+            "just", "ok", "okay", "about", "some", "any", "let"
+    };
+    // String.hashCode of each filler word, sorted, for allocation-free lookup of a token
+    private static final int[] FILLER_HASHES;
+    private static final String[] FILLERS_BY_HASH;
+
+    static {
+        String[] sorted = FILLER_WORDS.clone();
+        Arrays.sort(sorted, (left, right) -> Integer.compare(left.hashCode(), right.hashCode()));
+        FILLER_HASHES = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            FILLER_HASHES[i] = sorted[i].hashCode();
+            if (i > 0 && FILLER_HASHES[i] == FILLER_HASHES[i - 1]) {
+                throw new IllegalStateException("Filler words share a hash: " + sorted[i - 1] + ", " + sorted[i]);
+            }
+        }
+        FILLERS_BY_HASH = sorted;
+    }
+
+    private QueryCanonicalizer() {
+    }
+
+    public static String canonicalize(String query, boolean maskDigits) {
+        if (query == null || query.isEmpty()) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(query.length());
+        fold(query, maskDigits, false, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Appends the cache-key form of a query to sb: folded, fillers dropped, and digit tokens
+     * masked when the answer does not depend on them
+     */
+    public static StringBuilder appendKeyForm(CharSequence query, boolean maskDigits, StringBuilder sb) {
+        if (query != null && !query.isEmpty()) {
+            fold(query, maskDigits, true, sb);
+        }
+        return sb;
+    }
+
+    private static void fold(CharSequence query, boolean maskDigits, boolean dropFillers, StringBuilder sb) {
+        int start = sb.length();
+        int tokenStart = -1;
+        boolean tokenHasDigit = false;
+        int tokenHash = 0;
+
+        for (int i = 0; i <= query.length(); i++) {
+            char c = i < query.length() ? Character.toLowerCase(query.charAt(i)) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (tokenStart < 0) {
+                    if (sb.length() > start) {
+                        sb.append(' ');
+                    }
+                    tokenStart = sb.length();
+                    tokenHasDigit = false;
+                    tokenHash = 0;
+                }
+                tokenHasDigit |= Character.isDigit(c);
+                tokenHash = 31 * tokenHash + c;
+                sb.append(c);
+            } else if (tokenStart >= 0) {
+                if (maskDigits && tokenHasDigit) {
+                    sb.setLength(tokenStart);
+                    sb.append(DIGIT_MASK);
+                } else if (dropFillers && isFiller(sb, tokenStart, tokenHash)) {
+                    // Drop the token and the space that preceded it
+                    sb.setLength(tokenStart > start ? tokenStart - 1 : start);
+                }
+                tokenStart = -1;
+            }
+        }
+    }
+
+    private static boolean isFiller(StringBuilder sb, int tokenStart, int tokenHash) {
+        int index = Arrays.binarySearch(FILLER_HASHES, tokenHash);
+        if (index < 0) {
+            return false;
+        }
+        String filler = FILLERS_BY_HASH[index];
+        int length = sb.length() - tokenStart;
+        if (filler.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (sb.charAt(tokenStart + i) != filler.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,97 @@
+package com.lmg.online.chatbot.ai.common;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * In-flight request coalescing ("single flight").
+ *
+ * The first caller for a key runs the computation on its own thread; callers arriving with
+ * the same key while it is still running wait on the same future instead of starting their
+ * own. The key is released as soon as the computation finishes, so nothing is cached here -
+ * failures reach every waiting caller and the next call starts fresh.
+ *
+ * With a wait timeout, a caller that has waited that long on someone else's computation
+ * stops waiting and runs its own, so one stuck call cannot hold every caller of its key.
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder waitTimeouts = new LongAdder();
+
+    public Result<V> execute(K key, Supplier<V> computation) {
+        return execute(key, computation, 0);
+    }
+
+    /**
+     * @param waitTimeoutMs longest wait on another caller's computation, 0 for no limit
+     */
+    public Result<V> execute(K key, Supplier<V> computation, long waitTimeoutMs) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalesced.increment();
+            try {
+                return new Result<>(await(existing, waitTimeoutMs), true);
+            } catch (TimeoutException e) {
+                waitTimeouts.increment();
+                executions.increment();
+                return new Result<>(computation.get(), false);
+            }
+        }
+
+        executions.increment();
+        try {
+            V value = computation.get();
+            mine.complete(value);
+            return new Result<>(value, false);
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("executions", executions.sum());
+        snapshot.put("coalesced", coalesced.sum());
+        snapshot.put("waitTimeouts", waitTimeouts.sum());
+        snapshot.put("inFlight", inFlight.size());
+        return snapshot;
+    }
+
+    private static <V> V await(CompletableFuture<V> future, long waitTimeoutMs) throws TimeoutException {
+        try {
+            return waitTimeoutMs > 0 ? future.get(waitTimeoutMs, TimeUnit.MILLISECONDS) : future.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (ExecutionException | CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    /**
+     * @param shared true when the value came from another caller's computation
+     */
+    public record Result<V>(V value, boolean shared) {
+    }
+}
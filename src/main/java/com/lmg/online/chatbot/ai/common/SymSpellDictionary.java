@@ -0,0 +1,138 @@
+package com.lmg.online.chatbot.ai.common;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable SymSpell-style spelling dictionary (symmetric delete algorithm).
+ *
+ * Every dictionary word is indexed under all strings reachable by deleting up to
+ * maxEditDistance characters. A lookup generates the same deletes for the input token,
+ * so candidates are found with hash probes only; each candidate is then verified with an
+ * optimal-string-alignment distance. Ties on distance go to the more frequent word.
+ */
+public final class SymSpellDictionary {
+
+    private final Map<String, Integer> frequencies;
+    private final Map<String, String[]> deletes;
+    private final int maxEditDistance;
+
+    private SymSpellDictionary(Map<String, Integer> frequencies, Map<String, String[]> deletes,
+                               int maxEditDistance) {
+        this.frequencies = frequencies;
+        this.deletes = deletes;
+        this.maxEditDistance = maxEditDistance;
+    }
+
+    /**
+     * @param words lowercase dictionary words with their relative frequency
+     */
+    public static SymSpellDictionary build(Map<String, Integer> words, int maxEditDistance) {
+        Map<String, Set<String>> index = new HashMap<>();
+        words.keySet().forEach(word -> {
+            Set<String> variants = new HashSet<>();
+            variants.add(word);
+            collectDeletes(word, maxEditDistance, variants);
+            variants.forEach(variant -> index.computeIfAbsent(variant, k -> new HashSet<>()).add(word));
+        });
+
+        Map<String, String[]> deletes = new HashMap<>(index.size() * 2);
+        index.forEach((variant, owners) -> deletes.put(variant, owners.toArray(new String[0])));
+        return new SymSpellDictionary(Map.copyOf(words), deletes, maxEditDistance);
+    }
+
+    public boolean contains(String word) {
+        return frequencies.containsKey(word);
+    }
+
+    public int size() {
+        return frequencies.size();
+    }
+
+    /**
+     * Closest dictionary word within maxDistance edits
+     * @return the word itself if known, the best correction, or null when nothing is close enough
+     */
+    public String lookup(String token, int maxDistance) {
+        if (frequencies.containsKey(token)) {
+            return token;
+        }
+
+        int limit = Math.min(maxDistance, maxEditDistance);
+        Set<String> variants = new HashSet<>();
+        variants.add(token);
+        collectDeletes(token, limit, variants);
+
+        String best = null;
+        int bestDistance = limit + 1;
+        int bestFrequency = 0;
+        for (String variant : variants) {
+            String[] owners = deletes.get(variant);
+            if (owners == null) {
+                continue;
+            }
+            for (String candidate : owners) {
+                if (Math.abs(candidate.length() - token.length()) > limit) {
+                    continue;
+                }
+                int distance = distance(token, candidate, bestDistance);
+                int frequency = frequencies.get(candidate);
+                if (distance < bestDistance || (distance == bestDistance && frequency > bestFrequency)) {
+                    best = candidate;
+                    bestDistance = distance;
+                    bestFrequency = frequency;
+                }
+            }
+        }
+        return bestDistance <= limit ? best : null;
+    }
+
+    private static void collectDeletes(String word, int depth, Set<String> out) {
+        if (depth == 0 || word.length() <= 1) {
+            return;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            String variant = word.substring(0, i) + word.substring(i + 1);
+            if (out.add(variant)) {
+                collectDeletes(variant, depth - 1, out);
+            }
+        }
+    }
+
+    /**
+     * Optimal string alignment distance (Levenshtein plus adjacent transpositions),
+     * abandoning early once every cell in a row exceeds the limit
+     */
+    static int distance(String a, String b, int limit) {
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+}
@@ -0,0 +1,52 @@
+package com.lmg.online.chatbot.ai.common;
+
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Fan-out work on a bounded pool with a deadline that really stops it.
+ *
+ * CompletableFuture.orTimeout only completes the future; the task keeps its pool thread until
+ * it finishes on its own. Here the task is submitted as a cancellable Future and interrupted
+ * (or dropped from the queue) once the deadline passes. A saturated pool rejects the task
+ * instead of running it on the caller's thread, and the returned future fails with the
+ * RejectedExecutionException, so callers turn both cases into a per-item error.
+ */
+public final class TimedTasks {
+
+    private TimedTasks() {
+    }
+
+    /**
+     * @return a future completed with the work's result, or failed with a TimeoutException,
+     *         a RejectedExecutionException or whatever the work threw
+     */
+    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> work, AsyncTaskExecutor executor, long timeoutMs) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task;
+        try {
+            task = executor.submit(() -> {
+                try {
+                    result.complete(work.get());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+        result.orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((value, e) -> {
+                    if (e != null) {
+                        task.cancel(true);
+                    }
+                });
+        return result;
+    }
+}
@@ -0,0 +1,62 @@
+package com.lmg.online.chatbot.ai.common;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Blocking token bucket refilled continuously at a fixed rate per minute.
+ *
+ * Callers reserve an estimate up front and settle the difference once the real cost is
+ * known; the balance may go negative, which simply makes the next callers wait longer.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double refillPerNano;
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(long tokensPerMinute) {
+        this.capacity = Math.max(1, tokensPerMinute);
+        this.refillPerNano = capacity / TimeUnit.MINUTES.toNanos(1);
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Blocks until the amount (capped at the bucket size) is available, then takes it
+     */
+    public void acquire(long amount) throws InterruptedException {
+        double needed = Math.min(amount, capacity);
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                refill();
+                if (tokens >= needed) {
+                    tokens -= amount;
+                    return;
+                }
+                waitNanos = (long) ((needed - tokens) / refillPerNano);
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.max(waitNanos, TimeUnit.MILLISECONDS.toNanos(1)));
+        }
+    }
+
+    /**
+     * Settles a reservation: positive when the real cost exceeded the estimate
+     */
+    public synchronized void settle(long difference) {
+        refill();
+        tokens = Math.min(capacity, tokens - difference);
+    }
+
+    public synchronized long available() {
+        refill();
+        return (long) tokens;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerNano);
+        lastRefill = now;
+    }
+}
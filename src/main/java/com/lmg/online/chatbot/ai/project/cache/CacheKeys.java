@@ -0,0 +1,83 @@
+package com.lmg.online.chatbot.ai.project.cache;
+
+import com.lmg.online.chatbot.ai.common.GeoHash;
+import com.lmg.online.chatbot.ai.common.Murmur3;
+import com.lmg.online.chatbot.ai.common.QueryCanonicalizer;
+import com.lmg.online.chatbot.ai.project.handler.CachePolicy;
+import com.lmg.online.chatbot.ai.request.ChatRequest;
+
+import java.util.Locale;
+
+/**
+ * The one place cache keys are built, so every cache and code path agrees on what "the
+ * same request" means.
+ *
+ * A key is the 128-bit Murmur3 hash (32 hex chars) of the request's fields in a fixed order:
+ * intent, user, concept, the query in key form (see QueryCanonicalizer.appendKeyForm), a
+ * geohash bucket for the coordinates, the environment and the app id. Fields a CachePolicy leaves out
+ * are left empty. Built in one StringBuilder and hashed without encoding to bytes.
+ *
+ * Response keys keep digits (an order number or pincode changes the answer); intent keys
+ * mask them (it does not change the intent).
+ */
+public final class CacheKeys {
+
+    /** Geohash cell of about 1.2 km x 0.6 km, close to the former 0.01 degree rounding */
+    public static final int GEOHASH_PRECISION = 6;
+
+    private static final char SEPARATOR = '\u001f';
+
+    private CacheKeys() {
+    }
+
+    /**
+     * Key of a response to request, for the user's query as typed (not spell-corrected), on every field
+     */
+    public static String forRequest(ChatRequest request, String query) {
+        return forRequest(request, query, null, CachePolicy.DEFAULT);
+    }
+
+    /**
+     * Key of intent's response to request, on the fields its cache policy declares
+     */
+    public static String forRequest(ChatRequest request, String query, String intent, CachePolicy policy) {
+        StringBuilder sb = new StringBuilder(96 + (query != null ? query.length() : 0));
+        sb.append('r').append(SEPARATOR);
+        if (intent != null) {
+            sb.append(intent);
+        }
+        sb.append(SEPARATOR);
+        if (policy.includes(CachePolicy.KeyPart.USER) && request.getUserId() != null) {
+            sb.append(request.getUserId().trim());
+        }
+        sb.append(SEPARATOR);
+        if (policy.includes(CachePolicy.KeyPart.CONCEPT) && request.getConcept() != null) {
+            sb.append(request.getConcept().trim().toUpperCase(Locale.ROOT));
+        }
+        sb.append(SEPARATOR);
+        QueryCanonicalizer.appendKeyForm(query, false, sb);
+        sb.append(SEPARATOR);
+        if (policy.includes(CachePolicy.KeyPart.LOCATION) && request.getLatitude() != 0 && request.getLongitude() != 0) {
+            GeoHash.append(sb, request.getLatitude(), request.getLongitude(), GEOHASH_PRECISION);
+        }
+        sb.append(SEPARATOR);
+        if (policy.includes(CachePolicy.KeyPart.ENV) && request.getEnv() != null) {
+            sb.append(request.getEnv().trim().toLowerCase(Locale.ROOT));
+        }
+        sb.append(SEPARATOR);
+        if (policy.includes(CachePolicy.KeyPart.APP) && request.getAppid() != null) {
+            sb.append(request.getAppid().trim());
+        }
+        return Murmur3.hash128Hex(sb);
+    }
+
+    /**
+     * Key of a query on its own (intent classification does not depend on who asked)
+     */
+    public static String forQuery(String query) {
+        StringBuilder sb = new StringBuilder(8 + (query != null ? query.length() : 0));
+        sb.append('q').append(SEPARATOR);
+        QueryCanonicalizer.appendKeyForm(query, true, sb);
+        return Murmur3.hash128Hex(sb);
+    }
+}
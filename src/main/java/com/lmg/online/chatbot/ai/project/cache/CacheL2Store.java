@@ -0,0 +1,108 @@
+package com.lmg.online.chatbot.ai.project.cache;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Shared second-level store behind the per-node Caffeine caches, plus the channel nodes
+ * use to tell each other which near-cache entries went stale.
+ *
+ * Keys are the string form of the cache key; implementations must never throw on a
+ * lost connection in a way that fails the request - TwoTierCache treats errors as misses.
+ */
+public interface CacheL2Store {
+
+    /**
+     * @return the stored value, or null when absent
+     */
+    Object get(String cacheName, String key);
+
+    /**
+     * @return true when the write replaced a live entry, i.e. other nodes may hold a stale copy
+     */
+    boolean put(String cacheName, String key, Object value, Duration ttl);
+
+    /**
+     * @return remaining time to live of a stored entry, or null when unknown
+     */
+    default Duration getTimeToLive(String cacheName, String key) {
+        return null;
+    }
+
+    void evict(String cacheName, String key);
+
+    /**
+     * Clears the cache's entries and tag sets
+     */
+    void clear(String cacheName);
+
+    /**
+     * Adds key to the shared key set of each tag; a set lives at least as long as the
+     * longest ttl of the entries added to it
+     */
+    void tagKey(String cacheName, String key, Collection<String> tags, Duration ttl);
+
+    /**
+     * Keys in the shared sets of every one of the tags, whichever node wrote them
+     */
+    Set<String> keysWithAllTags(String cacheName, Collection<String> tags);
+
+    /**
+     * Removes keys from the shared sets of the given tags
+     */
+    void untagKeys(String cacheName, Collection<String> keys, Collection<String> tags);
+
+    /**
+     * Broadcasts an invalidation to every subscribed node, including the sender
+     */
+    void publish(CacheInvalidation invalidation);
+
+    void subscribe(Consumer<CacheInvalidation> listener);
+
+    /**
+     * Near-cache invalidation message
+     * @param origin node that made the change (receivers skip their own messages)
+     * @param key    evicted key, or null when the whole cache was cleared; tag invalidations
+     *               carry their tags here behind a reserved prefix (see forTags)
+     */
+    record CacheInvalidation(String origin, String cacheName, String key) {
+
+        private static final char SEPARATOR = '\u001F';
+        private static final char TAG_SEPARATOR = '\u001E';
+        private static final String TAG_PREFIX = "\u001Dtags\u001D";
+
+        /**
+         * Asks every node to evict the entries it holds carrying all of the given tags
+         */
+        public static CacheInvalidation forTags(String origin, String cacheName, Collection<String> tags) {
+            return new CacheInvalidation(origin, cacheName, TAG_PREFIX + String.join(String.valueOf(TAG_SEPARATOR), tags));
+        }
+
+        public boolean isTagInvalidation() {
+            return key != null && key.startsWith(TAG_PREFIX);
+        }
+
+        public List<String> tags() {
+            if (!isTagInvalidation()) {
+                return List.of();
+            }
+            return Arrays.asList(key.substring(TAG_PREFIX.length()).split(String.valueOf(TAG_SEPARATOR)));
+        }
+
+        public String encode() {
+            return origin + SEPARATOR + cacheName + SEPARATOR + (key == null ? "" : key);
+        }
+
+        public static CacheInvalidation decode(String message) {
+            String[] parts = message.split(String.valueOf(SEPARATOR), 3);
+            if (parts.length < 3) {
+                throw new IllegalArgumentException("Malformed cache invalidation: " + message);
+            }
+            return new CacheInvalidation(parts[0], parts[1], parts[2].isEmpty() ? null : parts[2]);
+        }
+    }
+}
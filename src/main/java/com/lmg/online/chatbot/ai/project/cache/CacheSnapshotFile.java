@@ -0,0 +1,307 @@
+package com.lmg.online.chatbot.ai.project.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Memory-mapped, length-prefixed binary snapshot of Caffeine caches.
+ *
+ * Layout (big-endian):
+ * <pre>
+ * int magic "LMGS", int version, long writtenAtMillis, int cacheCount
+ * per cache: int nameLength, name (UTF-8), int entryCount
+ *   per entry: long expiresAtMillis, int keyLength, key (UTF-8), int valueLength, value,
+ *              int tagCount, per tag: int tagLength, tag (UTF-8)
+ * </pre>
+ * Version 1 files (no tag section) are still read.
+ * Expiry is stored as wall-clock time, so an entry restored after a restart keeps only the
+ * time to live it had left. Entries tagged with a user (answers keyed on who asked, such as
+ * orders or profile details) are personal data and never written to disk. Files are written to a temporary sibling and moved into place,
+ * so a crash mid-write leaves the previous snapshot intact.
+ */
+public final class CacheSnapshotFile {
+
+    private static final int MAGIC = 0x4C4D4753;
+    private static final int VERSION = 2;
+    private static final int UNTAGGED_VERSION = 1;
+    private static final String USER_TAG_PREFIX = CacheTagIndex.tagName("user", "");
+
+    /**
+     * Value serialisation; must round-trip the concrete types held in the caches
+     */
+    public interface Codec {
+        byte[] encode(Object value);
+
+        Object decode(byte[] bytes);
+    }
+
+    /**
+     * Where the tags of each entry come from on write and go to on restore (see CacheTagIndex)
+     */
+    public interface Tags {
+        Set<String> tagsOf(String cacheName, String key);
+
+        void tag(String cacheName, String key, Collection<String> tags);
+    }
+
+    public static final Tags NO_TAGS = new Tags() {
+        @Override
+        public Set<String> tagsOf(String cacheName, String key) {
+            return Set.of();
+        }
+
+        @Override
+        public void tag(String cacheName, String key, Collection<String> tags) {
+        }
+    };
+
+    /**
+     * @param personal user-keyed entries left out of the file
+     */
+    public record WriteResult(int entries, int skipped, int personal, long bytes) {
+    }
+
+    public record RestoreResult(int entries, int expired, int skipped) {
+    }
+
+    private record Entry(long expiresAt, byte[] key, byte[] value, List<byte[]> tags) {
+    }
+
+    private CacheSnapshotFile() {
+    }
+
+    /**
+     * Typed JSON, the same encoding the Redis L2 store uses
+     */
+    public static Codec typedJsonCodec() {
+        GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer();
+        return new Codec() {
+            @Override
+            public byte[] encode(Object value) {
+                return serializer.serialize(value);
+            }
+
+            @Override
+            public Object decode(byte[] bytes) {
+                return serializer.deserialize(bytes);
+            }
+        };
+    }
+
+    /**
+     * Writes the String-keyed entries of each cache; entries that cannot be encoded or
+     * have no expiry information left are skipped, user-keyed ones are left out
+     */
+    public static WriteResult write(Path path, Map<String, Cache<Object, Object>> caches, Codec codec)
+            throws IOException {
+        return write(path, caches, codec, NO_TAGS);
+    }
+
+    public static WriteResult write(Path path, Map<String, Cache<Object, Object>> caches, Codec codec, Tags tags)
+            throws IOException {
+        long now = System.currentTimeMillis();
+        long size = 4 + 4 + 8 + 4;
+        int written = 0;
+        int skipped = 0;
+        int personal = 0;
+
+        List<byte[]> names = new ArrayList<>();
+        List<List<Entry>> entriesByCache = new ArrayList<>();
+        for (Map.Entry<String, Cache<Object, Object>> cache : caches.entrySet()) {
+            Optional<Policy.VarExpiration<Object, Object>> expiration = cache.getValue().policy().expireVariably();
+            List<Entry> entries = new ArrayList<>();
+            for (Map.Entry<Object, Object> entry : cache.getValue().asMap().entrySet()) {
+                Optional<Duration> remaining = expiration.flatMap(policy -> policy.getExpiresAfter(entry.getKey()));
+                if (!(entry.getKey() instanceof String key) || remaining.isEmpty()) {
+                    skipped++;
+                    continue;
+                }
+                Set<String> entryTags = tags.tagsOf(cache.getKey(), key);
+                if (entryTags.stream().anyMatch(tag -> tag.startsWith(USER_TAG_PREFIX))) {
+                    personal++;
+                    continue;
+                }
+                byte[] value;
+                try {
+                    value = codec.encode(entry.getValue());
+                } catch (RuntimeException e) {
+                    skipped++;
+                    continue;
+                }
+                byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+                List<byte[]> tagBytes = new ArrayList<>();
+                for (String tag : entryTags) {
+                    tagBytes.add(tag.getBytes(StandardCharsets.UTF_8));
+                    size += 4 + tagBytes.get(tagBytes.size() - 1).length;
+                }
+                entries.add(new Entry(now + remaining.get().toMillis(), keyBytes, value, tagBytes));
+                size += 8 + 4 + keyBytes.length + 4 + value.length + 4;
+            }
+            byte[] name = cache.getKey().getBytes(StandardCharsets.UTF_8);
+            names.add(name);
+            entriesByCache.add(entries);
+            size += 4 + name.length + 4;
+            written += entries.size();
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot of " + size + " bytes exceeds the 2 GB mapping limit");
+        }
+
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(now).putInt(names.size());
+            for (int i = 0; i < names.size(); i++) {
+                putBytes(buffer, names.get(i));
+                buffer.putInt(entriesByCache.get(i).size());
+                for (Entry entry : entriesByCache.get(i)) {
+                    buffer.putLong(entry.expiresAt());
+                    putBytes(buffer, entry.key());
+                    putBytes(buffer, entry.value());
+                    buffer.putInt(entry.tags().size());
+                    for (byte[] tag : entry.tags()) {
+                        putBytes(buffer, tag);
+                    }
+                }
+            }
+            buffer.force();
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new WriteResult(written, skipped, personal, size);
+    }
+
+    /**
+     * Loads a snapshot into the caches returned by cacheByName (null skips that cache's
+     * section). Entries already present are kept; expired or undecodable ones are skipped.
+     */
+    public static RestoreResult restore(Path path, Function<String, Cache<Object, Object>> cacheByName, Codec codec)
+            throws IOException {
+        return restore(path, cacheByName, codec, NO_TAGS);
+    }
+
+    public static RestoreResult restore(Path path, Function<String, Cache<Object, Object>> cacheByName, Codec codec,
+                                        Tags tags) throws IOException {
+        long now = System.currentTimeMillis();
+        int restored = 0;
+        int expired = 0;
+        int skipped = 0;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a cache snapshot: " + path);
+            }
+            int version = buffer.getInt();
+            boolean tagged = version == VERSION;
+            if (!tagged && version != UNTAGGED_VERSION) {
+                throw new IOException("Unsupported cache snapshot version " + version);
+            }
+            buffer.getLong();
+            int cacheCount = buffer.getInt();
+
+            for (int c = 0; c < cacheCount; c++) {
+                String name = new String(getBytes(buffer), StandardCharsets.UTF_8);
+                int entryCount = buffer.getInt();
+                Cache<Object, Object> cache = cacheByName.apply(name);
+                Optional<Policy.VarExpiration<Object, Object>> expiration =
+                        cache != null ? cache.policy().expireVariably() : Optional.empty();
+
+                for (int e = 0; e < entryCount; e++) {
+                    long remainingMillis = buffer.getLong() - now;
+                    int keyLength = buffer.getInt();
+                    if (cache == null || remainingMillis <= 0) {
+                        // Skip without decoding
+                        buffer.position(buffer.position() + keyLength);
+                        buffer.position(buffer.position() + buffer.getInt());
+                        if (tagged) {
+                            getTags(buffer);
+                        }
+                        if (cache == null) {
+                            skipped++;
+                        } else {
+                            expired++;
+                        }
+                        continue;
+                    }
+                    byte[] key = new byte[keyLength];
+                    buffer.get(key);
+                    byte[] valueBytes = getBytes(buffer);
+                    List<String> entryTags = tagged ? getTags(buffer) : List.of();
+                    Object value;
+                    try {
+                        value = codec.decode(valueBytes);
+                    } catch (RuntimeException ex) {
+                        skipped++;
+                        continue;
+                    }
+                    if (value == null) {
+                        skipped++;
+                        continue;
+                    }
+                    String keyString = new String(key, StandardCharsets.UTF_8);
+                    Object previous = expiration.isPresent()
+                            ? expiration.get().putIfAbsent(keyString, value, Duration.ofMillis(remainingMillis))
+                            : cache.asMap().putIfAbsent(keyString, value);
+                    if (previous == null && !entryTags.isEmpty()) {
+                        tags.tag(name, keyString, entryTags);
+                    }
+                    restored++;
+                }
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Truncated or corrupt cache snapshot: " + path, e);
+        }
+        return new RestoreResult(restored, expired, skipped);
+    }
+
+    private static void putBytes(MappedByteBuffer buffer, byte[] bytes) {
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static List<String> getTags(MappedByteBuffer buffer) {
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining() / 4) {
+            throw new IllegalArgumentException("Bad tag count " + count);
+        }
+        List<String> tags = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tags.add(new String(getBytes(buffer), StandardCharsets.UTF_8));
+        }
+        return tags;
+    }
+
+    private static byte[] getBytes(MappedByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Bad length " + length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,154 @@
+package com.lmg.online.chatbot.ai.project.cache;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the response and intent caches across restarts.
+ *
+ * With chatbot.cache.snapshot.enabled=true the configured caches are written to a local
+ * snapshot file (see CacheSnapshotFile) every interval-ms and on shutdown, and reloaded in
+ * an ApplicationRunner on startup. Runners finish before Spring Boot reports readiness, so a
+ * new instance only takes traffic once its caches are back; this runner goes first, before
+ * any warm-up, so warm-up queries find the restored entries.
+ *
+ * Only the local near-cache is snapshotted and restored: the shared Redis tier survives
+ * restarts on its own. Entry tags go with them, so restored answers stay invalidatable.
+ * Answers keyed on a user (orders, profile) are never written to disk.
+ */
+@Slf4j
+@Service
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CacheSnapshotService implements ApplicationRunner {
+
+    private final CacheManager cacheManager;
+    private final CacheTagIndex tagIndex;
+    private final CacheSnapshotFile.Codec codec = CacheSnapshotFile.typedJsonCodec();
+    private final boolean enabled;
+    private final Path path;
+    private final List<String> cacheNames;
+
+    private volatile Map<String, Object> lastSnapshot = Map.of();
+    private volatile Map<String, Object> lastRestore = Map.of();
+
+    public CacheSnapshotService(
+            CacheManager cacheManager,
+            CacheTagIndex tagIndex,
+            @Value("${chatbot.cache.snapshot.enabled:false}") boolean enabled,
+            @Value("${chatbot.cache.snapshot.path:./data/cache-snapshot.bin}") String path,
+            @Value("${chatbot.cache.snapshot.caches:chatbotResponses,intentClassifications}") List<String> cacheNames) {
+        this.cacheManager = cacheManager;
+        this.tagIndex = tagIndex;
+        this.enabled = enabled;
+        this.path = Path.of(path);
+        this.cacheNames = cacheNames;
+    }
+
+    /**
+     * Restores the last snapshot before the application reports itself ready
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled || !Files.exists(path)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            CacheSnapshotFile.RestoreResult result = CacheSnapshotFile.restore(path, this::nativeCache, codec, tagIndex);
+            long elapsed = System.currentTimeMillis() - start;
+            lastRestore = Map.of(
+                    "restored", result.entries(),
+                    "expired", result.expired(),
+                    "skipped", result.skipped(),
+                    "durationMs", elapsed,
+                    "at", Instant.now().toString());
+            log.info("♻️ Restored {} cache entries from {} in {}ms ({} expired, {} skipped)",
+                    result.entries(), path, elapsed, result.expired(), result.skipped());
+        } catch (Exception e) {
+            log.warn("⚠️ Could not restore cache snapshot {}: {}", path, e.getMessage());
+        }
+    }
+
+    @Scheduled(
+            initialDelayString = "${chatbot.cache.snapshot.interval-ms:600000}",
+            fixedDelayString = "${chatbot.cache.snapshot.interval-ms:600000}")
+    public void scheduledSnapshot() {
+        if (enabled) {
+            snapshot();
+        }
+    }
+
+    @PreDestroy
+    public void snapshotOnShutdown() {
+        if (enabled) {
+            snapshot();
+        }
+    }
+
+    /**
+     * Writes the configured caches to the snapshot file now
+     */
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, com.github.benmanes.caffeine.cache.Cache<Object, Object>> caches = new LinkedHashMap<>();
+        for (String name : cacheNames) {
+            com.github.benmanes.caffeine.cache.Cache<Object, Object> cache = nativeCache(name);
+            if (cache != null) {
+                caches.put(name, cache);
+            }
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            CacheSnapshotFile.WriteResult result = CacheSnapshotFile.write(path, caches, codec, tagIndex);
+            long elapsed = System.currentTimeMillis() - start;
+            lastSnapshot = Map.of(
+                    "entries", result.entries(),
+                    "skipped", result.skipped(),
+                    "personal", result.personal(),
+                    "bytes", result.bytes(),
+                    "durationMs", elapsed,
+                    "at", Instant.now().toString());
+            log.info("📸 Cache snapshot: {} entries ({} user-keyed left out), {} bytes in {}ms",
+                    result.entries(), result.personal(), result.bytes(), elapsed);
+        } catch (Exception e) {
+            log.warn("⚠️ Cache snapshot to {} failed: {}", path, e.getMessage());
+            lastSnapshot = Map.of("error", String.valueOf(e.getMessage()), "at", Instant.now().toString());
+        }
+        return lastSnapshot;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("path", path.toString());
+        stats.put("caches", cacheNames);
+        stats.put("lastSnapshot", lastSnapshot);
+        stats.put("lastRestore", lastRestore);
+        return stats;
+    }
+
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache(String name) {
+        if (!cacheNames.contains(name)) {
+            return null;
+        }
+        Cache cache = cacheManager.getCache(name);
+        return cache instanceof CaffeineCache caffeineCache ? caffeineCache.getNativeCache() : null;
+    }
+}
@@ -0,0 +1,260 @@
+package com.lmg.online.chatbot.ai.project.cache;
+
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.RemovalListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Secondary index from tags ("concept:LS", "intent:POLICY_QUESTION", "user:42", "doc:abc")
+ * to the cache keys written with them, so a change can evict exactly the entries it affects
+ * instead of clearing a whole cache.
+ *
+ * The index is per node. With a shared L2 store every tag is also kept there as a set of keys
+ * living as long as its entries, so a tag eviction also finds entries written by nodes that
+ * have since restarted or gone; it is broadcast too, and every other node evicts the keys it
+ * has tagged itself. Keys are evicted through the Spring cache, so the L2 copies go too.
+ * Entries leaving a node's Caffeine cache for any reason other than being replaced are
+ * untagged there by the removal listener CacheConfig registers. Tags are written into and
+ * restored from cache snapshots along with their entries.
+ */
+@Slf4j
+@Component
+public class CacheTagIndex implements CacheSnapshotFile.Tags {
+
+    private final ObjectProvider<CacheManager> cacheManager;
+    private final CacheL2Store l2;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, Index> indexes = new ConcurrentHashMap<>();
+    private final LongAdder tagEvictions = new LongAdder();
+    private final LongAdder evictedEntries = new LongAdder();
+
+    public CacheTagIndex(ObjectProvider<CacheManager> cacheManager, ObjectProvider<CacheL2Store> l2Store) {
+        this.cacheManager = cacheManager;
+        this.l2 = l2Store.getIfAvailable();
+        if (l2 != null) {
+            l2.subscribe(this::onInvalidation);
+        }
+    }
+
+    public static String tagName(String type, String value) {
+        return type + ":" + value;
+    }
+
+    /**
+     * Records the tags of an entry on this node, replacing any it had
+     */
+    @Override
+    public void tag(String cacheName, String key, Collection<String> tags) {
+        if (tags == null || tags.isEmpty()) {
+            untag(cacheName, key);
+            return;
+        }
+        indexes.computeIfAbsent(cacheName, name -> new Index()).put(key, tags);
+    }
+
+    /**
+     * Records the tags of a newly written entry on this node and in the shared L2 store
+     */
+    public void tag(String cacheName, String key, Collection<String> tags, Duration ttl) {
+        tag(cacheName, key, tags);
+        if (l2 != null && tags != null && !tags.isEmpty()) {
+            try {
+                l2.tagKey(cacheName, key, tags, ttl);
+            } catch (Exception e) {
+                log.warn("⚠️ Tags of {} entry not stored in L2: {}", cacheName, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Untags entries as they leave a node's cache (expiry, size, explicit or remote eviction).
+     * A replaced entry keeps its tags until the writer re-tags it.
+     */
+    public RemovalListener<Object, Object> removalListener(String cacheName) {
+        return (key, value, cause) -> {
+            if (cause != RemovalCause.REPLACED) {
+                untag(cacheName, key);
+            }
+        };
+    }
+
+    public void untag(String cacheName, Object key) {
+        Index index = indexes.get(cacheName);
+        if (index != null && key != null) {
+            index.remove(key.toString());
+        }
+    }
+
+    @Override
+    public Set<String> tagsOf(String cacheName, String key) {
+        Index index = indexes.get(cacheName);
+        return index != null ? index.tagsOf(key) : Set.of();
+    }
+
+    /**
+     * Keys carrying every one of the tags
+     */
+    public Set<String> keysWithAll(String cacheName, Collection<String> tags) {
+        Index index = indexes.get(cacheName);
+        return index != null ? index.keysWithAll(tags) : Set.of();
+    }
+
+    /**
+     * Evicts every entry carrying all of the tags, on this node and on every node sharing the L2 store
+     * @return number of entries evicted here and from the L2 store
+     */
+    public int evict(String cacheName, Collection<String> tags) {
+        int evicted = evictTagged(cacheName, tags, true);
+        if (l2 != null) {
+            try {
+                l2.publish(CacheL2Store.CacheInvalidation.forTags(nodeId, cacheName, tags));
+            } catch (Exception e) {
+                log.warn("⚠️ Tag invalidation {} for {} not published: {}", tags, cacheName, e.getMessage());
+            }
+        }
+        tagEvictions.increment();
+        log.info("🏷️ Evicted {} {} entries tagged {}", evicted, cacheName, tags);
+        return evicted;
+    }
+
+    /**
+     * Forgets every tag of a cache (the cache itself was cleared)
+     */
+    public void clear(String cacheName) {
+        indexes.remove(cacheName);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Map<String, Object> byCache = new TreeMap<>();
+        indexes.forEach((name, index) -> byCache.put(name, index.stats()));
+        stats.put("caches", byCache);
+        stats.put("tagEvictions", tagEvictions.sum());
+        stats.put("evictedEntries", evictedEntries.sum());
+        return stats;
+    }
+
+    /**
+     * @param shared also evict the keys the L2 tag sets hold (the node that started the eviction)
+     */
+    private int evictTagged(String cacheName, Collection<String> tags, boolean shared) {
+        Set<String> keys = new HashSet<>(keysWithAll(cacheName, tags));
+        if (shared && l2 != null) {
+            try {
+                keys.addAll(l2.keysWithAllTags(cacheName, tags));
+            } catch (Exception e) {
+                log.warn("⚠️ Tag lookup {} in L2 failed, evicting this node's keys only: {}", tags, e.getMessage());
+            }
+        }
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        Cache cache = cacheManager.getObject().getCache(cacheName);
+        for (String key : keys) {
+            if (cache != null) {
+                cache.evict(key);
+            }
+            untag(cacheName, key);
+        }
+        if (shared && l2 != null) {
+            try {
+                l2.untagKeys(cacheName, keys, tags);
+            } catch (Exception e) {
+                log.warn("⚠️ Evicted keys not removed from L2 tag sets {}: {}", tags, e.getMessage());
+            }
+        }
+        evictedEntries.add(keys.size());
+        return keys.size();
+    }
+
+    private void onInvalidation(CacheL2Store.CacheInvalidation invalidation) {
+        if (!invalidation.isTagInvalidation() || nodeId.equals(invalidation.origin())) {
+            return;
+        }
+        int evicted = evictTagged(invalidation.cacheName(), invalidation.tags(), false);
+        log.debug("🏷️ Remote tag invalidation {} evicted {} {} entries",
+                invalidation.tags(), evicted, invalidation.cacheName());
+    }
+
+    /**
+     * Both directions of one cache's tags; writes are rare (they follow an LLM or upstream
+     * call), so a single lock keeps the two maps consistent without fine-grained locking
+     */
+    private static final class Index {
+
+        private final Map<String, Set<String>> keysByTag = new HashMap<>();
+        private final Map<String, Set<String>> tagsByKey = new HashMap<>();
+
+        synchronized void put(String key, Collection<String> tags) {
+            remove(key);
+            Set<String> tagSet = Set.copyOf(tags);
+            tagsByKey.put(key, tagSet);
+            for (String tag : tagSet) {
+                keysByTag.computeIfAbsent(tag, t -> new HashSet<>()).add(key);
+            }
+        }
+
+        synchronized void remove(String key) {
+            Set<String> tags = tagsByKey.remove(key);
+            if (tags == null) {
+                return;
+            }
+            for (String tag : tags) {
+                Set<String> keys = keysByTag.get(tag);
+                if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                    keysByTag.remove(tag);
+                }
+            }
+        }
+
+        synchronized Set<String> tagsOf(String key) {
+            return tagsByKey.getOrDefault(key, Set.of());
+        }
+
+        synchronized Set<String> keysWithAll(Collection<String> tags) {
+            // Intersect starting from the smallest posting set
+            List<Set<String>> postings = new ArrayList<>(tags.size());
+            for (String tag : tags) {
+                Set<String> keys = keysByTag.get(tag);
+                if (keys == null) {
+                    return Set.of();
+                }
+                postings.add(keys);
+            }
+            if (postings.isEmpty()) {
+                return Set.of();
+            }
+            postings.sort((left, right) -> Integer.compare(left.size(), right.size()));
+            Set<String> result = new HashSet<>(postings.get(0));
+            for (int i = 1; i < postings.size() && !result.isEmpty(); i++) {
+                result.retainAll(postings.get(i));
+            }
+            return result;
+        }
+
+        synchronized Map<String, Object> stats() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("keys", tagsByKey.size());
+            stats.put("tags", keysByTag.size());
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.lmg.online.chatbot.ai.project.cache;
+
+import com.lmg.online.chatbot.ai.analytics.AiAnalyticsService;
+import com.lmg.online.chatbot.ai.analytics.ChatbotResponse;
+import com.lmg.online.chatbot.ai.common.ConceptBaseUrlResolver;
+import com.lmg.online.chatbot.ai.common.TokenBucket;
+import com.lmg.online.chatbot.ai.project.intent.ChatbotService;
+import com.lmg.online.chatbot.ai.request.ChatRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pre-populates the response, intent and semantic caches by running queries through
+ * ChatbotService in the background.
+ *
+ * Every query is sent once per requested concept/env pair, at most
+ * chatbot.cache.warmup.parallelism at a time, and paced by a token bucket of
+ * chatbot.cache.warmup.tokens-per-minute LLM tokens so a warm-up cannot starve live
+ * traffic of rate limit. Without an explicit list the most frequent prompts from
+ * ai_usage_analytics are used, leaving out personal tools whose answers depend on the user.
+ * Warm-up requests are flagged as background and write no analytics rows of their own, so
+ * they neither count as usage nor feed back into the prompts the next warm-up picks.
+ *
+ * With chatbot.cache.warmup.on-startup=true the seeded run happens in an ApplicationRunner,
+ * i.e. before the application reports readiness to accept traffic.
+ */
+@Slf4j
+@Service
+public class CacheWarmupService implements ApplicationRunner {
+
+    private static final Set<String> EXCLUDED_TOOLS = Set.of(
+            "orderTrackingTool", "myProfileDetailsTool", "giftCardBalanceTool", "intentClassifier"
+    );
+    private static final int MAX_RETAINED_JOBS = 20;
+
+    private final ChatbotService chatbotService;
+    private final AiAnalyticsService aiAnalyticsService;
+    private final TaskExecutor warmupExecutor;
+    private final TokenBucket tokenBucket;
+    private final int defaultTopN;
+    private final int lookbackDays;
+    private final boolean onStartup;
+    private final long startupTimeoutSeconds;
+
+    private final Map<String, WarmupJob> jobs = Collections.synchronizedMap(new LinkedHashMap<>());
+    // Running average of tokens per warm-up query, used as the bucket reservation
+    private final AtomicLong estimatedTokens = new AtomicLong(1_000);
+
+    public CacheWarmupService(
+            ChatbotService chatbotService,
+            AiAnalyticsService aiAnalyticsService,
+            @Qualifier("cacheWarmupExecutor") TaskExecutor warmupExecutor,
+            @Value("${chatbot.cache.warmup.tokens-per-minute:60000}") long tokensPerMinute,
+            @Value("${chatbot.cache.warmup.top-n:200}") int defaultTopN,
+            @Value("${chatbot.cache.warmup.lookback-days:7}") int lookbackDays,
+            @Value("${chatbot.cache.warmup.on-startup:false}") boolean onStartup,
+            @Value("${chatbot.cache.warmup.startup-timeout-seconds:120}") long startupTimeoutSeconds) {
+        this.chatbotService = chatbotService;
+        this.aiAnalyticsService = aiAnalyticsService;
+        this.warmupExecutor = warmupExecutor;
+        this.tokenBucket = new TokenBucket(tokensPerMinute);
+        this.defaultTopN = defaultTopN;
+        this.lookbackDays = lookbackDays;
+        this.onStartup = onStartup;
+        this.startupTimeoutSeconds = startupTimeoutSeconds;
+    }
+
+    /**
+     * Starts a warm-up job and returns immediately
+     * @param queries  queries to run, or null/empty to seed from analytics
+     * @param concepts concepts to warm, or null/empty for every configured concept
+     * @param envs     environments to warm, or null/empty for the default environment
+     * @param topN     number of analytics prompts when seeding (null for the default)
+     */
+    public WarmupJob start(List<String> queries, List<String> concepts, List<String> envs, Integer topN) {
+        boolean seeded = queries == null || queries.isEmpty();
+        List<String> toRun = seeded ? topPrompts(topN != null ? topN : defaultTopN) : queries;
+        List<String> conceptList = concepts == null || concepts.isEmpty()
+                ? new ArrayList<>(ConceptBaseUrlResolver.getConcepts())
+                : concepts;
+        List<String> envList = envs == null || envs.isEmpty() ? Arrays.asList((String) null) : envs;
+
+        WarmupJob job = new WarmupJob(UUID.randomUUID().toString(), seeded ? "analytics" : "request",
+                toRun.size() * conceptList.size() * envList.size());
+        retain(job);
+        log.info("🔥 Cache warm-up {} started: {} queries x {} concepts x {} envs",
+                job.getId(), toRun.size(), conceptList.size(), envList.size());
+
+        for (String query : toRun) {
+            for (String concept : conceptList) {
+                for (String env : envList) {
+                    warmupExecutor.execute(() -> warm(job, query, concept, env));
+                }
+            }
+        }
+        return job;
+    }
+
+    public WarmupJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    public List<WarmupJob> getJobs() {
+        synchronized (jobs) {
+            List<WarmupJob> all = new ArrayList<>(jobs.values());
+            all.sort(Comparator.comparing(WarmupJob::getStartedAt).reversed());
+            return all;
+        }
+    }
+
+    /**
+     * Seeded warm-up before the application reports itself ready
+     */
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (!onStartup) {
+            return;
+        }
+        WarmupJob job;
+        try {
+            job = start(null, null, null, null);
+        } catch (Exception e) {
+            log.warn("⚠️ Startup cache warm-up could not start: {}", e.getMessage());
+            return;
+        }
+        if (job.await(startupTimeoutSeconds, TimeUnit.SECONDS)) {
+            log.info("✅ Startup cache warm-up done: {} ok, {} failed", job.getSucceeded(), job.getFailed());
+        } else {
+            log.warn("⏱️ Startup cache warm-up still running after {}s ({}%), accepting traffic anyway",
+                    startupTimeoutSeconds, Math.round(job.getProgress() * 100));
+        }
+    }
+
+    private void warm(WarmupJob job, String query, String concept, String env) {
+        if (job.isCancelled()) {
+            job.recordSkipped();
+            return;
+        }
+        try {
+            long reserved = estimatedTokens.get();
+            tokenBucket.acquire(reserved);
+            // The job may have been cancelled while this query waited for tokens
+            if (job.isCancelled()) {
+                tokenBucket.settle(-reserved);
+                job.recordSkipped();
+                return;
+            }
+
+            ChatRequest request = new ChatRequest();
+            request.setMessage(query);
+            request.setConcept(concept);
+            request.setEnv(env);
+            request.setBackground(true);
+            ChatbotResponse<?> response = chatbotService.handleUserQuery(request);
+
+            boolean cached = response.getMetadata() != null && Boolean.TRUE.equals(response.getMetadata().get("cached"));
+            long used = cached || response.getTokenUsage() == null || response.getTokenUsage().getTotalTokens() == null
+                    ? 0
+                    : response.getTokenUsage().getTotalTokens();
+            tokenBucket.settle(used - reserved);
+            if (used > 0) {
+                estimatedTokens.updateAndGet(previous -> (previous * 7 + used) / 8);
+            }
+
+            if (response.getErrorResponse() != null) {
+                job.recordFailure();
+            } else {
+                job.recordSuccess();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.recordFailure();
+        } catch (Exception e) {
+            log.warn("⚠️ Warm-up query failed for {}: {}", concept, e.getMessage());
+            job.recordFailure();
+        }
+    }
+
+    private List<String> topPrompts(int topN) {
+        return aiAnalyticsService.getTopPrompts(LocalDateTime.now().minusDays(lookbackDays), EXCLUDED_TOOLS, topN);
+    }
+
+    private void retain(WarmupJob job) {
+        synchronized (jobs) {
+            jobs.put(job.getId(), job);
+            var oldest = jobs.entrySet().iterator();
+            while (jobs.size() > MAX_RETAINED_JOBS && oldest.hasNext()) {
+                oldest.next();
+                oldest.remove();
+            }
+        }
+    }
+}
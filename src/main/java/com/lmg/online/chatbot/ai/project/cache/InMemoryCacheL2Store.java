@@ -0,0 +1,109 @@
+package com.lmg.online.chatbot.ai.project.cache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process stand-in for the Redis L2 store: one instance shared by several cache
+ * managers behaves like a cluster sharing one Redis, with synchronous pub/sub delivery.
+ * Tag sets never expire here.
+ */
+public class InMemoryCacheL2Store implements CacheL2Store {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> tagSets = new ConcurrentHashMap<>();
+    private final List<Consumer<CacheInvalidation>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public Object get(String cacheName, String key) {
+        Entry entry = entries.get(compositeKey(cacheName, key));
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() < System.currentTimeMillis()) {
+            entries.remove(compositeKey(cacheName, key), entry);
+            return null;
+        }
+        return entry.value();
+    }
+
+    @Override
+    public boolean put(String cacheName, String key, Object value, Duration ttl) {
+        long now = System.currentTimeMillis();
+        Entry previous = entries.put(compositeKey(cacheName, key), new Entry(value, now + ttl.toMillis()));
+        return previous != null && previous.expiresAt() >= now;
+    }
+
+    @Override
+    public Duration getTimeToLive(String cacheName, String key) {
+        Entry entry = entries.get(compositeKey(cacheName, key));
+        return entry == null ? null : Duration.ofMillis(Math.max(0, entry.expiresAt() - System.currentTimeMillis()));
+    }
+
+    @Override
+    public void evict(String cacheName, String key) {
+        entries.remove(compositeKey(cacheName, key));
+    }
+
+    @Override
+    public void clear(String cacheName) {
+        entries.keySet().removeIf(key -> key.startsWith(cacheName + ":"));
+        tagSets.keySet().removeIf(key -> key.startsWith(cacheName + ":"));
+    }
+
+    @Override
+    public void tagKey(String cacheName, String key, Collection<String> tags, Duration ttl) {
+        for (String tag : tags) {
+            tagSets.computeIfAbsent(compositeKey(cacheName, tag), k -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+    }
+
+    @Override
+    public Set<String> keysWithAllTags(String cacheName, Collection<String> tags) {
+        Set<String> result = null;
+        for (String tag : tags) {
+            Set<String> keys = tagSets.getOrDefault(compositeKey(cacheName, tag), Set.of());
+            if (result == null) {
+                result = new HashSet<>(keys);
+            } else {
+                result.retainAll(keys);
+            }
+        }
+        return result != null ? result : Set.of();
+    }
+
+    @Override
+    public void untagKeys(String cacheName, Collection<String> keys, Collection<String> tags) {
+        for (String tag : tags) {
+            Set<String> tagged = tagSets.get(compositeKey(cacheName, tag));
+            if (tagged != null) {
+                tagged.removeAll(keys);
+            }
+        }
+    }
+
+    @Override
+    public void publish(CacheInvalidation invalidation) {
+        CacheInvalidation received = CacheInvalidation.decode(invalidation.encode());
+        listeners.forEach(listener -> listener.accept(received));
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidation> listener) {
+        listeners.add(listener);
+    }
+
+    private static String compositeKey(String cacheName, String key) {
+        return cacheName + ":" + key;
+    }
+
+    private record Entry(Object value, long expiresAt) {
+    }
+}
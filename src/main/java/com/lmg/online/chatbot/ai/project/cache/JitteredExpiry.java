@@ -0,0 +1,53 @@
+package com.lmg.online.chatbot.ai.project.cache;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Expire-after-write with a random per-entry reduction of up to jitter x ttl.
+ *
+ * Entries written together (a warm-up, a burst after a deploy) would otherwise all expire
+ * in the same instant and send their next readers to the LLM at once. Jitter only ever
+ * shortens the TTL, so the configured value stays the upper bound on staleness.
+ */
+public class JitteredExpiry implements Expiry<Object, Object> {
+
+    private final Duration ttl;
+    private final double jitter;
+
+    /**
+     * @param jitter fraction of the ttl, 0 (fixed TTL) to 1
+     */
+    public JitteredExpiry(Duration ttl, double jitter) {
+        this.ttl = ttl;
+        this.jitter = Math.max(0, Math.min(1, jitter));
+    }
+
+    /**
+     * A time-to-live drawn from [ttl x (1 - jitter), ttl]
+     */
+    public static Duration jittered(Duration ttl, double jitter) {
+        if (jitter <= 0) {
+            return ttl;
+        }
+        double factor = 1 - ThreadLocalRandom.current().nextDouble(Math.min(1, jitter));
+        return Duration.ofNanos((long) (ttl.toNanos() * factor));
+    }
+
+    @Override
+    public long expireAfterCreate(Object key, Object value, long currentTime) {
+        return jittered(ttl, jitter).toNanos();
+    }
+
+    @Override
+    public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+        return jittered(ttl, jitter).toNanos();
+    }
+
+    @Override
+    public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+        return currentDuration;
+    }
+}
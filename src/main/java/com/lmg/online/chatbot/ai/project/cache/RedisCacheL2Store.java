@@ -0,0 +1,187 @@
+package com.lmg.online.chatbot.ai.project.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Redis-backed L2 store. Values are stored as typed JSON under
+ * "{prefix}{cacheName}:{key}" with the cache's TTL; invalidations travel over one
+ * pub/sub channel shared by all nodes. Each tag is a set of cache keys under
+ * "{prefix}{cacheName}:tag:{tag}" that expires with the longest-lived entry added to it.
+ */
+@Slf4j
+public class RedisCacheL2Store implements CacheL2Store, DisposableBean {
+
+    // SADD the key to every tag set, and stretch each set's expiry to the entry's TTL if shorter
+    private static final RedisScript<Long> TAG_KEY = new DefaultRedisScript<>("""
+            for i, tagSet in ipairs(KEYS) do
+              redis.call('SADD', tagSet, ARGV[1])
+              if redis.call('PTTL', tagSet) < tonumber(ARGV[2]) then
+                redis.call('PEXPIRE', tagSet, ARGV[2])
+              end
+            end
+            return #KEYS
+            """, Long.class);
+
+    private final StringRedisSerializer keySerializer = new StringRedisSerializer();
+    private final GenericJackson2JsonRedisSerializer valueSerializer = new GenericJackson2JsonRedisSerializer();
+    private final RedisTemplate<String, Object> template;
+    private final StringRedisTemplate messageTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ChannelTopic channel;
+    private final String keyPrefix;
+
+    public RedisCacheL2Store(RedisConnectionFactory connectionFactory, String keyPrefix, String channel) {
+        this.keyPrefix = keyPrefix;
+        this.channel = new ChannelTopic(channel);
+
+        this.template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(keySerializer);
+        template.setValueSerializer(valueSerializer);
+        template.afterPropertiesSet();
+
+        this.messageTemplate = new StringRedisTemplate(connectionFactory);
+
+        this.listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(connectionFactory);
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+    }
+
+    @Override
+    public Object get(String cacheName, String key) {
+        return template.opsForValue().get(redisKey(cacheName, key));
+    }
+
+    @Override
+    public boolean put(String cacheName, String key, Object value, Duration ttl) {
+        byte[] rawKey = keySerializer.serialize(redisKey(cacheName, key));
+        byte[] rawValue = valueSerializer.serialize(value);
+        // SET ... GET: one round trip that also tells whether a value was replaced, left undecoded
+        byte[] previous = template.execute((RedisCallback<byte[]>) connection -> connection.stringCommands()
+                .setGet(rawKey, rawValue, Expiration.from(ttl), RedisStringCommands.SetOption.upsert()));
+        return previous != null;
+    }
+
+    @Override
+    public Duration getTimeToLive(String cacheName, String key) {
+        Long millis = template.getExpire(redisKey(cacheName, key), TimeUnit.MILLISECONDS);
+        return millis == null || millis < 0 ? null : Duration.ofMillis(millis);
+    }
+
+    @Override
+    public void evict(String cacheName, String key) {
+        template.delete(redisKey(cacheName, key));
+    }
+
+    /**
+     * Deletes the cache's keys in SCAN batches (never KEYS, which blocks the server)
+     */
+    @Override
+    public void clear(String cacheName) {
+        ScanOptions options = ScanOptions.scanOptions()
+                .match(redisKey(cacheName, "*"))
+                .count(500)
+                .build();
+
+        Long deleted = template.execute((RedisCallback<Long>) connection -> {
+            long count = 0;
+            List<byte[]> batch = new ArrayList<>();
+            try (Cursor<byte[]> cursor = connection.keyCommands().scan(options)) {
+                while (cursor.hasNext()) {
+                    batch.add(cursor.next());
+                    if (batch.size() == 500) {
+                        count += connection.keyCommands().del(batch.toArray(new byte[0][]));
+                        batch.clear();
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                count += connection.keyCommands().del(batch.toArray(new byte[0][]));
+            }
+            return count;
+        });
+        log.info("🗑️ Cleared {} Redis entries for cache {}", deleted, cacheName);
+    }
+
+    @Override
+    public void tagKey(String cacheName, String key, Collection<String> tags, Duration ttl) {
+        if (tags.isEmpty()) {
+            return;
+        }
+        messageTemplate.execute(TAG_KEY, tagSetKeys(cacheName, tags), key, String.valueOf(ttl.toMillis()));
+    }
+
+    @Override
+    public Set<String> keysWithAllTags(String cacheName, Collection<String> tags) {
+        if (tags.isEmpty()) {
+            return Set.of();
+        }
+        Set<String> keys = messageTemplate.opsForSet().intersect(tagSetKeys(cacheName, tags));
+        return keys != null ? keys : Set.of();
+    }
+
+    @Override
+    public void untagKeys(String cacheName, Collection<String> keys, Collection<String> tags) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        Object[] members = keys.toArray();
+        for (String tagSet : tagSetKeys(cacheName, tags)) {
+            messageTemplate.opsForSet().remove(tagSet, members);
+        }
+    }
+
+    @Override
+    public void publish(CacheInvalidation invalidation) {
+        messageTemplate.convertAndSend(channel.getTopic(), invalidation.encode());
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidation> listener) {
+        listenerContainer.addMessageListener((message, pattern) -> {
+            try {
+                listener.accept(CacheInvalidation.decode(new String(message.getBody(), StandardCharsets.UTF_8)));
+            } catch (Exception e) {
+                log.warn("⚠️ Ignoring cache invalidation message: {}", e.getMessage());
+            }
+        }, channel);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        listenerContainer.destroy();
+    }
+
+    private String redisKey(String cacheName, String key) {
+        return keyPrefix + cacheName + ":" + key;
+    }
+
+    private List<String> tagSetKeys(String cacheName, Collection<String> tags) {
+        return tags.stream().map(tag -> redisKey(cacheName, "tag:" + tag)).toList();
+    }
+}
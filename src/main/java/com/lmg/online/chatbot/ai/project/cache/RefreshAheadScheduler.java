@@ -0,0 +1,103 @@
+package com.lmg.online.chatbot.ai.project.cache;
+
+import com.lmg.online.chatbot.ai.project.config.CacheSpecProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Refresh-ahead for caches whose spec sets refresh-ahead: a hit on an entry with less than
+ * that much time to live schedules one background reload, so hot entries are replaced
+ * before they expire while cold ones simply age out.
+ *
+ * Reloads run on the small cacheRefreshExecutor; when it is busy the refresh is dropped
+ * (the entry is still served until it expires) rather than queued behind live traffic.
+ */
+@Slf4j
+@Component
+public class RefreshAheadScheduler {
+
+    private final TaskExecutor refreshExecutor;
+    private final CacheSpecProperties cacheSpecs;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder scheduled = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public RefreshAheadScheduler(@Qualifier("cacheRefreshExecutor") TaskExecutor refreshExecutor,
+                                 CacheSpecProperties cacheSpecs) {
+        this.refreshExecutor = refreshExecutor;
+        this.cacheSpecs = cacheSpecs;
+    }
+
+    /**
+     * Schedules reload for a key that was just hit, if it is inside its cache's refresh
+     * window and not already being refreshed. The reload is expected to put the new value.
+     */
+    public void refreshIfDue(Cache cache, Object key, Runnable reload) {
+        Duration window = cacheSpecs.specFor(cache.getName()).getRefreshAhead();
+        if (window == null || window.isZero()) {
+            return;
+        }
+        Optional<Duration> remaining = remainingTtl(cache, key);
+        if (remaining.isEmpty() || remaining.get().compareTo(window) > 0) {
+            return;
+        }
+
+        String pendingKey = cache.getName() + ":" + key;
+        if (!pending.add(pendingKey)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    reload.run();
+                    completed.increment();
+                } catch (Exception e) {
+                    failed.increment();
+                    log.warn("⚠️ Refresh-ahead failed for {}: {}", pendingKey, e.getMessage());
+                } finally {
+                    pending.remove(pendingKey);
+                }
+            });
+            scheduled.increment();
+            log.debug("🔄 Refresh-ahead scheduled for {} ({} left)", pendingKey, remaining.get());
+        } catch (TaskRejectedException e) {
+            pending.remove(pendingKey);
+            dropped.increment();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("scheduled", scheduled.sum());
+        stats.put("completed", completed.sum());
+        stats.put("failed", failed.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("inProgress", pending.size());
+        return stats;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Optional<Duration> remainingTtl(Cache cache, Object key) {
+        if (!(cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache)) {
+            return Optional.empty();
+        }
+        var caffeine = (com.github.benmanes.caffeine.cache.Cache<Object, Object>) nativeCache;
+        return caffeine.policy().expireVariably()
+                .flatMap(expiration -> expiration.getExpiresAfter(key));
+    }
+}
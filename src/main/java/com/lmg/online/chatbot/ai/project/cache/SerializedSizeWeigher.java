@@ -0,0 +1,68 @@
+package com.lmg.online.chatbot.ai.project.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Weigher;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Weighs cache entries by their JSON-serialised size in bytes (key plus value).
+ *
+ * Caffeine only calls the weigher on writes, which here follow an LLM or upstream call,
+ * so the serialisation cost is negligible next to what the entry saves.
+ */
+@Slf4j
+public class SerializedSizeWeigher implements Weigher<Object, Object> {
+
+    private static final int UNKNOWN_WEIGHT = 1024;
+
+    private final ObjectMapper objectMapper;
+
+    public SerializedSizeWeigher(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public int weigh(Object key, Object value) {
+        return (int) Math.min(Integer.MAX_VALUE, sizeOf(key) + sizeOf(value));
+    }
+
+    /**
+     * Bytes held by a cache: exact weighted size for byte-bounded caches, otherwise the
+     * mean of up to sampleSize entries scaled to the entry count
+     */
+    public long estimateBytes(Cache<Object, Object> cache, int sampleSize) {
+        var eviction = cache.policy().eviction();
+        if (eviction.isPresent() && eviction.get().isWeighted()) {
+            return eviction.get().weightedSize().orElse(0L);
+        }
+
+        long sampled = 0;
+        long bytes = 0;
+        Iterator<Map.Entry<Object, Object>> entries = cache.asMap().entrySet().iterator();
+        while (entries.hasNext() && sampled < sampleSize) {
+            Map.Entry<Object, Object> entry = entries.next();
+            bytes += weigh(entry.getKey(), entry.getValue());
+            sampled++;
+        }
+        return sampled == 0 ? 0 : bytes * cache.estimatedSize() / sampled;
+    }
+
+    private long sizeOf(Object object) {
+        if (object == null) {
+            return 0;
+        }
+        if (object instanceof String text) {
+            return text.length();
+        }
+        try {
+            return objectMapper.writeValueAsBytes(object).length;
+        } catch (Exception e) {
+            log.debug("Could not serialise {} for weighing: {}", object.getClass().getSimpleName(), e.getMessage());
+            return UNKNOWN_WEIGHT;
+        }
+    }
+}
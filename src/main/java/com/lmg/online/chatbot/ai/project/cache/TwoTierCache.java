@@ -0,0 +1,228 @@
+package com.lmg.online.chatbot.ai.project.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Caffeine near-cache (L1) in front of a shared L2 store.
+ *
+ * Reads go L1, then L2 (promoting the value into L1). Writes and evictions go to both
+ * tiers, and a write draws its (jittered) TTL once so both tiers expire the entry together.
+ * Evictions, and writes that replace an entry already in L2, publish an invalidation so
+ * other nodes drop their L1 copy and re-read L2 on next access. A first write publishes
+ * nothing: no node can hold a copy of a key L2 did not have.
+ *
+ * L2 failures are logged and treated as misses, so a Redis outage degrades to node-local
+ * caching instead of failing requests.
+ *
+ * Extends CaffeineCache so the existing stats and size reporting keep working on L1.
+ */
+@Slf4j
+public class TwoTierCache extends CaffeineCache {
+
+    private final CacheL2Store l2;
+    private final Supplier<Duration> ttl;
+    private final String nodeId;
+
+    private final LongAdder l1Hits = new LongAdder();
+    private final LongAdder l2Hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder l2Errors = new LongAdder();
+
+    public TwoTierCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> l1,
+                        CacheL2Store l2, Supplier<Duration> ttl, String nodeId) {
+        super(name, l1, false);
+        this.l2 = l2;
+        this.ttl = ttl;
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Object local = super.lookup(key);
+        if (local != null) {
+            l1Hits.increment();
+            return local;
+        }
+
+        Object remote = readL2(key);
+        if (remote != null) {
+            l2Hits.increment();
+            promote(key, remote);
+            return remote;
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Typed read; an L2 value of another type (e.g. written by an older build) is a miss
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        Object value = lookup(key);
+        if (value == null || (type != null && !type.isInstance(value))) {
+            return null;
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper existing = get(key);
+        if (existing != null) {
+            return (T) existing.get();
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, value);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        put(key, value, ttl.get());
+    }
+
+    /**
+     * Write with a TTL of its own in both tiers instead of the cache's
+     */
+    public void put(Object key, Object value, Duration entryTtl) {
+        if (value == null) {
+            return;
+        }
+        var expiration = getNativeCache().policy().expireVariably();
+        if (expiration.isPresent()) {
+            expiration.get().put(key, value, entryTtl);
+        } else {
+            super.put(key, value);
+        }
+        writeL2(key, value, entryTtl);
+    }
+
+    private void writeL2(Object key, Object value, Duration entryTtl) {
+        try {
+            if (l2.put(getName(), String.valueOf(key), value, entryTtl)) {
+                l2.publish(new CacheL2Store.CacheInvalidation(nodeId, getName(), String.valueOf(key)));
+            }
+        } catch (Exception e) {
+            recordError("put", e);
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = get(key);
+        if (existing == null) {
+            put(key, value);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        evictIfPresent(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean present = super.evictIfPresent(key);
+        try {
+            l2.evict(getName(), String.valueOf(key));
+            l2.publish(new CacheL2Store.CacheInvalidation(nodeId, getName(), String.valueOf(key)));
+        } catch (Exception e) {
+            recordError("evict", e);
+        }
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        try {
+            l2.clear(getName());
+            l2.publish(new CacheL2Store.CacheInvalidation(nodeId, getName(), null));
+        } catch (Exception e) {
+            recordError("clear", e);
+        }
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean notEmpty = getNativeCache().estimatedSize() > 0;
+        clear();
+        return notEmpty;
+    }
+
+    /**
+     * Applies another node's change to this node's L1 only
+     */
+    void onInvalidation(CacheL2Store.CacheInvalidation invalidation) {
+        if (nodeId.equals(invalidation.origin()) || invalidation.isTagInvalidation()) {
+            return;
+        }
+        if (invalidation.key() == null) {
+            super.clear();
+        } else {
+            super.evict(invalidation.key());
+        }
+    }
+
+    public Map<String, Object> getTierStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("l1Hits", l1Hits.sum());
+        stats.put("l2Hits", l2Hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("l2Errors", l2Errors.sum());
+        stats.put("l1Size", getNativeCache().estimatedSize());
+        return stats;
+    }
+
+    /**
+     * Copies an L2 value into L1 for no longer than it has left in L2, so entries written
+     * with a short TTL of their own do not get the cache's full TTL on other nodes
+     */
+    private void promote(Object key, Object value) {
+        Duration remaining = null;
+        try {
+            remaining = l2.getTimeToLive(getName(), String.valueOf(key));
+        } catch (Exception e) {
+            recordError("ttl", e);
+        }
+        var expiration = getNativeCache().policy().expireVariably();
+        if (remaining != null && expiration.isPresent()) {
+            if (!remaining.isZero()) {
+                expiration.get().put(key, value, remaining);
+            }
+        } else {
+            super.put(key, value);
+        }
+    }
+
+    private Object readL2(Object key) {
+        try {
+            return l2.get(getName(), String.valueOf(key));
+        } catch (Exception e) {
+            recordError("get", e);
+            return null;
+        }
+    }
+
+    private void recordError(String operation, Exception e) {
+        l2Errors.increment();
+        log.warn("⚠️ L2 cache {} failed for {}: {}", operation, getName(), e.getMessage());
+    }
+}
@@ -0,0 +1,77 @@
+package com.lmg.online.chatbot.ai.project.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * CacheManager layering every Caffeine cache of a CaffeineCacheManager (L1, sizes and
+ * TTLs as configured there) over a shared CacheL2Store, and applying invalidations
+ * published by other nodes to the local L1.
+ */
+@Slf4j
+public class TwoTierCacheManager implements CacheManager {
+
+    private final CaffeineCacheManager l1Manager;
+    private final CacheL2Store l2;
+    private final Function<String, Duration> ttlByCache;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    /**
+     * @param ttlByCache L2 time-to-live per cache name, evaluated on every write
+     */
+    public TwoTierCacheManager(CaffeineCacheManager l1Manager, CacheL2Store l2,
+                               Function<String, Duration> ttlByCache) {
+        this.l1Manager = l1Manager;
+        this.l2 = l2;
+        this.ttlByCache = ttlByCache;
+        l2.subscribe(this::onInvalidation);
+        log.info("✅ Two-tier cache manager started (node {})", nodeId);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TwoTierCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache local = l1Manager.getCache(name);
+        if (!(local instanceof CaffeineCache caffeineCache)) {
+            return local;
+        }
+        return caches.computeIfAbsent(name, key -> new TwoTierCache(
+                key, caffeineCache.getNativeCache(), l2, () -> ttlByCache.apply(key), nodeId));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return l1Manager.getCacheNames();
+    }
+
+    public Map<String, Object> getTierStats() {
+        Map<String, Object> stats = new TreeMap<>();
+        getCacheNames().forEach(name -> {
+            if (getCache(name) instanceof TwoTierCache cache) {
+                stats.put(name, cache.getTierStats());
+            }
+        });
+        return stats;
+    }
+
+    private void onInvalidation(CacheL2Store.CacheInvalidation invalidation) {
+        if (getCache(invalidation.cacheName()) instanceof TwoTierCache cache) {
+            cache.onInvalidation(invalidation);
+        }
+    }
+}
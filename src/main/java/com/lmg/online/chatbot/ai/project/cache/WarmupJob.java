@@ -0,0 +1,115 @@
+package com.lmg.online.chatbot.ai.project.cache;
+
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress of one cache warm-up run
+ */
+public class WarmupJob {
+
+    public enum Status { RUNNING, COMPLETED, CANCELLED }
+
+    private final String id;
+    private final String source;
+    private final int total;
+    private final Instant startedAt = Instant.now();
+    private final AtomicInteger succeeded = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final CountDownLatch done;
+    private volatile boolean cancelled;
+    private volatile Instant finishedAt;
+
+    public WarmupJob(String id, String source, int total) {
+        this.id = id;
+        this.source = source;
+        this.total = total;
+        this.done = new CountDownLatch(total);
+        if (total == 0) {
+            finishedAt = startedAt;
+        }
+    }
+
+    void recordSuccess() {
+        succeeded.incrementAndGet();
+        countDown();
+    }
+
+    void recordFailure() {
+        failed.incrementAndGet();
+        countDown();
+    }
+
+    void recordSkipped() {
+        skipped.incrementAndGet();
+        countDown();
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return true if the job finished within the timeout
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return done.await(timeout, unit);
+    }
+
+    private void countDown() {
+        done.countDown();
+        if (done.getCount() == 0) {
+            finishedAt = Instant.now();
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public Status getStatus() {
+        if (finishedAt == null) {
+            return Status.RUNNING;
+        }
+        return cancelled ? Status.CANCELLED : Status.COMPLETED;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getSucceeded() {
+        return succeeded.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+    public int getSkipped() {
+        return skipped.get();
+    }
+
+    public double getProgress() {
+        return total == 0 ? 1.0 : (double) (succeeded.get() + failed.get() + skipped.get()) / total;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+}
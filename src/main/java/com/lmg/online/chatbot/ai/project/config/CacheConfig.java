@@ -1,6 +1,18 @@
 package com.lmg.online.chatbot.ai.project.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lmg.online.chatbot.ai.project.cache.CacheL2Store;
+import com.lmg.online.chatbot.ai.project.cache.CacheTagIndex;
+import com.lmg.online.chatbot.ai.project.cache.JitteredExpiry;
+import com.lmg.online.chatbot.ai.project.cache.RedisCacheL2Store;
+import com.lmg.online.chatbot.ai.project.cache.SerializedSizeWeigher;
+import com.lmg.online.chatbot.ai.project.cache.TwoTierCacheManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
@@ -8,33 +20,97 @@ import org.springframework.cache.interceptor.KeyGenerator;
 import org.springframework.cache.interceptor.SimpleKeyGenerator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.util.DigestUtils;
 
-import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Cache Configuration for Chatbot Responses
+ *
+ * With chatbot.cache.redis.enabled=true every Caffeine cache becomes the near-cache (L1)
+ * of a shared Redis L2, and evictions/clears reach all nodes over Redis pub/sub.
+ *
+ * Limits and TTLs come per cache from chatbot.cache.specs (see CacheSpecProperties).
+ * Entries leaving a Caffeine cache (expired, evicted or removed) are dropped from the
+ * CacheTagIndex as they go.
  */
+@Slf4j
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties(CacheSpecProperties.class)
 public class CacheConfig {
 
+    private static final List<String> CACHE_NAMES = List.of(
+            "chatbotResponses",
+            "userContext",
+            "intentClassifications"
+    );
+
     @Bean
-    public CacheManager cacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager(
-                "chatbotResponses",
-                "intentClassifications",
-                "userContext"
-        );
-        cacheManager.setCaffeine(caffeineCacheBuilder());
+    public CacheManager cacheManager(CacheSpecProperties cacheSpecs,
+                                     SerializedSizeWeigher weigher,
+                                     CacheTagIndex tagIndex,
+                                     ObjectProvider<CacheL2Store> l2Store) {
+        CaffeineCacheManager caffeineCacheManager = caffeineCacheManager(cacheSpecs, weigher, tagIndex);
+        CacheL2Store l2 = l2Store.getIfAvailable();
+        if (l2 == null) {
+            return caffeineCacheManager;
+        }
+        return new TwoTierCacheManager(caffeineCacheManager, l2, cacheName -> {
+            CacheSpecProperties.Spec spec = cacheSpecs.specFor(cacheName);
+            return JitteredExpiry.jittered(spec.getTtl(), spec.getTtlJitter());
+        });
+    }
+
+    @Bean
+    public SerializedSizeWeigher serializedSizeWeigher(ObjectMapper objectMapper) {
+        return new SerializedSizeWeigher(objectMapper);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "chatbot.cache.redis.enabled", havingValue = "true")
+    public RedisCacheL2Store redisCacheL2Store(
+            RedisConnectionFactory connectionFactory,
+            @Value("${chatbot.cache.redis.key-prefix:chatbot:cache:}") String keyPrefix,
+            @Value("${chatbot.cache.redis.channel:chatbot:cache:invalidation}") String channel) {
+        return new RedisCacheL2Store(connectionFactory, keyPrefix, channel);
+    }
+
+    private CaffeineCacheManager caffeineCacheManager(CacheSpecProperties cacheSpecs, SerializedSizeWeigher weigher,
+                                                      CacheTagIndex tagIndex) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // Only the registered caches exist; no dynamic creation on unknown names
+        cacheManager.setCacheNames(List.of());
+        Set<String> names = new LinkedHashSet<>(CACHE_NAMES);
+        names.addAll(cacheSpecs.getSpecs().keySet());
+        names.forEach(name -> {
+            CacheSpecProperties.Spec spec = cacheSpecs.specFor(name);
+            // Removal notifications run on the removing thread, so an entry evicted and then
+            // written again is never untagged after its new tags are recorded
+            cacheManager.registerCustomCache(name, caffeineCacheBuilder(spec, weigher)
+                    .executor(Runnable::run)
+                    .removalListener(tagIndex.removalListener(name))
+                    .build());
+            log.info("✅ Cache {}: {}, ttl {} (jitter {}), refresh-ahead {}", name,
+                    spec.isWeighted() ? "max " + spec.getMaxBytes() : "max " + spec.getMaxEntries() + " entries",
+                    spec.getTtl(), spec.getTtlJitter(), spec.getRefreshAhead() != null ? spec.getRefreshAhead() : "off");
+        });
         return cacheManager;
     }
 
-    private com.github.benmanes.caffeine.cache.Caffeine<Object, Object> caffeineCacheBuilder() {
-        return com.github.benmanes.caffeine.cache.Caffeine.newBuilder()
-                .maximumSize(1000)
-                .expireAfterWrite(Duration.ofHours(1))
-                .recordStats();
+    private com.github.benmanes.caffeine.cache.Caffeine<Object, Object> caffeineCacheBuilder(
+            CacheSpecProperties.Spec spec, SerializedSizeWeigher weigher) {
+        com.github.benmanes.caffeine.cache.Caffeine<Object, Object> builder =
+                com.github.benmanes.caffeine.cache.Caffeine.newBuilder()
+                        .expireAfter(new JitteredExpiry(spec.getTtl(), spec.getTtlJitter()))
+                        .recordStats();
+        if (spec.isWeighted()) {
+            return builder.maximumWeight(spec.getMaxBytes().toBytes()).weigher(weigher);
+        }
+        return builder.maximumSize(spec.getMaxEntries());
     }
 
     @Bean
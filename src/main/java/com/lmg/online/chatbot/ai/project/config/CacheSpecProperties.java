@@ -0,0 +1,64 @@
+package com.lmg.online.chatbot.ai.project.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-cache Caffeine limits, bound from chatbot.cache.specs.{cacheName}.*
+ *
+ * A cache with max-bytes is evicted by the serialised size of its entries; otherwise by
+ * max-entries (Caffeine allows only one of the two bounds per cache).
+ *
+ * Each entry lives for ttl shortened by a random fraction of up to ttl-jitter, so entries
+ * written together do not expire together. With refresh-ahead set, a hit on an entry that
+ * has less than that left to live reloads it in the background (see RefreshAheadScheduler).
+ */
+@Data
+@ConfigurationProperties(prefix = "chatbot.cache")
+public class CacheSpecProperties {
+
+    private Map<String, Spec> specs = defaultSpecs();
+
+    public Spec specFor(String cacheName) {
+        return specs.getOrDefault(cacheName, new Spec());
+    }
+
+    private static Map<String, Spec> defaultSpecs() {
+        Map<String, Spec> specs = new LinkedHashMap<>();
+        // Responses vary from a one-line answer to a dozen orders - budget by bytes
+        Spec responses = new Spec(null, DataSize.ofMegabytes(64), Duration.ofHours(1));
+        responses.setRefreshAhead(Duration.ofMinutes(10));
+        specs.put("chatbotResponses", responses);
+        // Intent entries are tiny and keyed on canonicalised queries - keep more, for longer
+        specs.put("intentClassifications", new Spec(10_000L, null, Duration.ofHours(6)));
+        specs.put("userContext", new Spec(1_000L, null, Duration.ofHours(1)));
+        return specs;
+    }
+
+    @Data
+    public static class Spec {
+        private Long maxEntries = 1_000L;
+        private DataSize maxBytes;
+        private Duration ttl = Duration.ofHours(1);
+        private double ttlJitter = 0.1;
+        private Duration refreshAhead;
+
+        public Spec() {
+        }
+
+        public Spec(Long maxEntries, DataSize maxBytes, Duration ttl) {
+            this.maxEntries = maxEntries;
+            this.maxBytes = maxBytes;
+            this.ttl = ttl;
+        }
+
+        public boolean isWeighted() {
+            return maxBytes != null;
+        }
+    }
+}
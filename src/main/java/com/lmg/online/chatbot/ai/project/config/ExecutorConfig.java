@@ -0,0 +1,99 @@
+package com.lmg.online.chatbot.ai.project.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Thread pools for work fanned out from the request thread
+ */
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Runs the handlers of a compound query concurrently. Calls are I/O bound (LLM and
+     * commerce APIs), so the pool is sized well above the core count. When it is saturated a
+     * branch is rejected and answered as a failed part; running it on the request thread
+     * would serialise the branches exactly when the service is busiest.
+     */
+    @Bean(name = "intentFanOutExecutor")
+    public ThreadPoolTaskExecutor intentFanOutExecutor(
+            @Value("${chatbot.fanout.pool-size:16}") int poolSize,
+            @Value("${chatbot.fanout.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("intent-fanout-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    /**
+     * Runs micro-batched intent classification calls, so a new batching window can open
+     * while earlier batches are still waiting on the model
+     */
+    @Bean(name = "intentBatchExecutor")
+    public ThreadPoolTaskExecutor intentBatchExecutor(
+            @Value("${chatbot.intent.batch.pool-size:8}") int poolSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("intent-batch-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    /**
+     * Runs cache warm-up queries; the pool size is the warm-up parallelism and queued
+     * queries wait their turn
+     */
+    @Bean(name = "cacheWarmupExecutor")
+    public ThreadPoolTaskExecutor cacheWarmupExecutor(
+            @Value("${chatbot.cache.warmup.parallelism:4}") int parallelism) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setThreadNamePrefix("cache-warmup-");
+        return executor;
+    }
+
+    /**
+     * Runs the upstream balance calls of a batch gift card lookup. The pool size bounds how
+     * many enquiries hit the commerce API at once across all requests; when it and its queue
+     * are full, further enquiries are rejected and those cards get an error entry.
+     */
+    @Bean(name = "giftCardExecutor")
+    public ThreadPoolTaskExecutor giftCardExecutor(
+            @Value("${chatbot.giftcard.batch.parallelism:8}") int parallelism) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("giftcard-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    /**
+     * Runs refresh-ahead reloads of hot cache entries. Deliberately small with a short queue:
+     * when full, submissions are rejected and the refresh is skipped, so reloads never
+     * compete with live requests for LLM capacity.
+     */
+    @Bean(name = "cacheRefreshExecutor")
+    public ThreadPoolTaskExecutor cacheRefreshExecutor(
+            @Value("${chatbot.cache.refresh.pool-size:2}") int poolSize,
+            @Value("${chatbot.cache.refresh.queue-capacity:50}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("cache-refresh-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+}
@@ -0,0 +1,12 @@
+package com.lmg.online.chatbot.ai.project.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs (intent model retraining)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
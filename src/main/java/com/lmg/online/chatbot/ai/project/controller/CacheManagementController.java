@@ -1,6 +1,16 @@
 package com.lmg.online.chatbot.ai.project.controller;
 
 import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.lmg.online.chatbot.ai.auth.AuthenticationServiceUtil;
+import com.lmg.online.chatbot.ai.project.cache.CacheSnapshotService;
+import com.lmg.online.chatbot.ai.project.cache.CacheTagIndex;
+import com.lmg.online.chatbot.ai.project.cache.CacheWarmupService;
+import com.lmg.online.chatbot.ai.project.cache.RefreshAheadScheduler;
+import com.lmg.online.chatbot.ai.project.cache.SerializedSizeWeigher;
+import com.lmg.online.chatbot.ai.project.cache.TwoTierCacheManager;
+import com.lmg.online.chatbot.ai.project.cache.WarmupJob;
+import com.lmg.online.chatbot.ai.project.doc.vector.SemanticResponseCache;
+import com.lmg.online.chatbot.ai.project.intent.ChatbotService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.Cache;
@@ -23,10 +33,35 @@ import java.util.Map;
 public class CacheManagementController {
 
     private final CacheManager cacheManager;
+    private final SemanticResponseCache semanticResponseCache;
+    private final ChatbotService chatbotService;
+    private final AuthenticationServiceUtil authenticationServiceUtil;
+    private final SerializedSizeWeigher serializedSizeWeigher;
+    private final CacheWarmupService cacheWarmupService;
+    private final RefreshAheadScheduler refreshAheadScheduler;
+    private final CacheSnapshotService cacheSnapshotService;
+    private final CacheTagIndex cacheTagIndex;
 
     @Autowired
-    public CacheManagementController(CacheManager cacheManager) {
+    public CacheManagementController(
+            CacheManager cacheManager,
+            SemanticResponseCache semanticResponseCache,
+            ChatbotService chatbotService,
+            AuthenticationServiceUtil authenticationServiceUtil,
+            SerializedSizeWeigher serializedSizeWeigher,
+            CacheWarmupService cacheWarmupService,
+            RefreshAheadScheduler refreshAheadScheduler,
+            CacheSnapshotService cacheSnapshotService,
+            CacheTagIndex cacheTagIndex) {
         this.cacheManager = cacheManager;
+        this.semanticResponseCache = semanticResponseCache;
+        this.chatbotService = chatbotService;
+        this.authenticationServiceUtil = authenticationServiceUtil;
+        this.serializedSizeWeigher = serializedSizeWeigher;
+        this.cacheWarmupService = cacheWarmupService;
+        this.refreshAheadScheduler = refreshAheadScheduler;
+        this.cacheSnapshotService = cacheSnapshotService;
+        this.cacheTagIndex = cacheTagIndex;
     }
 
     /**
@@ -60,9 +95,11 @@ public class CacheManagementController {
             Cache cache = cacheManager.getCache(cacheName);
             if (cache != null) {
                 cache.clear();
+                cacheTagIndex.clear(cacheName);
                 log.info("Cleared cache: {}", cacheName);
             }
         });
+        semanticResponseCache.clear();
 
         return ResponseEntity.ok(Map.of(
                 "message", "All caches cleared successfully",
@@ -70,6 +107,37 @@ public class CacheManagementController {
         ));
     }
 
+    /**
+     * Semantic answer cache hit rate and similarity distribution of hits
+     */
+    @GetMapping("/semantic")
+    public ResponseEntity<Map<String, Object>> getSemanticCacheStats() {
+        return ResponseEntity.ok(semanticResponseCache.getStats());
+    }
+
+    /**
+     * Requests coalesced onto an identical in-flight cache miss or upstream GET
+     */
+    @GetMapping("/coalescing")
+    public ResponseEntity<Map<String, Object>> getCoalescingStats() {
+        return ResponseEntity.ok(Map.of(
+                "responses", chatbotService.getCoalescingStats(),
+                "upstreamGets", authenticationServiceUtil.getCoalescingStats()
+        ));
+    }
+
+    /**
+     * Drop a concept's semantic cache entries
+     */
+    @DeleteMapping("/semantic/{concept}")
+    public ResponseEntity<Map<String, String>> clearSemanticCache(@PathVariable String concept) {
+        semanticResponseCache.invalidateConcept(concept);
+        return ResponseEntity.ok(Map.of(
+                "message", "Semantic cache cleared for " + concept.toUpperCase(),
+                "timestamp", Instant.now().toString()
+        ));
+    }
+
     /**
      * Clear specific cache
      */
@@ -78,6 +146,7 @@ public class CacheManagementController {
         Cache cache = cacheManager.getCache(cacheName);
         if (cache != null) {
             cache.clear();
+            cacheTagIndex.clear(cacheName);
             log.info("Cleared cache: {}", cacheName);
             return ResponseEntity.ok(Map.of(
                     "message", "Cache cleared: " + cacheName,
@@ -118,6 +187,7 @@ public class CacheManagementController {
         Cache cache = cacheManager.getCache(cacheName);
         if (cache != null) {
             cache.evict(key);
+            cacheTagIndex.untag(cacheName, key);
             log.info("Evicted key '{}' from cache: {}", key, cacheName);
             return ResponseEntity.ok(Map.of(
                     "message", "Cache entry evicted",
@@ -140,34 +210,118 @@ public class CacheManagementController {
         info.put("timestamp", Instant.now().toString());
 
         Map<String, Long> cacheSizes = new HashMap<>();
+        Map<String, Long> cacheBytes = new HashMap<>();
         cacheManager.getCacheNames().forEach(cacheName -> {
             Cache cache = cacheManager.getCache(cacheName);
             if (cache instanceof CaffeineCache) {
                 CaffeineCache caffeineCache = (CaffeineCache) cache;
                 long size = caffeineCache.getNativeCache().estimatedSize();
                 cacheSizes.put(cacheName, size);
+                // Exact for byte-bounded caches, sampled for entry-bounded ones
+                cacheBytes.put(cacheName, serializedSizeWeigher.estimateBytes(caffeineCache.getNativeCache(), 200));
             }
         });
         info.put("cacheSizes", cacheSizes);
+        info.put("estimatedBytes", cacheBytes);
+        if (cacheManager instanceof TwoTierCacheManager twoTierCacheManager) {
+            info.put("tiers", twoTierCacheManager.getTierStats());
+        }
+        info.put("refreshAhead", refreshAheadScheduler.getStats());
+        info.put("tags", cacheTagIndex.getStats());
 
         return ResponseEntity.ok(info);
     }
 
     /**
-     * Warm up cache with common queries
+     * Evict every entry carrying all of the given tags (repeat tag, e.g. concept:MAX and intent:POLICY_QUESTION)
      */
-    @PostMapping("/warmup")
-    public ResponseEntity<Map<String, String>> warmupCache(
-            @RequestBody List<String> commonQueries
+    @DeleteMapping("/tags")
+    public ResponseEntity<Map<String, Object>> evictByTags(
+            @RequestParam List<String> tag,
+            @RequestParam(defaultValue = "chatbotResponses") String cacheName
     ) {
-        log.info("Starting cache warmup with {} queries", commonQueries.size());
-
-        // This would call your chatbot service to pre-populate cache
-        // Implementation depends on your service structure
+        int evicted = cacheTagIndex.evict(cacheName, tag);
+        return ResponseEntity.ok(Map.of(
+                "message", "Tagged cache entries evicted",
+                "cache", cacheName,
+                "tags", tag,
+                "evicted", evicted,
+                "timestamp", Instant.now().toString()
+        ));
+    }
 
+    /**
+     * Evict one user's cached responses (order, profile), leaving shared answers in place
+     */
+    @DeleteMapping("/users/{userId}")
+    public ResponseEntity<Map<String, String>> evictUserEntries(@PathVariable String userId) {
+        chatbotService.invalidateUserCache(userId);
         return ResponseEntity.ok(Map.of(
-                "message", "Cache warmup initiated",
-                "queryCount", String.valueOf(commonQueries.size())
+                "message", "Cached responses evicted for user " + userId,
+                "timestamp", Instant.now().toString()
         ));
     }
+
+    /**
+     * Snapshot settings and the outcome of the last snapshot and restore
+     */
+    @GetMapping("/snapshot")
+    public ResponseEntity<Map<String, Object>> snapshotStats() {
+        return ResponseEntity.ok(cacheSnapshotService.getStats());
+    }
+
+    /**
+     * Write a cache snapshot now (e.g. just before a planned restart)
+     */
+    @PostMapping("/snapshot")
+    public ResponseEntity<Map<String, Object>> snapshot() {
+        return ResponseEntity.ok(cacheSnapshotService.snapshot());
+    }
+
+    /**
+     * Warm up caches in the background: the given queries, or the most frequent analytics
+     * prompts when the body is empty, for each requested concept/env
+     */
+    @PostMapping("/warmup")
+    public ResponseEntity<WarmupJob> warmupCache(
+            @RequestBody(required = false) List<String> commonQueries,
+            @RequestParam(required = false) List<String> concepts,
+            @RequestParam(required = false) List<String> envs,
+            @RequestParam(required = false) Integer topN
+    ) {
+        log.info("Starting cache warmup with {} queries",
+                commonQueries == null || commonQueries.isEmpty() ? "analytics-seeded" : commonQueries.size());
+        WarmupJob job = cacheWarmupService.start(commonQueries, concepts, envs, topN);
+        return ResponseEntity.accepted().body(job);
+    }
+
+    /**
+     * Recent warm-up jobs, newest first
+     */
+    @GetMapping("/warmup")
+    public ResponseEntity<List<WarmupJob>> warmupJobs() {
+        return ResponseEntity.ok(cacheWarmupService.getJobs());
+    }
+
+    /**
+     * Progress of one warm-up job
+     */
+    @GetMapping("/warmup/{jobId}")
+    public ResponseEntity<WarmupJob> warmupJob(@PathVariable String jobId) {
+        WarmupJob job = cacheWarmupService.getJob(jobId);
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Stop a warm-up job; queries not yet started are skipped
+     */
+    @DeleteMapping("/warmup/{jobId}")
+    public ResponseEntity<WarmupJob> cancelWarmupJob(@PathVariable String jobId) {
+        WarmupJob job = cacheWarmupService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        job.cancel();
+        return ResponseEntity.ok(job);
+    }
 }
@@ -2,16 +2,35 @@ package com.lmg.online.chatbot.ai.project.controller;
 
 import com.lmg.online.chatbot.ai.analytics.ChatbotResponse;
 
+import com.lmg.online.chatbot.ai.project.handler.giftcard.GiftCardBalanceIntentHandler;
 import com.lmg.online.chatbot.ai.project.intent.ChatbotService;
+import com.lmg.online.chatbot.ai.project.intent.ClassifyAndAnswerService;
+import com.lmg.online.chatbot.ai.project.intent.EmbeddingIntentIndex;
+import com.lmg.online.chatbot.ai.project.intent.IntentClassifier;
+import com.lmg.online.chatbot.ai.project.intent.IntentMatch;
 import com.lmg.online.chatbot.ai.project.intent.IntentRouterService;
+import com.lmg.online.chatbot.ai.project.intent.IntentRoutingStats;
+import com.lmg.online.chatbot.ai.project.intent.NgramIntentIndex;
+import com.lmg.online.chatbot.ai.project.intent.SessionIntentStore;
+import com.lmg.online.chatbot.ai.project.intent.SpellingCorrector;
+import com.lmg.online.chatbot.ai.request.BatchClassifyRequest;
 import com.lmg.online.chatbot.ai.request.ChatRequest;
+import com.lmg.online.chatbot.ai.tools.giftcard.GiftCardBatchService;
+import com.lmg.online.chatbot.ai.tools.giftcard.dto.GiftCardBalanceRequest;
+import com.lmg.online.chatbot.ai.tools.storelocator.StoreCatalogService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * REST Controller for chatbot interactions
@@ -25,17 +44,26 @@ public class ChatbotController {
 
     private final IntentRouterService intentRouterService;
     private final ChatbotService chatbotService;
+    private final IntentRoutingStats intentRoutingStats;
+    private final EmbeddingIntentIndex embeddingIntentIndex;
+    private final ClassifyAndAnswerService classifyAndAnswerService;
+    private final NgramIntentIndex ngramIntentIndex;
+    private final SpellingCorrector spellingCorrector;
+    private final SessionIntentStore sessionIntentStore;
+    private final IntentClassifier intentClassifier;
+    private final ApplicationAvailability applicationAvailability;
+    private final StoreCatalogService storeCatalogService;
+    private final GiftCardBalanceIntentHandler giftCardBalanceIntentHandler;
+    private final GiftCardBatchService giftCardBatchService;
+
+    @Value("${chatbot.intent.batch.endpoint-max:100}")
+    private int batchEndpointMax;
 
     /**
      * Main endpoint for handling chat requests
      */
     @PostMapping("/chat")
     public ResponseEntity<ChatbotResponse<?>> handleChat(@RequestBody ChatRequest request) {
-        String query="";
-        if (StringUtils.isNotEmpty(request.getPreviousResponse())){
-            query+=request.getPreviousResponse();
-        }
-        query+=request.getMessage();
         log.info("📨 Received chat request from user: {} {}", request.getUserId(),request.getAppid());
         ChatbotResponse<?> response = chatbotService.handleUserQuery(request);
         log.info("✅ Sent response with intent: {}, time: {}ms",
@@ -47,14 +75,18 @@ public class ChatbotController {
 
 
 
+    /**
+     * Same as /chat with the text in "question". With a sessionId earlier turns are carried by
+     * SessionIntentStore; without one, previousResponse is prepended to the question as before
+     * (such requests are never cached)
+     */
     @PostMapping("/chat/ask")
     public ChatbotResponse<?> chatGet(@RequestBody ChatRequest request) {
-        String query="";
-        if (StringUtils.isNotEmpty(request.getPreviousResponse())){
-            query+=request.getPreviousResponse();
+        if (StringUtils.isBlank(request.getSessionId()) && StringUtils.isNotEmpty(request.getPreviousResponse())) {
+            request.setMessage(request.getPreviousResponse() + " " + request.getQuestion());
+        } else {
+            request.setMessage(request.getQuestion());
         }
-        query+=request.getQuestion();
-        request.setMessage(query);
         log.info("📥 Received chat request (GET): {} {}", request.getQuestion(),request.getAppid());
         return  chatbotService.handleUserQuery(request);
     }
@@ -70,12 +102,37 @@ public class ChatbotController {
 
 
     /**
-     * Health check endpoint showing registered intents
+     * Balance of several gift cards ({"giftCards": [{"cardNumber", "pin"}, ...]}) in one
+     * response; the cards are checked concurrently and none of them goes through the LLM
+     */
+    @PostMapping("/giftcards/balance")
+    public ResponseEntity<?> giftCardBalances(@RequestBody ChatRequest request) {
+        List<GiftCardBalanceRequest> cards = request.getGiftCards();
+        int max = giftCardBatchService.getMaxCards();
+        if (cards == null || cards.isEmpty() || cards.size() > max
+                || cards.stream().anyMatch(card -> card == null || StringUtils.isBlank(card.getCardNumber()))) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "message", "giftCards must contain between 1 and " + max + " entries, each with a cardNumber"));
+        }
+        log.info("📥 Received batch gift card balance request for {} cards", cards.size());
+        return ResponseEntity.ok(giftCardBalanceIntentHandler.handle(request, System.currentTimeMillis()));
+    }
+
+    /**
+     * Health check endpoint showing registered intents; 503 until startup cache warm-up
+     * has finished and the application accepts traffic
      */
     @GetMapping("/health")
     public ResponseEntity<HealthResponse> health() {
         List<String> registeredIntents = intentRouterService.getRegisteredIntents();
 
+        if (applicationAvailability.getReadinessState() != ReadinessState.ACCEPTING_TRAFFIC) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(new HealthResponse(
+                    "WARMING_UP",
+                    registeredIntents.size(),
+                    registeredIntents
+            ));
+        }
         return ResponseEntity.ok(new HealthResponse(
                 "UP",
                 registeredIntents.size(),
@@ -83,6 +140,143 @@ public class ChatbotController {
         ));
     }
 
+    /**
+     * Per-tier intent routing hit counters and latency (how often the LLM is still called)
+     */
+    @GetMapping("/routing/stats")
+    public ResponseEntity<Map<String, Object>> routingStats() {
+        return ResponseEntity.ok(intentRoutingStats.snapshot());
+    }
+
+    /**
+     * Spelling corrections and the extra keyword-tier and cache hits they produced
+     */
+    @GetMapping("/routing/spelling")
+    public ResponseEntity<Map<String, Object>> spellingStats() {
+        return ResponseEntity.ok(spellingCorrector.getStats());
+    }
+
+    /**
+     * Live sessions, follow-ups routed by session state and detected topic switches
+     */
+    @GetMapping("/routing/sessions")
+    public ResponseEntity<Map<String, Object>> sessionStats() {
+        return ResponseEntity.ok(sessionIntentStore.getStats());
+    }
+
+    /**
+     * Drop a session's intent state so its next message is classified from scratch
+     */
+    @DeleteMapping("/session/{sessionId}")
+    public ResponseEntity<Map<String, String>> resetSession(@PathVariable String sessionId,
+                                                            @RequestParam(required = false) String userId) {
+        sessionIntentStore.forget(userId, sessionId);
+        return ResponseEntity.ok(Map.of("message", "Session intent cleared", "sessionId", sessionId));
+    }
+
+    /**
+     * Labelled exemplars backing the embedding intent classifier
+     */
+    @GetMapping("/intent/exemplars")
+    public ResponseEntity<Map<String, List<String>>> intentExemplars() {
+        return ResponseEntity.ok(embeddingIntentIndex.getExemplars());
+    }
+
+    /**
+     * Replace the embedding classifier exemplars at runtime (re-embeds and swaps the index)
+     */
+    @PutMapping("/intent/exemplars")
+    public ResponseEntity<Map<String, Object>> reloadIntentExemplars(
+            @RequestBody Map<String, List<String>> exemplars) {
+        try {
+            embeddingIntentIndex.reload(exemplars);
+            return ResponseEntity.ok(Map.of(
+                    "message", "Intent exemplars reloaded",
+                    "intents", exemplars.keySet()
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Training state of the n-gram intent model learned from analytics logs
+     */
+    @GetMapping("/intent/ngram")
+    public ResponseEntity<Map<String, Object>> ngramModelStatus() {
+        return ResponseEntity.ok(ngramIntentIndex.getStatus());
+    }
+
+    /**
+     * Train the n-gram intent model on new analytics rows now instead of waiting for the schedule
+     */
+    @PostMapping("/intent/ngram/retrain")
+    public ResponseEntity<Map<String, Object>> retrainNgramModel() {
+        ngramIntentIndex.retrain();
+        return ResponseEntity.ok(ngramIntentIndex.getStatus());
+    }
+
+    /**
+     * Concepts currently routed through the single-call classify-and-answer mode
+     */
+    @GetMapping("/routing/classify-and-answer")
+    public ResponseEntity<Set<String>> classifyAndAnswerConcepts() {
+        return ResponseEntity.ok(classifyAndAnswerService.getEnabledConcepts());
+    }
+
+    /**
+     * Switch the classify-and-answer mode on or off for one concept
+     */
+    @PutMapping("/routing/classify-and-answer/{concept}")
+    public ResponseEntity<Map<String, Object>> toggleClassifyAndAnswer(
+            @PathVariable String concept,
+            @RequestParam boolean enabled) {
+        classifyAndAnswerService.setEnabled(concept, enabled);
+        return ResponseEntity.ok(Map.of(
+                "concept", concept.toUpperCase(),
+                "enabled", enabled
+        ));
+    }
+
+    /**
+     * Classify many messages in one go (keyword tier per message, one LLM prompt for the rest)
+     */
+    @PostMapping("/classify/batch")
+    public ResponseEntity<?> classifyBatch(@RequestBody BatchClassifyRequest request) {
+        List<String> messages = request.getMessages();
+        if (messages == null || messages.isEmpty() || messages.size() > batchEndpointMax) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "message", "messages must contain between 1 and " + batchEndpointMax + " entries"));
+        }
+        List<IntentMatch> matches = intentRouterService.classifyBatch(messages);
+        return ResponseEntity.ok(matches);
+    }
+
+    /**
+     * Realised micro-batch sizes of the AI intent classifier
+     */
+    @GetMapping("/routing/batching")
+    public ResponseEntity<Map<String, Object>> batchingStats() {
+        return ResponseEntity.ok(intentClassifier.getBatchStats());
+    }
+
+    /**
+     * Store catalogs held in memory for STORE_LOCATOR, with their size and load time
+     */
+    @GetMapping("/stores/catalog")
+    public ResponseEntity<Map<String, Object>> storeCatalogStats() {
+        return ResponseEntity.ok(storeCatalogService.getStats());
+    }
+
+    /**
+     * Re-fetch every loaded store catalog now instead of waiting for the schedule
+     */
+    @PostMapping("/stores/catalog/refresh")
+    public ResponseEntity<Map<String, Object>> refreshStoreCatalogs() {
+        storeCatalogService.refreshAll();
+        return ResponseEntity.ok(storeCatalogService.getStats());
+    }
+
     /**
      * Health response DTO
      */
@@ -1,6 +1,7 @@
 package com.lmg.online.chatbot.ai.project.converter;
 
 import com.lmg.online.chatbot.ai.deprecated.controller.intent.IntentClassification;
+import com.lmg.online.chatbot.ai.project.intent.IntentAnswer;
 import com.lmg.online.chatbot.ai.tools.giftcard.dto.GiftCardBalanceResponse;
 import com.lmg.online.chatbot.ai.tools.order.dto.OrderResponse;
 import com.lmg.online.chatbot.ai.tools.storelocator.dto.StoreList;
@@ -39,4 +40,9 @@ public class OutputConverterConfig {
     public BeanOutputConverter<IntentClassification> intentOutputConverter() {
         return new BeanOutputConverter<>(IntentClassification.class);
     }
+
+    @Bean
+    public BeanOutputConverter<IntentAnswer> intentAnswerConverter() {
+        return new BeanOutputConverter<>(IntentAnswer.class);
+    }
 }
\ No newline at end of file
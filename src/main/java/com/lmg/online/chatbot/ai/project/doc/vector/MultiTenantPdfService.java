@@ -9,6 +9,7 @@ import org.springframework.ai.transformer.splitter.TokenTextSplitter;
 import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.SimpleVectorStore;
 import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
@@ -20,6 +21,9 @@ import java.util.stream.Collectors;
 /**
  * Multi-Tenant PDF Upload Service
  * Handles concept-specific policy document uploads
+ *
+ * Every change to a concept's documents publishes a PolicyDocumentsChangedEvent, on which
+ * the semantic and response caches drop that concept's policy answers.
  */
 @Service
 @Slf4j
@@ -28,6 +32,7 @@ public class MultiTenantPdfService {
     private final VectorStoreFactory vectorStoreFactory;
     private final VectorStore orderVectorStore;
     private final TokenTextSplitter textSplitter;
+    private final ApplicationEventPublisher eventPublisher;
 
     // Supported concepts
     private static final Set<String> VALID_CONCEPTS = Set.of(
@@ -36,9 +41,11 @@ public class MultiTenantPdfService {
 
     public MultiTenantPdfService(
             VectorStoreFactory vectorStoreFactory,
-            VectorStore orderVectorStore) {
+            VectorStore orderVectorStore,
+            ApplicationEventPublisher eventPublisher) {
         this.vectorStoreFactory = vectorStoreFactory;
         this.orderVectorStore = orderVectorStore;
+        this.eventPublisher = eventPublisher;
         this.textSplitter = new TokenTextSplitter(800, 200, 5, 10000, true);
 
         // Pre-initialize all concept vector stores
@@ -72,8 +79,10 @@ public class MultiTenantPdfService {
         // Get concept-specific vector store
         VectorStore conceptVectorStore = vectorStoreFactory.getVectorStore(concept);
 
-        // Process and upload
-        return uploadToVectorStore(file, conceptVectorStore, concept, category, metadata);
+        // Process and upload; answers generated from the old documents are now stale
+        String documentId = uploadToVectorStore(file, conceptVectorStore, concept, category, metadata);
+        eventPublisher.publishEvent(new PolicyDocumentsChangedEvent(concept, List.of()));
+        return documentId;
     }
 
     /**
@@ -160,6 +169,7 @@ public class MultiTenantPdfService {
 
         VectorStore conceptVectorStore = vectorStoreFactory.getVectorStore(concept);
         conceptVectorStore.delete(List.of(documentId));
+        eventPublisher.publishEvent(new PolicyDocumentsChangedEvent(concept, List.of(documentId)));
         log.info("🗑️ Deleted document {} from concept: {}", documentId, concept);
     }
 
@@ -220,6 +230,7 @@ public class MultiTenantPdfService {
 
             // Delete all documents using the delete() method
             store.delete(allDocIds);
+            eventPublisher.publishEvent(new PolicyDocumentsChangedEvent(concept, allDocIds));
 
             log.info("✅ Successfully cleared {} documents from {}",
                     allDocIds.size(), concept);
@@ -43,15 +43,15 @@ public class MultiTenantSmartChatService {
      * THIS IS THE KEY: Different policies for each website!
      */
     public ChatResponse handlePolicyQuestion(ChatRequest req) {
-        log.info("📋 POLICY QUESTION for concept: {} | Query: {}", req.getConcept(), req.getMessage());
-        VectorStore conceptVectorStore = vectorStoreFactory.getVectorStore(req.getConcept());
-
+        return handlePolicyQuestion(req, retrievePolicyDocuments(req));
+    }
 
-        List<Document> docs = conceptVectorStore.similaritySearch(req.getMessage()); // Reduced from 5
-        String context = docs.stream()
-                .map(Document::getFormattedContent)
-                .limit(3)
-                .collect(Collectors.joining("\n"));
+    /**
+     * Policy Question answered from already retrieved documents
+     */
+    public ChatResponse handlePolicyQuestion(ChatRequest req, List<Document> docs) {
+        log.info("📋 POLICY QUESTION for concept: {} | Query: {}", req.getConcept(), req.getMessage());
+        String context = formatContext(docs);
 
         String prompt = String.format(
                 "Context:\n%s\n\nQ: %s\nA: %s",
@@ -66,10 +66,6 @@ public class MultiTenantSmartChatService {
 
 
 
-        // Build context from concept-specific documents
-
-        log.info("📚 Found {} relevant policy docs for {}", docs.size(), req.getConcept());
-
         // Select model
         String model = "gpt-4o-mini-2024-07-18";
         ChatClient client = createClient(model, 800);
@@ -83,6 +79,43 @@ public class MultiTenantSmartChatService {
 
 
 
+    /**
+     * Top policy chunks for the query from the CONCEPT-SPECIFIC vector store
+     */
+    public String retrievePolicyContext(ChatRequest req) {
+        return formatContext(retrievePolicyDocuments(req));
+    }
+
+    /**
+     * The policy chunks an answer is generated from; their source document ids tag the cached answer
+     */
+    public List<Document> retrievePolicyDocuments(ChatRequest req) {
+        VectorStore conceptVectorStore = vectorStoreFactory.getVectorStore(req.getConcept());
+
+        List<Document> docs = conceptVectorStore.similaritySearch(req.getMessage()); // Reduced from 5
+        log.info("📚 Found {} relevant policy docs for {}", docs.size(), req.getConcept());
+
+        return docs.stream()
+                .limit(3)
+                .toList();
+    }
+
+    /**
+     * Upload id of each chunk's source document (the chunk's own id for documents stored without one)
+     */
+    public static List<String> documentIds(List<Document> docs) {
+        return docs.stream()
+                .map(doc -> doc.getMetadata().get("document_id") instanceof String id ? id : doc.getId())
+                .distinct()
+                .toList();
+    }
+
+    public static String formatContext(List<Document> docs) {
+        return docs.stream()
+                .map(Document::getFormattedContent)
+                .collect(Collectors.joining("\n"));
+    }
+
     // Helper methods
 
     private ChatClient createClient(String model, int maxTokens) {
@@ -0,0 +1,12 @@
+package com.lmg.online.chatbot.ai.project.doc.vector;
+
+import java.util.List;
+
+/**
+ * Published when a concept's policy documents were uploaded, deleted or cleared; every
+ * answer generated from that concept's documents may now be stale
+ * @param concept     concept whose vector store changed
+ * @param documentIds documents removed from the store (empty for uploads)
+ */
+public record PolicyDocumentsChangedEvent(String concept, List<String> documentIds) {
+}
@@ -0,0 +1,305 @@
+package com.lmg.online.chatbot.ai.project.doc.vector;
+
+import com.lmg.online.chatbot.ai.analytics.ChatbotResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Semantic answer cache for generated (RAG / general) responses.
+ *
+ * Query embeddings are kept per concept and intent partition in a flat unit-vector matrix
+ * with a fixed capacity (oldest entry overwritten first). A lookup embeds the query once and
+ * returns the stored answer of the most similar earlier query above the threshold, so
+ * "what is the return policy" and "how do returns work" share one generation.
+ *
+ * Partitions are bounded at a few thousand entries, where an exact scan (well under a
+ * millisecond) is cheaper than building and maintaining an approximate index and never
+ * misses a neighbour. A concept's partitions are dropped whenever its policy documents change.
+ */
+@Slf4j
+@Service
+public class SemanticResponseCache {
+
+    private static final double[] SIMILARITY_BOUNDS = {0.80, 0.85, 0.90, 0.92, 0.94, 0.96, 0.98, 0.99, 1.0};
+
+    private final EmbeddingModel embeddingModel;
+    private final boolean enabled;
+    private final double threshold;
+    private final int capacity;
+    private final long ttlMillis;
+
+    private final Map<String, Partition> partitions = new ConcurrentHashMap<>();
+    // Bumped on every invalidation so answers generated from old documents are not stored
+    private final AtomicLong epoch = new AtomicLong();
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final AtomicLongArray hitSimilarity = new AtomicLongArray(SIMILARITY_BOUNDS.length);
+
+    public SemanticResponseCache(
+            EmbeddingModel embeddingModel,
+            @Value("${chatbot.cache.semantic.enabled:true}") boolean enabled,
+            @Value("${chatbot.cache.semantic.similarity-threshold:0.92}") double threshold,
+            @Value("${chatbot.cache.semantic.max-entries-per-partition:2000}") int capacity,
+            @Value("${chatbot.cache.semantic.ttl-minutes:360}") long ttlMinutes) {
+        this.embeddingModel = embeddingModel;
+        this.enabled = enabled;
+        this.threshold = threshold;
+        this.capacity = Math.max(1, capacity);
+        this.ttlMillis = ttlMinutes * 60_000;
+    }
+
+    /**
+     * Nearest cached answer for the query within its concept and intent
+     * @return lookup carrying the hit (if any) and the query embedding for a later put
+     */
+    public Lookup lookup(String concept, String intent, String query) {
+        String partitionKey = partitionKey(concept, intent);
+        if (!enabled || query == null || query.isBlank()) {
+            return new Lookup(partitionKey, null, null, 0, 0);
+        }
+
+        long currentEpoch = epoch.get();
+        lookups.increment();
+        float[] vector;
+        try {
+            vector = normalize(embeddingModel.embed(query));
+        } catch (Exception e) {
+            log.warn("⚠️ Semantic cache embedding failed, skipping: {}", e.getMessage());
+            return new Lookup(partitionKey, null, null, 0, currentEpoch);
+        }
+
+        Partition partition = partitions.get(partitionKey);
+        if (partition == null) {
+            return new Lookup(partitionKey, vector, null, 0, currentEpoch);
+        }
+
+        Partition.Nearest nearest = partition.nearest(vector, System.currentTimeMillis() - ttlMillis);
+        if (nearest == null || nearest.similarity() < threshold) {
+            return new Lookup(partitionKey, vector, null, nearest != null ? nearest.similarity() : 0, currentEpoch);
+        }
+
+        hits.increment();
+        recordSimilarity(nearest.similarity());
+        log.info("🧠 Semantic cache hit in {} (similarity {})", partitionKey,
+                String.format("%.3f", nearest.similarity()));
+        return new Lookup(partitionKey, vector, nearest.answer(), nearest.similarity(), currentEpoch);
+    }
+
+    /**
+     * Handler response for a cache hit (no tokens spent)
+     */
+    public ChatbotResponse<String> toResponse(Lookup lookup, String intent, long startTime) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("semanticCache", true);
+        metadata.put("similarity", lookup.similarity());
+        return ChatbotResponse.<String>builder()
+                .data(lookup.answer())
+                .tokenUsage(null)
+                .responseTimeMs(System.currentTimeMillis() - startTime)
+                .intent(intent)
+                .metadata(metadata)
+                .build();
+    }
+
+    /**
+     * Stores a freshly generated answer under the embedding computed by lookup
+     */
+    public void put(Lookup lookup, String answer) {
+        if (!enabled || lookup == null || lookup.vector() == null || answer == null || answer.isBlank()
+                || lookup.epoch() != epoch.get()) {
+            return;
+        }
+        partitions.computeIfAbsent(lookup.partitionKey(), key -> new Partition(capacity, lookup.vector().length))
+                .add(lookup.vector(), answer, System.currentTimeMillis());
+        stores.increment();
+    }
+
+    @EventListener
+    public void onPolicyDocumentsChanged(PolicyDocumentsChangedEvent event) {
+        invalidateConcept(event.concept());
+    }
+
+    /**
+     * Drops every cached answer of a concept (its policy documents changed)
+     */
+    public void invalidateConcept(String concept) {
+        epoch.incrementAndGet();
+        String prefix = normalizeConcept(concept) + "|";
+        int removed = 0;
+        for (String key : partitions.keySet()) {
+            if (key.startsWith(prefix) && partitions.remove(key) != null) {
+                removed++;
+            }
+        }
+        invalidations.increment();
+        log.info("🗑️ Semantic cache invalidated for {} ({} partitions)", concept, removed);
+    }
+
+    public void clear() {
+        epoch.incrementAndGet();
+        partitions.clear();
+        invalidations.increment();
+    }
+
+    public Map<String, Object> getStats() {
+        long lookupCount = lookups.sum();
+        long hitCount = hits.sum();
+
+        Map<String, Long> similarity = new LinkedHashMap<>();
+        for (int i = 0; i < SIMILARITY_BOUNDS.length; i++) {
+            similarity.put("<=" + SIMILARITY_BOUNDS[i], hitSimilarity.get(i));
+        }
+        Map<String, Integer> sizes = new TreeMap<>();
+        partitions.forEach((key, partition) -> sizes.put(key, partition.size()));
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("similarityThreshold", threshold);
+        stats.put("lookups", lookupCount);
+        stats.put("hits", hitCount);
+        stats.put("misses", lookupCount - hitCount);
+        stats.put("hitRate", lookupCount > 0 ? (double) hitCount / lookupCount : 0.0);
+        stats.put("stores", stores.sum());
+        stats.put("invalidations", invalidations.sum());
+        stats.put("hitSimilarity", similarity);
+        stats.put("partitions", sizes);
+        return stats;
+    }
+
+    private void recordSimilarity(double similarity) {
+        int i = 0;
+        while (i < SIMILARITY_BOUNDS.length - 1 && similarity > SIMILARITY_BOUNDS[i]) {
+            i++;
+        }
+        hitSimilarity.incrementAndGet(i);
+    }
+
+    private static String partitionKey(String concept, String intent) {
+        return normalizeConcept(concept) + "|" + intent;
+    }
+
+    private static String normalizeConcept(String concept) {
+        return concept == null || concept.isBlank() ? "DEFAULT" : concept.trim().toUpperCase();
+    }
+
+    private static float[] normalize(float[] vector) {
+        float[] copy = vector.clone();
+        double norm = 0;
+        for (float value : copy) {
+            norm += value * value;
+        }
+        if (norm > 0) {
+            float scale = (float) (1.0 / Math.sqrt(norm));
+            for (int i = 0; i < copy.length; i++) {
+                copy[i] *= scale;
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * @param answer     cached answer, or null on a miss
+     * @param similarity similarity of the nearest cached query (0 when none)
+     * @param epoch      invalidation epoch the lookup ran in
+     */
+    public record Lookup(String partitionKey, float[] vector, String answer, double similarity, long epoch) {
+
+        public boolean hit() {
+            return answer != null;
+        }
+    }
+
+    /**
+     * Fixed-capacity ring of unit vectors for one concept and intent
+     */
+    private static final class Partition {
+
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final float[] matrix;
+        private final String[] answers;
+        private final long[] storedAt;
+        private final int dimensions;
+        private int next;
+        private int size;
+
+        Partition(int capacity, int dimensions) {
+            this.matrix = new float[capacity * dimensions];
+            this.answers = new String[capacity];
+            this.storedAt = new long[capacity];
+            this.dimensions = dimensions;
+        }
+
+        void add(float[] vector, String answer, long now) {
+            if (vector.length != dimensions) {
+                return;
+            }
+            lock.writeLock().lock();
+            try {
+                System.arraycopy(vector, 0, matrix, next * dimensions, dimensions);
+                answers[next] = answer;
+                storedAt[next] = now;
+                next = (next + 1) % answers.length;
+                size = Math.min(size + 1, answers.length);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        Nearest nearest(float[] vector, long notBefore) {
+            if (vector.length != dimensions) {
+                return null;
+            }
+            lock.readLock().lock();
+            try {
+                int best = -1;
+                double bestScore = -1;
+                for (int i = 0; i < size; i++) {
+                    if (storedAt[i] < notBefore) {
+                        continue;
+                    }
+                    double score = 0;
+                    int offset = i * dimensions;
+                    for (int d = 0; d < dimensions; d++) {
+                        score += matrix[offset + d] * vector[d];
+                    }
+                    if (score > bestScore) {
+                        bestScore = score;
+                        best = i;
+                    }
+                }
+                return best < 0 ? null : new Nearest(answers[best], bestScore);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        int size() {
+            lock.readLock().lock();
+            try {
+                return size;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        record Nearest(String answer, double similarity) {
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.lmg.online.chatbot.ai.project.handler;
+
+import com.lmg.online.chatbot.ai.request.ChatRequest;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * How an intent's answers are cached in "chatbotResponses", declared by its handler
+ * and applied generically by ChatbotService.
+ *
+ * @param ttl                   lifetime of a cached answer; zero means never cached
+ * @param keyParts              request fields the answer depends on, besides intent and query
+ * @param skipWhenTimeSensitive bypass the cache for "now", "today", "current", "latest"
+ * @param refreshAhead          reload hot entries in the background before they expire
+ */
+public record CachePolicy(Duration ttl, Set<KeyPart> keyParts, boolean skipWhenTimeSensitive, boolean refreshAhead) {
+
+    public enum KeyPart {
+        USER, CONCEPT, LOCATION, ENV, APP
+    }
+
+    private static final CachePolicy NONE = new CachePolicy(Duration.ZERO, Set.of(), false, false);
+
+    /**
+     * The former global rule: one hour, keyed on everything, skipped for time-sensitive wording
+     */
+    public static final CachePolicy DEFAULT = cached(Duration.ofHours(1),
+            KeyPart.USER, KeyPart.CONCEPT, KeyPart.LOCATION, KeyPart.ENV, KeyPart.APP).skippingTimeSensitive();
+
+    public CachePolicy {
+        keyParts = Set.copyOf(keyParts);
+    }
+
+    public static CachePolicy none() {
+        return NONE;
+    }
+
+    public static CachePolicy cached(Duration ttl, KeyPart... keyParts) {
+        return new CachePolicy(ttl, keyParts.length == 0 ? Set.of() : EnumSet.of(keyParts[0], keyParts), false, true);
+    }
+
+    public CachePolicy skippingTimeSensitive() {
+        return new CachePolicy(ttl, keyParts, true, refreshAhead);
+    }
+
+    public CachePolicy withoutRefreshAhead() {
+        return new CachePolicy(ttl, keyParts, skipWhenTimeSensitive, false);
+    }
+
+    public boolean isCacheable() {
+        return ttl.compareTo(Duration.ZERO) > 0;
+    }
+
+    public boolean includes(KeyPart part) {
+        return keyParts.contains(part);
+    }
+
+    /**
+     * Whether this request's answer may be read from and written to the cache
+     */
+    public boolean appliesTo(ChatRequest request) {
+        if (!isCacheable()) {
+            return false;
+        }
+        if (!skipWhenTimeSensitive || request.getMessage() == null) {
+            return true;
+        }
+        String message = request.getMessage().toLowerCase();
+        return !(message.contains("now") || message.contains("current") ||
+                message.contains("today") || message.contains("latest"));
+    }
+
+    /**
+     * Policy for an answer that combines both intents: the shorter TTL, every key part,
+     * never cached if either part is not
+     */
+    public CachePolicy combine(CachePolicy other) {
+        if (!isCacheable() || !other.isCacheable()) {
+            return NONE;
+        }
+        EnumSet<KeyPart> parts = EnumSet.noneOf(KeyPart.class);
+        parts.addAll(keyParts);
+        parts.addAll(other.keyParts);
+        return new CachePolicy(
+                ttl.compareTo(other.ttl) <= 0 ? ttl : other.ttl,
+                parts,
+                skipWhenTimeSensitive || other.skipWhenTimeSensitive,
+                refreshAhead && other.refreshAhead);
+    }
+}
@@ -5,6 +5,10 @@ package com.lmg.online.chatbot.ai.project.handler;
 import com.lmg.online.chatbot.ai.analytics.ChatbotResponse;
 import com.lmg.online.chatbot.ai.request.ChatRequest;
 
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
 /**
  * Base interface for all intent handlers
  */
@@ -32,4 +36,42 @@ public interface IntentHandler<T> {
     default boolean canHandle(String query) {
         return false;
     }
+
+    /**
+     * Keywords and phrases compiled into the deterministic keyword routing tier.
+     * Matched case-insensitively on word boundaries; multi-word phrases weigh more.
+     * @return keywords for this intent, empty if the handler is a fallback only
+     */
+    default List<String> getKeywords() {
+        return List.of();
+    }
+
+    /**
+     * canHandle pattern built from a handler's keywords, so the two cannot drift apart.
+     * Matches any keyword as whole words, case-insensitively; the words of a phrase may be
+     * separated by any whitespace or none ("gift card", "giftcard").
+     */
+    static Pattern keywordPattern(List<String> keywords) {
+        return Pattern.compile(keywords.stream()
+                        .map(keyword -> Pattern.compile("\\s+").splitAsStream(keyword.trim())
+                                .map(Pattern::quote)
+                                .collect(Collectors.joining("\\s*")))
+                        .collect(Collectors.joining("|", ".*\\b(", ")\\b.*")),
+                Pattern.CASE_INSENSITIVE);
+    }
+
+    /**
+     * Copies what a follow-up may refer to (an order number, the stores shown, a card ending)
+     * from a response, fresh or cached, onto the request, where SessionIntentStore keeps it
+     */
+    default void captureContext(ChatRequest request, ChatbotResponse<?> response) {
+    }
+
+    /**
+     * How answers for this intent are cached (TTL, key parts); see {@link CachePolicy}
+     * @return the policy, {@link CachePolicy#DEFAULT} unless the handler declares its own
+     */
+    default CachePolicy getCachePolicy() {
+        return CachePolicy.DEFAULT;
+    }
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import com.lmg.online.chatbot.ai.analytics.AiAnalyticsService;
 import com.lmg.online.chatbot.ai.analytics.ChatbotResponse;
 import com.lmg.online.chatbot.ai.analytics.TokenCostCalculator;
 import com.lmg.online.chatbot.ai.analytics.TokenUsage;
+import com.lmg.online.chatbot.ai.project.handler.CachePolicy;
 import com.lmg.online.chatbot.ai.project.handler.IntentHandler;
 import com.lmg.online.chatbot.ai.request.ChatRequest;
 import com.lmg.online.chatbot.ai.tools.user.MyProfileDetailsTool;
@@ -15,6 +16,8 @@ import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.converter.BeanOutputConverter;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.regex.Pattern;
 
 @Slf4j
@@ -22,12 +25,13 @@ import java.util.regex.Pattern;
 @RequiredArgsConstructor
 public class CustomerProfileIntentHandler implements IntentHandler<CustomerProfileResponseDTO> {
 
-    private static final Pattern CUSTOMER_PROFILE_PATTERN = Pattern.compile(
-            ".*\\b(profile|my\\s*profile|account|my\\s*account|personal\\s*details|my\\s*details|" +
-                    "about\\s*me|user\\s*info|my\\s*info|update\\s*profile|edit\\s*profile)\\b.*",
-            Pattern.CASE_INSENSITIVE
+    private static final List<String> KEYWORDS = List.of(
+            "profile", "my profile", "myprofile", "account", "my account", "personal details", "my details",
+            "about me", "user info", "my info", "update profile", "edit profile"
     );
 
+    private static final Pattern CUSTOMER_PROFILE_PATTERN = IntentHandler.keywordPattern(KEYWORDS);
+
     private static final String CUSTOMER_PROFILE_FORMAT = """
         Return JSON: {
             "chat_message": "text", 
@@ -87,11 +91,26 @@ public class CustomerProfileIntentHandler implements IntentHandler<CustomerProfi
         return "CUSTOMER_PROFILE";
     }
 
+    /**
+     * Profile data is per user; kept briefly so a burst of profile questions reads it once
+     */
+    @Override
+    public CachePolicy getCachePolicy() {
+        return CachePolicy.cached(Duration.ofMinutes(5),
+                CachePolicy.KeyPart.USER, CachePolicy.KeyPart.CONCEPT, CachePolicy.KeyPart.ENV, CachePolicy.KeyPart.APP)
+                .withoutRefreshAhead();
+    }
+
     @Override
     public boolean canHandle(String query) {
         return CUSTOMER_PROFILE_PATTERN.matcher(query.toLowerCase()).matches();
     }
 
+    @Override
+    public List<String> getKeywords() {
+        return KEYWORDS;
+    }
+
     private boolean isUserAuthenticated(ChatRequest request) {
         return request.getUserId() != null && !request.getUserId().isEmpty();
     }
@@ -150,6 +169,9 @@ public class CustomerProfileIntentHandler implements IntentHandler<CustomerProfi
     }
 
     private void trackAnalytics(ChatRequest request, ChatResponse response, long responseTime) {
+        if (request.isBackground()) {
+            return;
+        }
         var usage = response.getMetadata().getUsage();
 
         aiAnalyticsService.trackUsage(
@@ -163,7 +185,9 @@ public class CustomerProfileIntentHandler implements IntentHandler<CustomerProfi
                 response.getResult().getMetadata().getFinishReason(),
                 true,
                 "myProfileDetailsTool",
-                responseTime
+                responseTime,
+                getIntentType(),
+                request.getRoutedBy()
         );
 
         log.info("📊 {} - Tokens: {} (↑{} ↓{}), Time: {}ms",
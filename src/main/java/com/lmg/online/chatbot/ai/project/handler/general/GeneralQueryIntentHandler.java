@@ -5,6 +5,7 @@ import com.lmg.online.chatbot.ai.analytics.ChatbotResponse;
 import com.lmg.online.chatbot.ai.analytics.TokenCostCalculator;
 import com.lmg.online.chatbot.ai.analytics.TokenUsage;
 import com.lmg.online.chatbot.ai.common.ConceptBaseUrlResolver;
+import com.lmg.online.chatbot.ai.project.doc.vector.SemanticResponseCache;
 import com.lmg.online.chatbot.ai.project.handler.IntentHandler;
 import com.lmg.online.chatbot.ai.request.ChatRequest;
 import lombok.RequiredArgsConstructor;
@@ -15,6 +16,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 /**
  * Handler for general queries that don't fit other intents
  */
@@ -25,23 +28,36 @@ public class GeneralQueryIntentHandler implements IntentHandler<String> {
 
     private static final String SUPPORT_PHONE = "1800-123-1555";
 
+    private static final List<String> KEYWORDS = List.of(
+            "hi", "hello", "hey", "thanks", "thank you", "good morning", "good evening",
+            "customer care", "contact us"
+    );
+
     @Autowired
     @Qualifier("generalClient")
     private  ChatClient chatClient;
     private final TokenCostCalculator tokenCostCalculator;
     private final AiAnalyticsService aiAnalyticsService;
+    private final SemanticResponseCache semanticResponseCache;
 
     @Override
     public ChatbotResponse<String> handle(ChatRequest request, long startTime) {
         log.info("💬 Handling GENERAL_QUERY intent");
 
+        SemanticResponseCache.Lookup cached = semanticResponseCache.lookup(request.getConcept(), getIntentType(), request.getMessage());
+        if (cached.hit()) {
+            return semanticResponseCache.toResponse(cached, getIntentType(), startTime);
+        }
+
         String prompt = buildPrompt(request.getMessage(),request);
         ChatResponse response = chatClient.prompt()
                 .user(prompt)
                 .call()
                 .chatResponse();
 
-        return buildResponse(response, request, startTime);
+        ChatbotResponse<String> result = buildResponse(response, request, startTime);
+        semanticResponseCache.put(cached, result.getData());
+        return result;
     }
 
     @Override
@@ -55,6 +71,12 @@ public class GeneralQueryIntentHandler implements IntentHandler<String> {
         return false;
     }
 
+    @Override
+    public List<String> getKeywords() {
+        // Greetings only - anything else falls through to the AI classifier
+        return KEYWORDS;
+    }
+
     private String buildPrompt(String query, ChatRequest request) {
         return String.format(
                 "Q: %s\n\n" +
@@ -88,6 +110,9 @@ public class GeneralQueryIntentHandler implements IntentHandler<String> {
     }
 
     private void trackAnalytics(ChatRequest request, ChatResponse response, long responseTime) {
+        if (request.isBackground()) {
+            return;
+        }
         var usage = response.getMetadata().getUsage();
 
         aiAnalyticsService.trackUsage(
@@ -101,7 +126,9 @@ public class GeneralQueryIntentHandler implements IntentHandler<String> {
                 response.getResult().getMetadata().getFinishReason(),
                 false,
                 "none",
-                responseTime
+                responseTime,
+                getIntentType(),
+                request.getRoutedBy()
         );
 
         log.info("📊 {} - Tokens: {} (↑{} ↓{}), Time: {}ms",
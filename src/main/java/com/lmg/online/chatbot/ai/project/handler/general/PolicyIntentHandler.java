@@ -5,13 +5,19 @@ import com.lmg.online.chatbot.ai.analytics.ChatbotResponse;
 import com.lmg.online.chatbot.ai.analytics.TokenCostCalculator;
 import com.lmg.online.chatbot.ai.analytics.TokenUsage;
 import com.lmg.online.chatbot.ai.project.doc.vector.MultiTenantSmartChatService;
+import com.lmg.online.chatbot.ai.project.doc.vector.SemanticResponseCache;
+import com.lmg.online.chatbot.ai.project.handler.CachePolicy;
 import com.lmg.online.chatbot.ai.project.handler.IntentHandler;
 import com.lmg.online.chatbot.ai.request.ChatRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.document.Document;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
 import java.util.regex.Pattern;
 
 @Slf4j
@@ -20,31 +26,38 @@ import java.util.regex.Pattern;
 public class PolicyIntentHandler implements IntentHandler<String> {
     private final MultiTenantSmartChatService multiTenantSmartChatService;
 
-    private static final Pattern POLICY_QUESTION_PATTERN = Pattern.compile(
-            ".*\\b(" +
-                    "policy|return|refund|exchange|cancel|cancellation|replace|replacement|" +
-                    "shipping|delivery\\s*charges|delivery\\s*policy|return\\s*policy|" +
-                    "exchange\\s*policy|refund\\s*policy|cancel\\s*policy|" +
-                    "how\\s*to\\s*(return|cancel|exchange)|" +
-                    "when\\s*will\\s*I\\s*get\\s*refund|" +
-                    "charges\\s*for\\s*delivery|free\\s*shipping|" +
-                    "return\\s*window|refund\\s*time|order\\s*cancel|" +
-                    "modify\\s*order|replace\\s*item" +
-                    ")\\b.*",
-            Pattern.CASE_INSENSITIVE
+    private static final List<String> KEYWORDS = List.of(
+            "policy", "return", "returns", "refund", "refunds", "exchange", "cancel", "cancellation",
+            "replace", "replacement", "shipping", "delivery charges", "delivery policy", "return policy",
+            "exchange policy", "refund policy", "cancel policy", "how to return", "how to cancel",
+            "how to exchange", "when will i get refund", "charges for delivery", "free shipping",
+            "return window", "refund time", "order cancel", "modify order", "replace item"
     );
 
+    private static final Pattern POLICY_QUESTION_PATTERN = IntentHandler.keywordPattern(KEYWORDS);
+
 
 
     private final TokenCostCalculator tokenCostCalculator;
     private final AiAnalyticsService aiAnalyticsService;
+    private final SemanticResponseCache semanticResponseCache;
 
 
     @Override
     public ChatbotResponse<String> handle(ChatRequest req, long startTime) {
         log.info("📋 POLICY_QUESTION");
-        ChatResponse response = multiTenantSmartChatService.handlePolicyQuestion(req);
-        return buildResponse(response, req, startTime);
+        SemanticResponseCache.Lookup cached = semanticResponseCache.lookup(req.getConcept(), getIntentType(), req.getMessage());
+        if (cached.hit()) {
+            return semanticResponseCache.toResponse(cached, getIntentType(), startTime);
+        }
+
+        // Source documents tag the cached answer, so it is evicted when one of them is deleted
+        List<Document> docs = multiTenantSmartChatService.retrievePolicyDocuments(req);
+        ChatResponse response = multiTenantSmartChatService.handlePolicyQuestion(req, docs);
+        ChatbotResponse<String> result = buildResponse(response, req, startTime);
+        result.setSourceDocumentIds(MultiTenantSmartChatService.documentIds(docs));
+        semanticResponseCache.put(cached, result.getData());
+        return result;
     }
 
     @Override
@@ -52,11 +65,24 @@ public class PolicyIntentHandler implements IntentHandler<String> {
         return "POLICY_QUESTION";
     }
 
+    /**
+     * Policy answers depend only on the concept's documents
+     */
+    @Override
+    public CachePolicy getCachePolicy() {
+        return CachePolicy.cached(Duration.ofHours(24), CachePolicy.KeyPart.CONCEPT, CachePolicy.KeyPart.ENV);
+    }
+
     @Override
     public boolean canHandle(String query) {
         return POLICY_QUESTION_PATTERN.matcher(query.toLowerCase()).matches();
     }
 
+    @Override
+    public List<String> getKeywords() {
+        return KEYWORDS;
+    }
+
 
 
     private ChatbotResponse<String> buildResponse(
@@ -73,10 +99,14 @@ public class PolicyIntentHandler implements IntentHandler<String> {
                 .tokenUsage(tokens)
                 .responseTimeMs(responseTime)
                 .intent(getIntentType())
+                .metadata(new HashMap<>())
                 .build();
     }
 
     private void trackAnalytics(ChatRequest request, ChatResponse response, long responseTime) {
+        if (request.isBackground()) {
+            return;
+        }
         var usage = response.getMetadata().getUsage();
 
         aiAnalyticsService.trackUsage(
@@ -90,7 +120,9 @@ public class PolicyIntentHandler implements IntentHandler<String> {
                 response.getResult().getMetadata().getFinishReason(),
                 true,
                 "policySearch",
-                responseTime
+                responseTime,
+                getIntentType(),
+                request.getRoutedBy()
         );
 
         log.info("📊 {} - Tokens: {} (↑{} ↓{}), Time: {}ms",
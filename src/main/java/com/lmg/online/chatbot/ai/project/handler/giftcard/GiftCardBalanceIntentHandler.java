@@ -5,29 +5,54 @@ import com.lmg.online.chatbot.ai.analytics.AiAnalyticsService;
 import com.lmg.online.chatbot.ai.analytics.ChatbotResponse;
 import com.lmg.online.chatbot.ai.analytics.TokenCostCalculator;
 import com.lmg.online.chatbot.ai.analytics.TokenUsage;
+import com.lmg.online.chatbot.ai.common.MessageTemplate;
+import com.lmg.online.chatbot.ai.project.handler.CachePolicy;
 import com.lmg.online.chatbot.ai.project.handler.IntentHandler;
 import com.lmg.online.chatbot.ai.request.ChatRequest;
 import com.lmg.online.chatbot.ai.tools.giftcard.GiftCardBalanceTool;
+import com.lmg.online.chatbot.ai.tools.giftcard.GiftCardBatchService;
 import com.lmg.online.chatbot.ai.tools.giftcard.dto.GiftCardBalanceResponse;
+import com.lmg.online.chatbot.ai.tools.giftcard.dto.GiftCardError;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.converter.BeanOutputConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+/**
+ * Gift card balance.
+ *
+ * In the default direct path (chatbot.giftcard.direct.enabled=true) a card number from the
+ * request, or typed in the message, is checked by calling GiftCardBalanceTool directly and the
+ * balance is rendered from a template: no model round-trips, and card numbers and PINs never
+ * reach the model. The model is only asked to phrase the follow-up when the card number or
+ * PIN is missing, and then sees the message with every digit run masked.
+ *
+ * A request carrying giftCards (several card/PIN pairs) is answered in batch mode: the cards
+ * are checked concurrently by GiftCardBatchService and come back as one response, with a
+ * result and message per card in cards.
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class GiftCardBalanceIntentHandler implements IntentHandler<GiftCardBalanceResponse> {
 
-    private static final Pattern GIFT_CARD_PATTERN = Pattern.compile(
-            ".*\\b(gift\\s*card|card\\s*balance|check\\s*balance|giftcard)\\b.*",
-            Pattern.CASE_INSENSITIVE
+    private static final List<String> KEYWORDS = List.of(
+            "gift card", "giftcard", "gift card balance", "gc balance", "card balance", "check balance",
+            "voucher balance", "gift voucher"
     );
 
+    private static final Pattern GIFT_CARD_PATTERN = IntentHandler.keywordPattern(KEYWORDS);
+
     private static final String GIFTCARD_BALANCE_FORMAT = """
 Return JSON: {"cardNumber":"string","status":"SUCCESS|FAILED","message":"string",
 "balanceAmount":0.0,"currency":"INR","errorOccurred":false,
@@ -39,15 +64,68 @@ Return JSON: {"cardNumber":"string","status":"SUCCESS|FAILED","message":"string"
 
 
 
+    // 12-19 digit card number, allowing spaces or dashes between groups
+    private static final Pattern CARD_NUMBER = Pattern.compile("(?<!\\d)(\\d(?:[ -]?\\d){11,18})(?!\\d)");
+    // "pin 1234", "PIN: 1234", also straight after the card number ("...3456pin 1234")
+    private static final Pattern PIN = Pattern.compile(
+            "(?<![a-z])pin\\s*(?:is|:|=|-)?\\s*(\\d{4,8})(?!\\d)", Pattern.CASE_INSENSITIVE);
+    // A bare PIN following the card number ("1234 5678 9012 3456 7890", "... 3456 / 7890"); a PIN
+    // that would still make a 12-19 digit run is read as part of the card number
+    private static final Pattern TRAILING_PIN = Pattern.compile(
+            "\\s*(?:[,/-]|and)?\\s*(\\d{4,8})(?!\\d)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern DIGIT_RUN = Pattern.compile("\\d[\\d -]*\\d|\\d");
+
+    private static final String CARD_NOT_FOUND = "GIFT_CARD_NOT_FOUND";
+
+    private static final MessageTemplate BALANCE = MessageTemplate.compile(
+            "Your gift card ending {last4} has a balance of {currency} {amount}.");
+    private static final MessageTemplate NOT_FOUND = MessageTemplate.compile(
+            "I couldn't find a gift card ending {last4}. Please check the card number and PIN and try again.");
+    private static final MessageTemplate FAILED = MessageTemplate.compile(
+            "I couldn't check the balance of the gift card ending {last4} right now. Please try again in a few minutes.");
+    private static final MessageTemplate BATCH_TOTAL = MessageTemplate.compile(
+            "Your {count} gift cards have a total balance of {currency} {amount}.");
+    private static final MessageTemplate BATCH_CHECKED = MessageTemplate.compile("I checked {count} gift cards.");
+    private static final MessageTemplate BATCH_FAILED = MessageTemplate.compile(
+            " I couldn't check {failed} of them; see each card for details.");
+    private static final MessageTemplate ASK_FOR_PIN = MessageTemplate.compile(
+            "Please share the PIN of your gift card ending {last4}, and I'll check the balance for you.");
+    private static final MessageTemplate ASK_FOR_CARD_AGAIN = MessageTemplate.compile(
+            "I don't keep card numbers between messages. Please share the number and PIN of your gift card ending {last4} again.");
+    private static final String ASK_FOR_CARD_MESSAGE =
+            "Please share your gift card number and PIN, and I'll check the balance for you.";
+
+    private static final String ASK_PROMPT = """
+        Customer message: %s
+        To check a gift card balance we still need: %s.
+        Ask for it in one short, friendly sentence. Do not ask for anything else.
+        """;
+
     private final ChatClient giftCardClient;
     private final GiftCardBalanceTool giftCardBalanceTool;
     private final TokenCostCalculator tokenCostCalculator;
     private final AiAnalyticsService aiAnalyticsService;
     private final BeanOutputConverter<GiftCardBalanceResponse> giftCardBalanceConverter;
+    private final GiftCardBatchService giftCardBatchService;
+
+    @Value("${chatbot.giftcard.direct.enabled:true}")
+    private boolean directEnabled;
+
+    /**
+     * Card number (separators removed) and PIN typed in a message; either may be null
+     */
+    record CardDetails(String cardNumber, String pin) {
+    }
 
     @Override
     public ChatbotResponse<GiftCardBalanceResponse> handle(ChatRequest request, long startTime) {
         log.info("🎁 Handling GIFT_CARD_BALANCE intent");
+        if (request.getGiftCards() != null && !request.getGiftCards().isEmpty()) {
+            return handleBatch(request, startTime);
+        }
+        if (directEnabled) {
+            return handleDirectly(request, startTime);
+        }
 
         String prompt = buildPrompt(request);
         ChatResponse response = giftCardClient.prompt()
@@ -64,11 +142,236 @@ Return JSON: {"cardNumber":"string","status":"SUCCESS|FAILED","message":"string"
         return "GIFT_CARD_BALANCE";
     }
 
+    /**
+     * Card numbers and balances are never cached
+     */
+    @Override
+    public CachePolicy getCachePolicy() {
+        return CachePolicy.none();
+    }
+
     @Override
     public boolean canHandle(String query) {
         return GIFT_CARD_PATTERN.matcher(query.toLowerCase()).matches();
     }
 
+    @Override
+    public List<String> getKeywords() {
+        return KEYWORDS;
+    }
+
+    /**
+     * Balance straight from the tool when the card number and PIN are known, otherwise ask for
+     * what is missing
+     */
+    private ChatbotResponse<GiftCardBalanceResponse> handleDirectly(ChatRequest request, long startTime) {
+        CardDetails typed = extractCard(request.getMessage());
+        String cardNumber = StringUtils.isNotBlank(request.getCardNumber())
+                ? request.getCardNumber().replaceAll("[ -]", "").trim()
+                : typed.cardNumber();
+        String pin = StringUtils.isNotBlank(request.getPin()) ? request.getPin().trim() : typed.pin();
+        if (cardNumber == null && request.getCardLast4() != null) {
+            // Follow-up about a card checked earlier in the session: only its last four digits were kept
+            return askForCard(request, startTime, "the number and PIN of the gift card ending " + request.getCardLast4(),
+                    ASK_FOR_CARD_AGAIN.render(Map.of("last4", request.getCardLast4())));
+        }
+        if (cardNumber == null) {
+            return askForCard(request, startTime, "the gift card number and its PIN", ASK_FOR_CARD_MESSAGE);
+        }
+        if (pin == null) {
+            return askForCard(request, startTime, "its PIN", ASK_FOR_PIN.render(Map.of("last4", lastFour(cardNumber))));
+        }
+
+        GiftCardBalanceResponse data = giftCardBalanceTool.checkGiftCardBalance(
+                request.getConcept(), request.getEnv(), request.getAppid(), cardNumber, pin);
+        if (data == null) {
+            data = new GiftCardBalanceResponse();
+        }
+        data.setMessage(renderBalanceMessage(data, cardNumber));
+        return templateResponse(request, data, startTime);
+    }
+
+    /**
+     * Every card of the request checked concurrently, answered in one response
+     */
+    private ChatbotResponse<GiftCardBalanceResponse> handleBatch(ChatRequest request, long startTime) {
+        GiftCardBalanceResponse data = new GiftCardBalanceResponse();
+        if (request.getGiftCards().size() > giftCardBatchService.getMaxCards()) {
+            data.setStatus("FAILED");
+            data.setMessage("I can check up to " + giftCardBatchService.getMaxCards() + " gift cards at once.");
+            return templateResponse(request, data, startTime);
+        }
+        List<GiftCardBalanceResponse> cards = giftCardBatchService.checkBalances(
+                request.getConcept(), request.getEnv(), request.getAppid(), request.getGiftCards());
+
+        String currency = null;
+        boolean sameCurrency = true;
+        double total = 0;
+        int failed = 0;
+        for (GiftCardBalanceResponse card : cards) {
+            card.setMessage(renderBalanceMessage(card, card.getCardNumber()));
+            if (!isSuccess(card)) {
+                failed++;
+                continue;
+            }
+            total += card.getBalanceAmount();
+            if (currency == null) {
+                currency = card.getCurrency();
+            } else if (!currency.equals(card.getCurrency())) {
+                sameCurrency = false;
+            }
+        }
+
+        int succeeded = cards.size() - failed;
+        StringBuilder message = new StringBuilder(128);
+        if (succeeded > 0 && sameCurrency) {
+            BATCH_TOTAL.appendTo(message, Map.of(
+                    "count", succeeded,
+                    "currency", currency != null ? currency.trim() : "",
+                    "amount", String.format(Locale.ROOT, "%.2f", total)));
+        } else {
+            BATCH_CHECKED.appendTo(message, Map.of("count", cards.size()));
+        }
+        if (failed > 0) {
+            BATCH_FAILED.appendTo(message, Map.of("failed", failed));
+        }
+        data.setCards(cards);
+        data.setStatus(failed == 0 ? "SUCCESS" : succeeded == 0 ? "FAILED" : "PARTIAL");
+        data.setErrorOccurred(failed > 0);
+        if (succeeded > 0 && sameCurrency) {
+            data.setBalanceAmount(total);
+            data.setCurrency(currency);
+        }
+        data.setMessage(message.toString());
+        return templateResponse(request, data, startTime);
+    }
+
+    private static boolean isSuccess(GiftCardBalanceResponse data) {
+        return (data.getErrors() == null || data.getErrors().isEmpty())
+                && !Boolean.TRUE.equals(data.getErrorOccurred())
+                && data.getBalanceAmount() != null;
+    }
+
+    static String renderBalanceMessage(GiftCardBalanceResponse data, String cardNumber) {
+        String last4 = lastFour(cardNumber);
+        List<GiftCardError> errors = data.getErrors();
+        if (isSuccess(data)) {
+            return BALANCE.render(Map.of(
+                    "last4", last4,
+                    "currency", StringUtils.isNotBlank(data.getCurrency()) ? data.getCurrency().trim() : "",
+                    "amount", String.format(Locale.ROOT, "%.2f", data.getBalanceAmount())));
+        }
+        boolean notFound = errors != null && errors.stream()
+                .anyMatch(error -> CARD_NOT_FOUND.equals(error.getReason()));
+        return (notFound ? NOT_FOUND : FAILED).render(Map.of("last4", last4));
+    }
+
+    /**
+     * The one model call left: phrase the follow-up question, over the message with digits masked
+     *
+     * @param missing  what to ask for, as it reads in the prompt
+     * @param fallback the question when the model call fails
+     */
+    private ChatbotResponse<GiftCardBalanceResponse> askForCard(
+            ChatRequest request, long startTime, String missing, String fallback) {
+        GiftCardBalanceResponse data = new GiftCardBalanceResponse();
+        String masked = maskDigits(request.getMessage());
+        ChatResponse response;
+        try {
+            response = giftCardClient.prompt()
+                    .user(String.format(ASK_PROMPT, masked, missing))
+                    .call()
+                    .chatResponse();
+        } catch (Exception e) {
+            log.warn("⚠️ Gift card follow-up phrasing failed, using template: {}", e.getMessage());
+            data.setMessage(fallback);
+            return templateResponse(request, data, startTime);
+        }
+        data.setMessage(response.getResult().getOutput().getText());
+
+        long responseTime = System.currentTimeMillis() - startTime;
+        trackAnalytics(request, response, responseTime);
+        return ChatbotResponse.<GiftCardBalanceResponse>builder()
+                .data(data)
+                .tokenUsage(tokenCostCalculator.buildTokenUsage(
+                        response.getMetadata().getUsage(),
+                        response.getMetadata().getModel()))
+                .responseTimeMs(responseTime)
+                .intent(getIntentType())
+                .build();
+    }
+
+    private ChatbotResponse<GiftCardBalanceResponse> templateResponse(
+            ChatRequest request, GiftCardBalanceResponse data, long startTime) {
+        long responseTime = System.currentTimeMillis() - startTime;
+        if (!request.isBackground()) {
+            aiAnalyticsService.trackUsage(
+                    getIntentType(),
+                    getIntentType(),
+                    maskDigits(request.getMessage()),
+                    data.getMessage(),
+                    0,
+                    0,
+                    null,
+                    "TEMPLATE",
+                    true,
+                    "giftCardBalanceTool",
+                    responseTime,
+                    getIntentType(),
+                    request.getRoutedBy()
+            );
+        }
+        log.info("📊 {} - answered from template in {}ms", getIntentType(), responseTime);
+
+        return ChatbotResponse.<GiftCardBalanceResponse>builder()
+                .data(data)
+                .responseTimeMs(responseTime)
+                .intent(getIntentType())
+                .build();
+    }
+
+    /**
+     * The last four digits of the card checked, for a follow-up; the number and PIN are never kept
+     */
+    @Override
+    public void captureContext(ChatRequest request, ChatbotResponse<?> response) {
+        String cardNumber = StringUtils.isNotBlank(request.getCardNumber())
+                ? request.getCardNumber().replaceAll("[ -]", "").trim()
+                : extractCard(request.getMessage()).cardNumber();
+        if (cardNumber != null) {
+            request.setCardLast4(lastFour(cardNumber));
+        }
+    }
+
+    static CardDetails extractCard(String message) {
+        if (message == null) {
+            return new CardDetails(null, null);
+        }
+        String pin = find(PIN, message);
+        Matcher card = CARD_NUMBER.matcher(message);
+        if (!card.find()) {
+            return new CardDetails(null, pin);
+        }
+        if (pin == null) {
+            Matcher trailing = TRAILING_PIN.matcher(message).region(card.end(), message.length());
+            pin = trailing.lookingAt() ? trailing.group(1) : null;
+        }
+        return new CardDetails(card.group(1).replaceAll("[ -]", ""), pin);
+    }
+
+    private static String find(Pattern pattern, String message) {
+        Matcher matcher = pattern.matcher(message);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private static String lastFour(String cardNumber) {
+        return cardNumber.length() > 4 ? cardNumber.substring(cardNumber.length() - 4) : cardNumber;
+    }
+
+    static String maskDigits(String message) {
+        return message == null ? "" : DIGIT_RUN.matcher(message).replaceAll("#");
+    }
+
     private String buildPrompt(ChatRequest request) {
         return String.format(
                 "%s\nQuery: %s\nCall tool giftCardBalance(concept=%s,env=%s,accessToken=%s,appId=%s,cardNumber=%s,pin=%s) " +
@@ -108,6 +411,9 @@ Return JSON: {"cardNumber":"string","status":"SUCCESS|FAILED","message":"string"
     }
 
     private void trackAnalytics(ChatRequest request, ChatResponse response, long responseTime) {
+        if (request.isBackground()) {
+            return;
+        }
         var usage = response.getMetadata().getUsage();
 
         aiAnalyticsService.trackUsage(
@@ -121,7 +427,9 @@ Return JSON: {"cardNumber":"string","status":"SUCCESS|FAILED","message":"string"
                 response.getResult().getMetadata().getFinishReason(),
                 true,
                 "giftCardBalanceTool",
-                responseTime
+                responseTime,
+                getIntentType(),
+                request.getRoutedBy()
         );
 
         log.info("📊 {} - Tokens: {} (↑{} ↓{}), Time: {}ms",
@@ -2,14 +2,18 @@ package com.lmg.online.chatbot.ai.project.handler.order;
 
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.lmg.online.chatbot.ai.analytics.AiAnalyticsService;
 import com.lmg.online.chatbot.ai.analytics.ChatbotResponse;
 import com.lmg.online.chatbot.ai.analytics.TokenCostCalculator;
 import com.lmg.online.chatbot.ai.analytics.TokenUsage;
 import com.lmg.online.chatbot.ai.common.ConceptBaseUrlResolver;
+import com.lmg.online.chatbot.ai.common.MessageTemplate;
+import com.lmg.online.chatbot.ai.project.handler.CachePolicy;
 import com.lmg.online.chatbot.ai.project.handler.IntentHandler;
 import com.lmg.online.chatbot.ai.request.ChatRequest;
 import com.lmg.online.chatbot.ai.tools.order.OrderTrackingTool;
+import com.lmg.online.chatbot.ai.tools.order.dto.OrderDetail;
 import com.lmg.online.chatbot.ai.tools.order.dto.OrderResponse;
 import io.micrometer.common.util.StringUtils;
 import lombok.RequiredArgsConstructor;
@@ -17,21 +21,39 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.converter.BeanOutputConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+/**
+ * Order tracking.
+ *
+ * In the default fast path (chatbot.order.fast-path.enabled=true) the orders are fetched
+ * straight from OrderTrackingTool and chat_message is rendered from a template, so a status
+ * question costs one commerce API call and no model tokens. The model is only asked when the
+ * user puts a free-form question about a specific order number ("why is order 1234567
+ * delayed?"), and then only for a short answer over the already fetched order - never to
+ * call the tool or re-emit the order as JSON.
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class OrderTrackingIntentHandler implements IntentHandler<OrderResponse> {
 
-    private static final Pattern ORDER_PATTERN = Pattern.compile(
-            ".*\\b(order|track|delivery|shipment|status|where.*order)\\b.*",
-            Pattern.CASE_INSENSITIVE
+    private static final List<String> KEYWORDS = List.of(
+            "order", "orders", "track", "tracking", "track order", "my order", "my orders", "order status",
+            "where is my order", "when will my order", "delivery", "delivery status", "shipment", "shipped",
+            "dispatched", "status"
     );
 
+    private static final Pattern ORDER_PATTERN = IntentHandler.keywordPattern(KEYWORDS);
+
     private static final String ORDER_FORMAT = """
         Return JSON: {"chat_message":"text","customerName":"name","mobileNo":"phone",
         "orderDetailsList":[{"orderAmount":0,"orderDate":"date","orderNo":"num","orderStatus":"status",
@@ -40,6 +62,31 @@ public class OrderTrackingIntentHandler implements IntentHandler<OrderResponse>
         "returnAllow":false,"exchangeAllow":false,"exchangeDay":"days"}]}
         """;
 
+    // A specific order: a token with six or more digits, optionally prefixed (e.g. "MX1234567")
+    private static final Pattern ORDER_NUMBER = Pattern.compile("\\b[a-z]{0,4}(\\d{6,})\\b", Pattern.CASE_INSENSITIVE);
+
+    // Questions a status template cannot answer
+    private static final Pattern FREE_FORM_QUESTION = Pattern.compile(
+            "\\b(why|how|can|could|should|change|modify|cancel|return|exchange|refund|address|delay\\w*|missing|wrong|damaged)\\b",
+            Pattern.CASE_INSENSITIVE
+    );
+
+    private static final String SIGN_IN_MESSAGE =
+            "Please sign in to continue — once you're logged in, I can fetch your latest details.";
+    private static final String NO_ORDERS_MESSAGE = "I couldn't find any active orders on your account.";
+
+    private static final MessageTemplate GREETING = MessageTemplate.compile("Hi {name}! ");
+    private static final MessageTemplate SINGLE_ORDER = MessageTemplate.compile("Your order for {product} is {status}.");
+    private static final MessageTemplate MULTIPLE_ORDERS = MessageTemplate.compile(
+            "You have {count} active orders. The latest, for {product}, is {status}.");
+    private static final MessageTemplate ESTIMATED_DELIVERY = MessageTemplate.compile(" Expected delivery: {date}.");
+
+    private static final String FREE_FORM_PROMPT = """
+        Order details: %s
+        Customer question: %s
+        Answer in at most two short sentences, using only the order details above.
+        """;
+
     private static final String LOGIN_FORMAT = """
         Anonymous user, for order check please login to your account. If this message we will receive then 
         response must exact as 
@@ -51,6 +98,10 @@ public class OrderTrackingIntentHandler implements IntentHandler<OrderResponse>
     private final TokenCostCalculator tokenCostCalculator;
     private final AiAnalyticsService aiAnalyticsService;
     private final BeanOutputConverter<OrderResponse> orderOutputConverter;
+    private final ObjectMapper objectMapper;
+
+    @Value("${chatbot.order.fast-path.enabled:true}")
+    private boolean fastPathEnabled;
 
     @Override
     public ChatbotResponse<OrderResponse> handle(ChatRequest request, long startTime) {
@@ -58,6 +109,11 @@ public class OrderTrackingIntentHandler implements IntentHandler<OrderResponse>
 
         boolean isAuthenticated = isUserAuthenticated(request);
         log.info("📦 Handling ORDER_TRACKING intent for isAuthenticated {} ",isAuthenticated);
+        if (fastPathEnabled) {
+            return isAuthenticated
+                    ? handleDirectly(request, startTime)
+                    : templateResponse(request, signInResponse(), startTime);
+        }
         ChatResponse response = isAuthenticated
                 ? handleAuthenticatedRequest(request)
                 : handleUnauthenticatedRequest(request);
@@ -70,14 +126,197 @@ public class OrderTrackingIntentHandler implements IntentHandler<OrderResponse>
         return "ORDER_TRACKING";
     }
 
+    /**
+     * Order status is per user and changes quickly: a short per-user entry absorbs repeated asks
+     */
+    @Override
+    public CachePolicy getCachePolicy() {
+        return CachePolicy.cached(Duration.ofSeconds(60),
+                CachePolicy.KeyPart.USER, CachePolicy.KeyPart.CONCEPT, CachePolicy.KeyPart.ENV, CachePolicy.KeyPart.APP)
+                .withoutRefreshAhead();
+    }
+
     @Override
     public boolean canHandle(String query) {
         return ORDER_PATTERN.matcher(query.toLowerCase()).matches();
     }
 
+    @Override
+    public List<String> getKeywords() {
+        return KEYWORDS;
+    }
+
     private boolean isUserAuthenticated(ChatRequest request) {
 
-        return StringUtils.isNotEmpty(request.getUserId().trim());
+        return request.getUserId() != null && StringUtils.isNotEmpty(request.getUserId().trim());
+    }
+
+    /**
+     * Fetches the orders without the model; only a free-form question about one of them goes to the LLM
+     */
+    private ChatbotResponse<OrderResponse> handleDirectly(ChatRequest request, long startTime) {
+        OrderResponse data = orderTrackingTool.getOrderStatus(
+                request.getUserId().trim(), request.getConcept(), request.getEnv(), request.getAppid());
+        if (data == null) {
+            data = new OrderResponse();
+        }
+        if (data.getChat_message() != null) {
+            // The tool already explained a failure; flagged as an error so it is not cached
+            ChatbotResponse<OrderResponse> failed = templateResponse(request, data, startTime);
+            failed.setErrorResponse(data.getChat_message());
+            return failed;
+        }
+
+        String orderNumber = freeFormOrderNumber(request.getMessage(), request.getOrderNumber());
+        if (orderNumber != null && data.getOrderDetailsList() != null && !data.getOrderDetailsList().isEmpty()) {
+            return answerFreeForm(request, data, orderNumber, startTime);
+        }
+
+        data.setChat_message(renderStatusMessage(data));
+        return templateResponse(request, data, startTime);
+    }
+
+    /**
+     * The order number of a question about one specific order that a status template cannot
+     * answer ("why is order 1234567 delayed?"), or null when the template will do
+     */
+    static String freeFormOrderNumber(String message) {
+        if (message == null || !FREE_FORM_QUESTION.matcher(message).find()) {
+            return null;
+        }
+        Matcher matcher = ORDER_NUMBER.matcher(message);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    /**
+     * Same, falling back to the order the conversation is about when the question names none
+     * ("why is it late?")
+     */
+    static String freeFormOrderNumber(String message, String sessionOrderNumber) {
+        String named = freeFormOrderNumber(message);
+        if (named != null || sessionOrderNumber == null || message == null
+                || !FREE_FORM_QUESTION.matcher(message).find()) {
+            return named;
+        }
+        return ORDER_NUMBER.matcher(message).find() ? null : sessionOrderNumber;
+    }
+
+    /**
+     * The order a follow-up may refer to: the one the message names, else the only order shown
+     */
+    @Override
+    public void captureContext(ChatRequest request, ChatbotResponse<?> response) {
+        Matcher named = ORDER_NUMBER.matcher(Objects.toString(request.getMessage(), ""));
+        if (named.find()) {
+            request.setOrderNumber(named.group(1));
+        } else if (response.getData() instanceof OrderResponse data && data.getOrderDetailsList() != null
+                && data.getOrderDetailsList().size() == 1
+                && StringUtils.isNotBlank(data.getOrderDetailsList().get(0).getOrderNo())) {
+            request.setOrderNumber(data.getOrderDetailsList().get(0).getOrderNo().trim());
+        }
+    }
+
+    static String renderStatusMessage(OrderResponse data) {
+        StringBuilder message = new StringBuilder(128);
+        if (StringUtils.isNotBlank(data.getCustomerName())) {
+            GREETING.appendTo(message, Map.of("name", data.getCustomerName().trim()));
+        }
+        List<OrderDetail> orders = data.getOrderDetailsList();
+        if (orders == null || orders.isEmpty()) {
+            return message.append(NO_ORDERS_MESSAGE).toString();
+        }
+
+        OrderDetail latest = orders.get(0);
+        Map<String, Object> values = Map.of(
+                "count", orders.size(),
+                "product", firstNonBlank(latest.getProductName(), "your items"),
+                "status", firstNonBlank(latest.getLatestStatus(), latest.getOrderStatus(), "being processed"));
+        (orders.size() == 1 ? SINGLE_ORDER : MULTIPLE_ORDERS).appendTo(message, values);
+        if (StringUtils.isNotBlank(latest.getEstmtDate())) {
+            ESTIMATED_DELIVERY.appendTo(message, Map.of("date", latest.getEstmtDate().trim()));
+        }
+        return message.toString();
+    }
+
+    /**
+     * One short completion over the fetched order: no tool call and no JSON to re-emit
+     */
+    private ChatbotResponse<OrderResponse> answerFreeForm(ChatRequest request, OrderResponse data,
+                                                          String orderNumber, long startTime) {
+        List<OrderDetail> matching = data.getOrderDetailsList().stream()
+                .filter(order -> order.getOrderNo() != null && order.getOrderNo().contains(orderNumber))
+                .toList();
+        List<OrderDetail> context = matching.isEmpty() ? data.getOrderDetailsList() : matching;
+
+        String orderJson;
+        try {
+            orderJson = objectMapper.writeValueAsString(context);
+        } catch (Exception e) {
+            log.warn("⚠️ Could not serialise order {} for the model: {}", orderNumber, e.getMessage());
+            data.setChat_message(renderStatusMessage(data));
+            return templateResponse(request, data, startTime);
+        }
+
+        ChatResponse response = orderTrackClient.prompt()
+                .user(String.format(FREE_FORM_PROMPT, orderJson, request.getMessage()))
+                .call()
+                .chatResponse();
+        data.setChat_message(response.getResult().getOutput().getText());
+
+        long responseTime = System.currentTimeMillis() - startTime;
+        trackAnalytics(request, data, response, responseTime);
+        return ChatbotResponse.<OrderResponse>builder()
+                .data(data)
+                .tokenUsage(tokenCostCalculator.buildTokenUsage(
+                        response.getMetadata().getUsage(),
+                        response.getMetadata().getModel()))
+                .responseTimeMs(responseTime)
+                .intent(getIntentType())
+                .build();
+    }
+
+    private ChatbotResponse<OrderResponse> templateResponse(ChatRequest request, OrderResponse data, long startTime) {
+        long responseTime = System.currentTimeMillis() - startTime;
+        if (!request.isBackground()) {
+            aiAnalyticsService.trackUsage(
+                    data.getCustomerName(),
+                    data.getMobileNo(),
+                    request.getMessage(),
+                    data.getChat_message(),
+                    0,
+                    0,
+                    null,
+                    "TEMPLATE",
+                    true,
+                    "orderTrackingTool",
+                    responseTime,
+                    getIntentType(),
+                    request.getRoutedBy()
+            );
+        }
+        log.info("📊 {} - answered from template in {}ms", getIntentType(), responseTime);
+
+        return ChatbotResponse.<OrderResponse>builder()
+                .data(data)
+                .responseTimeMs(responseTime)
+                .intent(getIntentType())
+                .build();
+    }
+
+    private static OrderResponse signInResponse() {
+        OrderResponse response = new OrderResponse();
+        response.setChat_message(SIGN_IN_MESSAGE);
+        response.setOrderDetailsList(List.of());
+        return response;
+    }
+
+    private static String firstNonBlank(String... values) {
+        for (String value : values) {
+            if (StringUtils.isNotBlank(value)) {
+                return value.trim();
+            }
+        }
+        return "";
     }
 
     private ChatResponse handleAuthenticatedRequest(ChatRequest request) {
@@ -140,6 +379,9 @@ public class OrderTrackingIntentHandler implements IntentHandler<OrderResponse>
 
     private void trackAnalytics(ChatRequest request, OrderResponse data,
                                 ChatResponse response, long responseTime) {
+        if (request.isBackground()) {
+            return;
+        }
         var usage = response.getMetadata().getUsage();
 
         aiAnalyticsService.trackUsage(
@@ -153,7 +395,9 @@ public class OrderTrackingIntentHandler implements IntentHandler<OrderResponse>
                 response.getResult().getMetadata().getFinishReason(),
                 true,
                 "orderTrackingTool",
-                responseTime
+                responseTime,
+                getIntentType(),
+                request.getRoutedBy()
         );
 
         log.info("📊 {} - Tokens: {} (↑{} ↓{}), Time: {}ms",
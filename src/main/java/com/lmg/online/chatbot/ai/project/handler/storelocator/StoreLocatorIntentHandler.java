@@ -4,44 +4,108 @@ import com.lmg.online.chatbot.ai.analytics.AiAnalyticsService;
 import com.lmg.online.chatbot.ai.analytics.ChatbotResponse;
 import com.lmg.online.chatbot.ai.analytics.TokenCostCalculator;
 import com.lmg.online.chatbot.ai.analytics.TokenUsage;
+import com.lmg.online.chatbot.ai.common.FollowUpCues;
+import com.lmg.online.chatbot.ai.common.MessageTemplate;
+import com.lmg.online.chatbot.ai.project.handler.CachePolicy;
 import com.lmg.online.chatbot.ai.project.handler.IntentHandler;
 import com.lmg.online.chatbot.ai.request.ChatRequest;
+import com.lmg.online.chatbot.ai.tools.storelocator.StoreCatalog;
+import com.lmg.online.chatbot.ai.tools.storelocator.StoreCatalogService;
 import com.lmg.online.chatbot.ai.tools.storelocator.StoreLocatorTool;
 import com.lmg.online.chatbot.ai.tools.storelocator.dto.StoreList;
+import com.lmg.online.chatbot.ai.tools.storelocator.dto.StoreView;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.converter.BeanOutputConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
+/**
+ * Store locator.
+ *
+ * With chatbot.store.catalog.enabled=true (the default) the nearest stores come from
+ * StoreCatalogService's in-memory spatial index instead of a tool call, so the model never
+ * sees or re-emits the store list. It only phrases chat_message over the closest few stores
+ * (chatbot.store.phrase-with-llm), and a template covers that too when it is switched off
+ * or the call fails.
+ *
+ * A message naming a city, pincode, mall or store ("stores in Pune", "Max near 560037") is
+ * answered from the catalog's text index first, so it needs no coordinates. Without a place
+ * name and without coordinates (apps send 0,0), the user is asked for one rather than shown
+ * distances from 0,0.
+ *
+ * A session follow-up pointing at a store already shown ("where is the second one?") is
+ * answered from the session's store list without a new search.
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class StoreLocatorIntentHandler implements IntentHandler<StoreList> {
 
-    private static final Pattern STORE_PATTERN = Pattern.compile(
-            ".*\\b(store|shop|outlet|location|branch|nearest|nearby|address|find store)\\b.*",
-            Pattern.CASE_INSENSITIVE
+    private static final List<String> KEYWORDS = List.of(
+            "store", "stores", "shop", "shops", "outlet", "outlets", "location", "locations", "branch",
+            "branches", "nearest", "nearby", "near by", "near", "near me", "address", "mall", "malls",
+            "find store", "nearest store", "store near me", "stores in", "pincode"
     );
 
+    private static final Pattern STORE_PATTERN = IntentHandler.keywordPattern(KEYWORDS);
+
     private static final String STORE_FORMAT = """
         Return JSON: {"stores":[{"storeId":"id","storeName":"name","city":"city","address":"addr",
         "contactNumber":"num","workingHours":"hrs","latitude":0.0,"longitude":0.0,"distance":0.0,
         "line1":"l1","line2":"l2","postalCode":"code"}]}
         """;
 
+    private static final int NEAREST_LIMIT = 10;
+    private static final int PHRASED_STORES = 3;
+
+    private static final MessageTemplate NEAREST_STORE = MessageTemplate.compile(
+            "The nearest store is {name} in {city}, {distance} km away.");
+    private static final MessageTemplate MATCHING_STORE = MessageTemplate.compile(
+            "{name} in {city} is {distance} km away.");
+    private static final MessageTemplate STORE_ADDRESS = MessageTemplate.compile("{name} in {city} is at {address}.");
+    private static final MessageTemplate MORE_STORES = MessageTemplate.compile(
+            " I found {count} more stores nearby.");
+    private static final MessageTemplate MORE_MATCHING = MessageTemplate.compile(
+            " I found {count} more matching stores.");
+    private static final String NO_STORES_MESSAGE = "I couldn't find any stores near your location.";
+    private static final String ASK_FOR_PLACE_MESSAGE =
+            "Tell me your city, pincode or mall and I'll find the stores closest to you.";
+
+    private static final String PHRASE_PROMPT = """
+        Stores, best match first: %s
+        Customer message: %s
+        Reply in one or two friendly sentences naming the first store and where it is. Plain text only.
+        """;
+
     private final ChatClient storeLocatorClient;
     private final StoreLocatorTool storeLocatorTool;
     private final TokenCostCalculator tokenCostCalculator;
     private final AiAnalyticsService aiAnalyticsService;
     private final BeanOutputConverter<StoreList> storeLocatorConverter;
+    private final StoreCatalogService storeCatalogService;
+
+    @Value("${chatbot.store.catalog.enabled:true}")
+    private boolean catalogEnabled;
+
+    @Value("${chatbot.store.phrase-with-llm:true}")
+    private boolean phraseWithLlm;
 
     @Override
     public ChatbotResponse<StoreList> handle(ChatRequest request, long startTime) {
         log.info("🏪 Handling STORE_LOCATOR intent");
+        if (catalogEnabled) {
+            return handleFromCatalog(request, startTime);
+        }
 
         String prompt = buildPrompt(request);
         ChatResponse response = storeLocatorClient.prompt()
@@ -58,11 +122,179 @@ public class StoreLocatorIntentHandler implements IntentHandler<StoreList> {
         return "STORE_LOCATOR";
     }
 
+    /**
+     * Store results depend on the concept, the app's catalog and where the user is (geohash
+     * cell), not on who asks
+     */
+    @Override
+    public CachePolicy getCachePolicy() {
+        return CachePolicy.cached(Duration.ofHours(6), CachePolicy.KeyPart.CONCEPT,
+                CachePolicy.KeyPart.LOCATION, CachePolicy.KeyPart.ENV, CachePolicy.KeyPart.APP);
+    }
+
     @Override
     public boolean canHandle(String query) {
         return STORE_PATTERN.matcher(query.toLowerCase()).matches();
     }
 
+    @Override
+    public List<String> getKeywords() {
+        return KEYWORDS;
+    }
+
+    /**
+     * Stores from the in-memory catalog, by place name or else by distance; the model at most
+     * phrases the reply
+     */
+    private ChatbotResponse<StoreList> handleFromCatalog(ChatRequest request, long startTime) {
+        StoreView shown = pickShown(request.getMessage(), request.getLastStores());
+        if (shown != null) {
+            // The whole list stays, so the next ordinal still points at the same stores
+            StoreList data = new StoreList(request.getLastStores(), renderMessage(List.of(shown), false, false));
+            return templateResponse(request, data, startTime);
+        }
+
+        boolean located = StoreCatalog.isLocated(request.getLatitude(), request.getLongitude());
+        StoreList data = storeCatalogService.search(request.getConcept(), request.getEnv(), request.getAppid(),
+                request.getMessage(), request.getLatitude(), request.getLongitude(), NEAREST_LIMIT);
+        boolean byPlace = !data.getStores().isEmpty();
+        if (!byPlace) {
+            if (!located) {
+                data.setChat_message(ASK_FOR_PLACE_MESSAGE);
+                return templateResponse(request, data, startTime);
+            }
+            data = storeCatalogService.nearest(request.getConcept(), request.getEnv(), request.getAppid(),
+                    request.getLatitude(), request.getLongitude(), NEAREST_LIMIT);
+        }
+        List<StoreView> stores = data.getStores();
+
+        if (stores.isEmpty() || !phraseWithLlm) {
+            data.setChat_message(renderMessage(stores, byPlace, located));
+            return templateResponse(request, data, startTime);
+        }
+
+        ChatResponse response;
+        try {
+            response = storeLocatorClient.prompt()
+                    .user(String.format(PHRASE_PROMPT, describe(stores, located), request.getMessage()))
+                    .call()
+                    .chatResponse();
+        } catch (Exception e) {
+            log.warn("⚠️ Store reply phrasing failed, using template: {}", e.getMessage());
+            data.setChat_message(renderMessage(stores, byPlace, located));
+            return templateResponse(request, data, startTime);
+        }
+        data.setChat_message(response.getResult().getOutput().getText());
+
+        long responseTime = System.currentTimeMillis() - startTime;
+        trackAnalytics(request, response, responseTime);
+        return ChatbotResponse.<StoreList>builder()
+                .data(data)
+                .tokenUsage(tokenCostCalculator.buildTokenUsage(
+                        response.getMetadata().getUsage(),
+                        response.getMetadata().getModel()))
+                .responseTimeMs(responseTime)
+                .intent(getIntentType())
+                .build();
+    }
+
+    /**
+     * Store of the previous answer an ordinal in the message points at, or null
+     */
+    static StoreView pickShown(String message, List<StoreView> shown) {
+        if (shown == null || shown.isEmpty()) {
+            return null;
+        }
+        int index = FollowUpCues.ordinalIndex(message, shown.size());
+        return index >= 0 ? shown.get(index) : null;
+    }
+
+    /**
+     * The stores a follow-up may point at, best first
+     */
+    @Override
+    public void captureContext(ChatRequest request, ChatbotResponse<?> response) {
+        if (response.getData() instanceof StoreList data && data.getStores() != null && !data.getStores().isEmpty()) {
+            request.setLastStores(List.copyOf(data.getStores()));
+        }
+    }
+
+    private static String renderMessage(List<StoreView> stores, boolean byPlace, boolean located) {
+        if (stores.isEmpty()) {
+            return NO_STORES_MESSAGE;
+        }
+        StoreView first = stores.get(0);
+        Map<String, Object> values = Map.of(
+                "name", firstNonBlank(first.getStoreName(), "Our store"),
+                "city", firstNonBlank(first.getCity(), "your area"),
+                "address", firstNonBlank(first.getAddress(), first.getLine1(), first.getPostalCode(), "the mall"),
+                "distance", formatKm(first.getDistance()));
+        // Stores without coordinates are only found by place name and have no distance
+        boolean withDistance = located && hasCoordinates(first);
+        MessageTemplate template = !withDistance ? STORE_ADDRESS : byPlace ? MATCHING_STORE : NEAREST_STORE;
+        StringBuilder message = template.appendTo(new StringBuilder(96), values);
+        if (stores.size() > 1) {
+            (byPlace ? MORE_MATCHING : MORE_STORES).appendTo(message, Map.of("count", stores.size() - 1));
+        }
+        return message.toString();
+    }
+
+    /**
+     * One line per store: just what the model needs to phrase the reply
+     */
+    private static String describe(List<StoreView> stores, boolean located) {
+        return stores.stream()
+                .limit(PHRASED_STORES)
+                .map(store -> store.getStoreName() + ", " + store.getCity() + ", "
+                        + (located && hasCoordinates(store) ? formatKm(store.getDistance()) + " km" : store.getAddress()))
+                .collect(Collectors.joining("; "));
+    }
+
+    private static boolean hasCoordinates(StoreView store) {
+        return StoreCatalog.isLocated(store.getLatitude(), store.getLongitude());
+    }
+
+    private static String firstNonBlank(String... values) {
+        for (String value : values) {
+            if (value != null && !value.isBlank()) {
+                return value.trim();
+            }
+        }
+        return "";
+    }
+
+    private static String formatKm(double distance) {
+        return String.format(Locale.ROOT, "%.1f", distance);
+    }
+
+    private ChatbotResponse<StoreList> templateResponse(ChatRequest request, StoreList data, long startTime) {
+        long responseTime = System.currentTimeMillis() - startTime;
+        if (!request.isBackground()) {
+            aiAnalyticsService.trackUsage(
+                    null,
+                    null,
+                    request.getMessage(),
+                    data.getChat_message(),
+                    0,
+                    0,
+                    null,
+                    "TEMPLATE",
+                    true,
+                    "storeLocatorTool",
+                    responseTime,
+                    getIntentType(),
+                    request.getRoutedBy()
+            );
+        }
+        log.info("📊 {} - answered from store catalog in {}ms", getIntentType(), responseTime);
+
+        return ChatbotResponse.<StoreList>builder()
+                .data(data)
+                .responseTimeMs(responseTime)
+                .intent(getIntentType())
+                .build();
+    }
+
     private String buildPrompt(ChatRequest request) {
         return String.format(
                 """
@@ -105,6 +337,9 @@ public class StoreLocatorIntentHandler implements IntentHandler<StoreList> {
     }
 
     private void trackAnalytics(ChatRequest request, ChatResponse response, long responseTime) {
+        if (request.isBackground()) {
+            return;
+        }
         var usage = response.getMetadata().getUsage();
 
         aiAnalyticsService.trackUsage(
@@ -118,7 +353,9 @@ public class StoreLocatorIntentHandler implements IntentHandler<StoreList> {
                 response.getResult().getMetadata().getFinishReason(),
                 true,
                 "storeLocatorTool",
-                responseTime
+                responseTime,
+                getIntentType(),
+                request.getRoutedBy()
         );
 
         log.info("📊 {} - Tokens: {} (↑{} ↓{}), Time: {}ms",
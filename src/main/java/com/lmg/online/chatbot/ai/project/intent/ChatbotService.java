@@ -1,43 +1,108 @@
 package com.lmg.online.chatbot.ai.project.intent;
 
 import com.lmg.online.chatbot.ai.analytics.ChatbotResponse;
+import com.lmg.online.chatbot.ai.analytics.ChatbotResponsePart;
+import com.lmg.online.chatbot.ai.analytics.TokenUsage;
+import com.lmg.online.chatbot.ai.common.SingleFlight;
+import com.lmg.online.chatbot.ai.common.TimedTasks;
+import com.lmg.online.chatbot.ai.project.cache.CacheKeys;
+import com.lmg.online.chatbot.ai.project.cache.CacheTagIndex;
+import com.lmg.online.chatbot.ai.project.cache.JitteredExpiry;
+import com.lmg.online.chatbot.ai.project.cache.RefreshAheadScheduler;
+import com.lmg.online.chatbot.ai.project.cache.TwoTierCache;
+import com.lmg.online.chatbot.ai.project.config.CacheSpecProperties;
+import com.lmg.online.chatbot.ai.project.doc.vector.PolicyDocumentsChangedEvent;
+import com.lmg.online.chatbot.ai.project.handler.CachePolicy;
 import com.lmg.online.chatbot.ai.project.handler.IntentHandler;
 import com.lmg.online.chatbot.ai.project.handler.general.GeneralQueryIntentHandler;
 import com.lmg.online.chatbot.ai.request.ChatRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Service;
-import org.springframework.util.DigestUtils;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * Main entry point with caching - Routes user query to appropriate handler
+ *
+ * The intent is resolved (locally where possible) before the response cache is consulted,
+ * because each handler's CachePolicy decides the key, the TTL and whether to cache at all.
+ * Every cached answer is tagged with its concept, intent(s), user and source documents in
+ * the CacheTagIndex, so a document change or a user's logout evicts only the entries it affects.
  */
 @Service
 @Slf4j
 public class ChatbotService {
 
-    private final IntentClassifier intentClassifier;
+    private static final String RESPONSE_CACHE = "chatbotResponses";
+    private static final String POLICY_INTENT = "POLICY_QUESTION";
+
+    private final TieredIntentRouter intentRouter;
+    private final ClassifyAndAnswerService classifyAndAnswerService;
+    private final SpellingCorrector spellingCorrector;
+    private final MultiIntentDecomposer multiIntentDecomposer;
+    private final SessionIntentStore sessionIntentStore;
+    private final AsyncTaskExecutor fanOutExecutor;
+    private final long fanOutTimeoutMs;
+    private final long coalesceWaitTimeoutMs;
     private final Map<String, IntentHandler<?>> intentHandlers;
     private final GeneralQueryIntentHandler generalQueryHandler;
     private final CacheManager cacheManager;
+    private final RefreshAheadScheduler refreshAheadScheduler;
+    private final CacheSpecProperties cacheSpecs;
+    private final CacheTagIndex tagIndex;
+    private final SingleFlight<String, ChatbotResponse<?>> responseFlight = new SingleFlight<>();
+
+    /**
+     * Computes the answer to a request, timing it from startTime
+     */
+    @FunctionalInterface
+    private interface ResponseComputation {
+        ChatbotResponse<?> apply(ChatRequest request, long startTime);
+    }
 
     @Autowired
     public ChatbotService(
-            IntentClassifier intentClassifier,
+            TieredIntentRouter intentRouter,
+            ClassifyAndAnswerService classifyAndAnswerService,
+            SpellingCorrector spellingCorrector,
+            MultiIntentDecomposer multiIntentDecomposer,
+            SessionIntentStore sessionIntentStore,
+            @Qualifier("intentFanOutExecutor") AsyncTaskExecutor fanOutExecutor,
+            @Value("${chatbot.fanout.timeout-ms:30000}") long fanOutTimeoutMs,
+            @Value("${chatbot.response.coalesce.wait-timeout-ms:15000}") long coalesceWaitTimeoutMs,
             List<IntentHandler<?>> handlers,
             GeneralQueryIntentHandler generalQueryHandler,
-            CacheManager cacheManager
+            CacheManager cacheManager,
+            RefreshAheadScheduler refreshAheadScheduler,
+            CacheSpecProperties cacheSpecs,
+            CacheTagIndex tagIndex
     ) {
-        this.intentClassifier = intentClassifier;
+        this.intentRouter = intentRouter;
+        this.classifyAndAnswerService = classifyAndAnswerService;
+        this.spellingCorrector = spellingCorrector;
+        this.multiIntentDecomposer = multiIntentDecomposer;
+        this.sessionIntentStore = sessionIntentStore;
+        this.fanOutExecutor = fanOutExecutor;
+        this.fanOutTimeoutMs = fanOutTimeoutMs;
+        this.coalesceWaitTimeoutMs = coalesceWaitTimeoutMs;
         this.intentHandlers = handlers.stream()
                 .collect(Collectors.toMap(
                         IntentHandler::getIntentType,
@@ -45,6 +110,9 @@ public class ChatbotService {
                 ));
         this.generalQueryHandler = generalQueryHandler;
         this.cacheManager = cacheManager;
+        this.refreshAheadScheduler = refreshAheadScheduler;
+        this.cacheSpecs = cacheSpecs;
+        this.tagIndex = tagIndex;
     }
 
     /**
@@ -57,37 +125,56 @@ public class ChatbotService {
         log.info("📨 Processing query: {}", query);
 
         try {
-            // Step 0: Check if response is cached (for cacheable queries)
-            ChatbotResponse<?> cachedResponse = getCachedResponse(request);
-            if (cachedResponse != null) {
-                log.info("✅ Cache hit for query: {}", query);
-                return enrichResponseWithCacheInfo(cachedResponse, startTime, true);
+            // Typo-corrected form drives routing only; handlers and cache keys see the original
+            SpellingCorrector.CorrectedQuery corrected = spellingCorrector.correct(query);
+            String routingQuery = corrected.text();
+
+            // Follow-up turn in a live session: straight back to the session's handler, skipping
+            // classification and the shared response cache (the answer depends on the conversation)
+            IntentMatch sessionMatch = sessionIntentStore.matchFollowUp(request, routingQuery);
+            if (sessionMatch != null) {
+                sessionIntentStore.applyParameters(request);
+                request.setRoutedBy(sessionMatch.tier().name());
+                IntentHandler<?> handler = intentHandlers.getOrDefault(sessionMatch.intent(), generalQueryHandler);
+                log.info("🎯 Routing follow-up to handler: {}", handler.getIntentType());
+                ChatbotResponse<?> response = handler.handle(request, startTime);
+                rememberSession(request, handler, response);
+                return enrichResponseWithCacheInfo(response, startTime, false);
             }
 
-            log.info("❌ Cache miss for query: {}", query);
-
-            // Step 1: Try pattern-based routing first (fast path)
-            IntentHandler<?> handler = null;
-
-            // Step 2: If no pattern match, use AI classifier (with caching)
-            if (handler == null) {
-                String intentType = getIntentWithCache(query);
-                handler = intentHandlers.get(intentType);
+            // Compound request: one handler per intent, run concurrently; cacheable only if every part is
+            List<MultiIntentDecomposer.SubQuery> parts = multiIntentDecomposer.decompose(query);
+            if (parts.size() > 1) {
+                CachePolicy policy = parts.stream()
+                        .map(part -> handlerFor(part.intent()).getCachePolicy())
+                        .reduce(CachePolicy::combine)
+                        .orElse(CachePolicy.none());
+                return cachedOrHandle(request, "MULTI_INTENT", policy, startTime,
+                        (req, started) -> handleCompoundQuery(req, parts, started));
+            }
 
-                if (handler == null) {
-                    log.warn("⚠️ No handler found for intent: {}, using general handler", intentType);
-                    handler = generalQueryHandler;
+            // Step 1: Local tiers (keyword, intent cache, n-gram) - the intent decides how the answer is cached
+            IntentMatch match = intentRouter.routeLocally(routingQuery);
+            if (match != null) {
+                if (corrected.changed() && match.tier() == IntentTier.KEYWORD
+                        && intentRouter.matchKeyword(query) == null) {
+                    spellingCorrector.recordKeywordRescue();
                 }
+                request.setRoutedBy(match.tier().name());
+                IntentHandler<?> handler = handlerFor(match.intent());
+                return cachedOrHandle(request, handler.getIntentType(),
+                        handler.getCachePolicy(), startTime, (req, started) -> handle(handler, req, started));
             }
 
-            // Step 3: Execute the handler
-            log.info("🎯 Routing to handler: {}", handler.getIntentType());
-            ChatbotResponse<?> response = handler.handle(request, startTime);
-
-            // Step 4: Cache the response if eligible
-            cacheResponseIfEligible(request, response);
-
-            return enrichResponseWithCacheInfo(response, startTime, false);
+            // Step 2: Only an LLM can place the query; identical ones arriving together share the call
+            if (!isCacheable(request)) {
+                return routeRemotely(request, routingQuery, startTime);
+            }
+            SingleFlight.Result<ChatbotResponse<?>> flight = responseFlight.execute(
+                    CacheKeys.forRequest(request, query),
+                    () -> routeRemotely(request, routingQuery, startTime),
+                    coalesceWaitTimeoutMs);
+            return flight.shared() ? coalesced(request, flight.value(), startTime) : flight.value();
 
         } catch (Exception e) {
             log.error("❌ Error processing query: {}", query, e);
@@ -96,101 +183,336 @@ public class ChatbotService {
     }
 
     /**
-     * Get intent classification with caching
+     * Serves the answer from "chatbotResponses" under the intent's cache policy, or computes
+     * and stores it. Identical misses arriving together share one computation; a caller waits
+     * at most chatbot.response.coalesce.wait-timeout-ms on it before computing its own.
      */
-    @Cacheable(value = "intentClassifications", key = "#query", unless = "#result == null")
-    private String getIntentWithCache(String query) {
-        log.info("🔍 Classifying intent for: {}", query);
-        return intentClassifier.classify(query);
+    private ChatbotResponse<?> cachedOrHandle(ChatRequest request, String intent, CachePolicy policy,
+                                              long startTime, ResponseComputation compute) {
+        Cache cache = cacheManager.getCache(RESPONSE_CACHE);
+        if (cache == null || !isCacheable(request) || !policy.appliesTo(request)) {
+            return enrichResponseWithCacheInfo(compute.apply(request, startTime), startTime, false);
+        }
+
+        // Step 2: Check if response is cached under the policy's key
+        String cacheKey = CacheKeys.forRequest(request, request.getMessage(), intent, policy);
+        Cache.ValueWrapper wrapper = cache.get(cacheKey);
+        if (wrapper != null && wrapper.get() instanceof ChatbotResponse<?> cachedResponse) {
+            log.info("✅ Cache hit for query: {}", request.getMessage());
+            rememberShared(request, cachedResponse);
+            if (policy.refreshAhead()) {
+                scheduleRefreshAhead(request, cache, cacheKey, policy, compute);
+            }
+            return enrichResponseWithCacheInfo(cachedResponse, startTime, true);
+        }
+
+        log.info("❌ Cache miss for query: {}", request.getMessage());
+
+        // Step 3: Execute the handler and cache the response
+        SingleFlight.Result<ChatbotResponse<?>> flight = responseFlight.execute(cacheKey, () -> {
+            ChatbotResponse<?> response = compute.apply(request, startTime);
+            store(request, cache, cacheKey, response, policy);
+            return response;
+        }, coalesceWaitTimeoutMs);
+        if (flight.shared()) {
+            return coalesced(request, flight.value(), startTime);
+        }
+        return enrichResponseWithCacheInfo(flight.value(), startTime, false);
     }
 
     /**
-     * Get cached response if available
+     * LLM routing for a query the local tiers could not place; the answer is cached under
+     * the resolved intent's policy, so the next identical query is served from the cache
      */
-    private ChatbotResponse<?> getCachedResponse(ChatRequest request) {
-        if (!isCacheable(request)) {
-            return null;
+    private ChatbotResponse<?> routeRemotely(ChatRequest request, String routingQuery, long startTime) {
+        IntentMatch match = null;
+        if (classifyAndAnswerService.isEnabledFor(request.getConcept())) {
+            // One LLM call both classifies and answers
+            ClassifyAndAnswerService.Result combined =
+                    classifyAndAnswerService.classifyAndAnswer(request, routingQuery, startTime);
+            if (combined != null && combined.response() != null) {
+                IntentHandler<?> handler = handlerFor(combined.match().intent());
+                rememberSession(request, handler, combined.response());
+                storeUnderPolicy(request, handler, combined.response());
+                return enrichResponseWithCacheInfo(combined.response(), startTime, false);
+            }
+            match = combined != null ? combined.match() : null;
         }
+        if (match == null) {
+            match = intentRouter.routeRemotely(routingQuery);
+        }
+        request.setRoutedBy(match.tier().name());
 
-        Cache cache = cacheManager.getCache("chatbotResponses");
-        if (cache != null) {
-            String cacheKey = generateCacheKey(request);
-            Cache.ValueWrapper wrapper = cache.get(cacheKey);
-            if (wrapper != null) {
-                return (ChatbotResponse<?>) wrapper.get();
-            }
+        IntentHandler<?> handler = handlerFor(match.intent());
+        ChatbotResponse<?> response = handle(handler, request, startTime);
+        storeUnderPolicy(request, handler, response);
+        return enrichResponseWithCacheInfo(response, startTime, false);
+    }
+
+    private IntentHandler<?> handlerFor(String intent) {
+        IntentHandler<?> handler = intentHandlers.get(intent);
+        if (handler == null) {
+            log.warn("⚠️ No handler found for intent: {}, using general handler", intent);
+            return generalQueryHandler;
         }
-        return null;
+        return handler;
+    }
+
+    private ChatbotResponse<?> handle(IntentHandler<?> handler, ChatRequest request, long startTime) {
+        log.info("🎯 Routing to handler: {}", handler.getIntentType());
+        ChatbotResponse<?> response = handler.handle(request, startTime);
+        rememberSession(request, handler, response);
+        return response;
     }
 
     /**
-     * Cache response if eligible
+     * Keeps the intent, and what the answer referred to, for the session's next follow-up
      */
-    private void cacheResponseIfEligible(ChatRequest request, ChatbotResponse<?> response) {
-        if (!isCacheable(request) || response == null) {
-            return;
-        }
+    private void rememberSession(ChatRequest request, IntentHandler<?> handler, ChatbotResponse<?> response) {
+        handler.captureContext(request, response);
+        sessionIntentStore.remember(request, handler.getIntentType());
+    }
 
-        Cache cache = cacheManager.getCache("chatbotResponses");
-        if (cache != null) {
-            String cacheKey = generateCacheKey(request);
-            cache.put(cacheKey, response);
-            log.info("💾 Cached response for key: {}", cacheKey);
+    /**
+     * Same for an answer this request did not compute (cache hit, coalesced); compound answers are skipped
+     */
+    private void rememberShared(ChatRequest request, ChatbotResponse<?> response) {
+        IntentHandler<?> handler = intentHandlers.get(response.getIntent());
+        if (handler != null) {
+            rememberSession(request, handler, response);
         }
     }
 
     /**
-     * Determine if request is cacheable
+     * Response computed by another caller's identical request
      */
-    private boolean isCacheable(ChatRequest request) {
-        // Don't cache queries with sensitive information
-        if (request.getCardNumber() != null || request.getPin() != null) {
-            return false;
-        }
+    private ChatbotResponse<?> coalesced(ChatRequest request, ChatbotResponse<?> response, long startTime) {
+        log.info("🔗 Coalesced with an in-flight request for query: {}", request.getMessage());
+        ChatbotResponse<?> shared = copyOf(response);
+        rememberShared(request, shared);
+        shared.getMetadata().put("coalesced", true);
+        return enrichResponseWithCacheInfo(shared, startTime, false);
+    }
 
-        // Don't cache if previous response is provided (conversational context)
-        if (request.getPreviousResponse() != null) {
-            return false;
+    /**
+     * Copy of a response shared with a coalesced caller, with its own metadata map
+     */
+    private static <T> ChatbotResponse<T> copyOf(ChatbotResponse<T> response) {
+        return ChatbotResponse.<T>builder()
+                .data(response.getData())
+                .tokenUsage(response.getTokenUsage())
+                .responseTimeMs(response.getResponseTimeMs())
+                .intent(response.getIntent())
+                .links(response.getLinks())
+                .metadata(response.getMetadata() != null ? new HashMap<>(response.getMetadata()) : new HashMap<>())
+                .errorResponse(response.getErrorResponse())
+                .success(response.isSuccess())
+                .build();
+    }
+
+    /**
+     * In-flight response computations and how many callers were coalesced onto them
+     */
+    public Map<String, Object> getCoalescingStats() {
+        return responseFlight.snapshot();
+    }
+
+    /**
+     * Fans the sub-queries out to their handlers and merges the answers into one response.
+     * Wall-clock time is that of the slowest branch.
+     */
+    private ChatbotResponse<List<ChatbotResponsePart>> handleCompoundQuery(
+            ChatRequest request, List<MultiIntentDecomposer.SubQuery> parts, long startTime) {
+
+        // A branch that is rejected by a full pool or times out (and is cancelled) becomes a failed part
+        List<CompletableFuture<ChatbotResponsePart>> futures = parts.stream()
+                .map(part -> TimedTasks
+                        .supplyAsync(() -> handlePart(request, part), fanOutExecutor, fanOutTimeoutMs)
+                        .exceptionally(e -> failedPart(part, e)))
+                .toList();
+
+        List<ChatbotResponsePart> answers = futures.stream()
+                .map(CompletableFuture::join)
+                .toList();
+
+        List<TokenUsage> usages = new ArrayList<>();
+        for (ChatbotResponsePart answer : answers) {
+            if (answer.getTokenUsage() != null) {
+                usages.add(answer.getTokenUsage());
+            }
         }
 
-        // Don't cache time-sensitive queries
-        String message = request.getMessage().toLowerCase();
-        if (message.contains("now") || message.contains("current") ||
-                message.contains("today") || message.contains("latest")) {
-            return false;
+        return ChatbotResponse.<List<ChatbotResponsePart>>builder()
+                .data(answers)
+                .tokenUsage(sumTokenUsage(usages))
+                .responseTimeMs(System.currentTimeMillis() - startTime)
+                .intent("MULTI_INTENT")
+                .success(answers.stream().allMatch(ChatbotResponsePart::isSuccess))
+                .build();
+    }
+
+    private ChatbotResponsePart handlePart(ChatRequest request, MultiIntentDecomposer.SubQuery part) {
+        IntentHandler<?> handler = intentHandlers.getOrDefault(part.intent(), generalQueryHandler);
+        log.info("🎯 Routing part '{}' to handler: {}", part.text(), handler.getIntentType());
+
+        ChatbotResponse<?> response = handler.handle(request.withMessage(part.text()), System.currentTimeMillis());
+        return ChatbotResponsePart.builder()
+                .intent(handler.getIntentType())
+                .query(part.text())
+                .data(response.getData())
+                .tokenUsage(response.getTokenUsage())
+                .responseTimeMs(response.getResponseTimeMs())
+                .errorResponse(response.getErrorResponse())
+                .success(response.getErrorResponse() == null)
+                .build();
+    }
+
+    private ChatbotResponsePart failedPart(MultiIntentDecomposer.SubQuery part, Throwable e) {
+        log.error("❌ Error processing part '{}' ({})", part.text(), part.intent(), e);
+        return ChatbotResponsePart.builder()
+                .intent(part.intent())
+                .query(part.text())
+                .errorResponse("An error occurred while processing this part of your request.")
+                .success(false)
+                .build();
+    }
+
+    private static TokenUsage sumTokenUsage(List<TokenUsage> usages) {
+        if (usages.isEmpty()) {
+            return null;
         }
+        int promptTokens = 0;
+        int completionTokens = 0;
+        int totalTokens = 0;
+        double cost = 0;
+        for (TokenUsage usage : usages) {
+            promptTokens += usage.getPromptTokens() != null ? usage.getPromptTokens() : 0;
+            completionTokens += usage.getCompletionTokens() != null ? usage.getCompletionTokens() : 0;
+            totalTokens += usage.getTotalTokens() != null ? usage.getTotalTokens() : 0;
+            cost += usage.getCost() != null ? usage.getCost() : 0;
+        }
+        return TokenUsage.builder()
+                .promptTokens(promptTokens)
+                .completionTokens(completionTokens)
+                .totalTokens(totalTokens)
+                .cost(cost)
+                .model(usages.get(0).getModel())
+                .build();
+    }
 
-        return true;
+    /**
+     * A hit on an entry close to expiry reloads it in the background, so popular answers are
+     * replaced before they expire instead of sending the next reader to the LLM. The reload
+     * runs without the session (it must not touch the caller's conversation), writes no usage
+     * analytics, and shares its computation with any live miss on the same key.
+     */
+    private void scheduleRefreshAhead(ChatRequest request, Cache cache, String cacheKey, CachePolicy policy,
+                                      ResponseComputation compute) {
+        refreshAheadScheduler.refreshIfDue(cache, cacheKey, () -> {
+            ChatRequest refreshRequest = request.withMessage(request.getMessage());
+            refreshRequest.setSessionId(null);
+            refreshRequest.setBackground(true);
+            responseFlight.execute(cacheKey, () -> {
+                // Timed from when the reload runs, not from the request that triggered it
+                ChatbotResponse<?> response = compute.apply(refreshRequest, System.currentTimeMillis());
+                store(refreshRequest, cache, cacheKey, response, policy);
+                return response;
+            });
+        });
+    }
+
+    private void storeUnderPolicy(ChatRequest request, IntentHandler<?> handler, ChatbotResponse<?> response) {
+        CachePolicy policy = handler.getCachePolicy();
+        Cache cache = cacheManager.getCache(RESPONSE_CACHE);
+        if (cache != null && isCacheable(request) && policy.appliesTo(request)) {
+            store(request, cache, CacheKeys.forRequest(request, request.getMessage(), handler.getIntentType(), policy),
+                    response, policy);
+        }
     }
 
     /**
-     * Generate cache key for request
+     * Caches a successful response for the policy's TTL (jittered like every other entry) and tags it
      */
-    private String generateCacheKey(ChatRequest request) {
-        StringBuilder keyBuilder = new StringBuilder();
+    private void store(ChatRequest request, Cache cache, String cacheKey, ChatbotResponse<?> response,
+                       CachePolicy policy) {
+        // Handlers leave success unset on normal answers; an error message is the failure signal
+        if (response == null || response.getErrorResponse() != null) {
+            return;
+        }
+        Duration ttl = JitteredExpiry.jittered(policy.ttl(), cacheSpecs.specFor(RESPONSE_CACHE).getTtlJitter());
+        if (cache instanceof TwoTierCache twoTierCache) {
+            twoTierCache.put(cacheKey, response, ttl);
+        } else if (cache instanceof CaffeineCache caffeineCache
+                && caffeineCache.getNativeCache().policy().expireVariably().isPresent()) {
+            caffeineCache.getNativeCache().policy().expireVariably().get().put(cacheKey, response, ttl);
+        } else {
+            cache.put(cacheKey, response);
+        }
+        tagIndex.tag(RESPONSE_CACHE, cacheKey, tagsFor(request, response, policy), ttl);
+        log.info("💾 Cached {} response for {} under key: {}", response.getIntent(), ttl, cacheKey);
+    }
 
-        if (request.getUserId() != null) {
-            keyBuilder.append(request.getUserId()).append(":");
+    /**
+     * Concept and user only where the policy keys on them: an entry shared across users
+     * must not be evicted when one of them logs out
+     */
+    private static Set<String> tagsFor(ChatRequest request, ChatbotResponse<?> response, CachePolicy policy) {
+        Set<String> tags = new LinkedHashSet<>();
+        if (response.getIntent() != null) {
+            tags.add(CacheTagIndex.tagName("intent", response.getIntent()));
         }
+        if (response.getData() instanceof List<?> parts) {
+            for (Object part : parts) {
+                if (part instanceof ChatbotResponsePart answer && answer.getIntent() != null) {
+                    tags.add(CacheTagIndex.tagName("intent", answer.getIntent()));
+                }
+            }
+        }
+        if (policy.includes(CachePolicy.KeyPart.CONCEPT) && request.getConcept() != null) {
+            tags.add(conceptTag(request.getConcept()));
+        }
+        if (policy.includes(CachePolicy.KeyPart.USER) && request.getUserId() != null && !request.getUserId().isBlank()) {
+            tags.add(CacheTagIndex.tagName("user", request.getUserId().trim()));
+        }
+        if (response.getSourceDocumentIds() != null) {
+            response.getSourceDocumentIds().forEach(id -> tags.add(CacheTagIndex.tagName("doc", id)));
+        }
+        return tags;
+    }
+
+    private static String conceptTag(String concept) {
+        return CacheTagIndex.tagName("concept", concept.trim().toUpperCase(Locale.ROOT));
+    }
 
-        String normalizedMessage = request.getMessage()
-                .toLowerCase()
-                .trim()
-                .replaceAll("\\s+", " ");
-        keyBuilder.append(normalizedMessage);
+    /**
+     * A concept's policy documents changed: its policy answers (including compound answers
+     * with a policy part) and every answer generated from a removed document are stale
+     */
+    @EventListener
+    public void onPolicyDocumentsChanged(PolicyDocumentsChangedEvent event) {
+        int evicted = tagIndex.evict(RESPONSE_CACHE,
+                List.of(conceptTag(event.concept()), CacheTagIndex.tagName("intent", POLICY_INTENT)));
+        for (String documentId : event.documentIds()) {
+            evicted += tagIndex.evict(RESPONSE_CACHE, List.of(CacheTagIndex.tagName("doc", documentId)));
+        }
+        log.info("🗑️ Policy documents of {} changed, evicted {} cached responses", event.concept(), evicted);
+    }
 
-        if (request.getLatitude() != 0 && request.getLongitude() != 0) {
-            keyBuilder.append(":loc:")
-                    .append(String.format("%.2f,%.2f", request.getLatitude(), request.getLongitude()));
+    /**
+     * Determine if request is cacheable at all; per-intent rules live in each handler's CachePolicy
+     */
+    private boolean isCacheable(ChatRequest request) {
+        // Don't cache queries with sensitive information
+        if (request.getCardNumber() != null || request.getPin() != null) {
+            return false;
         }
 
-        if (request.getEnv() != null) {
-            keyBuilder.append(":env:").append(request.getEnv());
+        // Don't cache if previous response is provided (conversational context)
+        if (request.getPreviousResponse() != null) {
+            return false;
         }
 
-        String cachekKey= DigestUtils.md5DigestAsHex(keyBuilder.toString().getBytes());
-        log.info(" key value  {}  gerenated key",keyBuilder,cachekKey);
-        return  cachekKey;
+        return true;
     }
 
     /**
@@ -231,13 +553,14 @@ public class ChatbotService {
     }
 
     /**
-     * Manually invalidate cache for user
+     * Manually invalidate cache for user: evicts the entries keyed on that user, leaving
+     * everyone else's (and the shared answers) in place
      */
     public void invalidateUserCache(String userId) {
-        Cache cache = cacheManager.getCache("chatbotResponses");
-        if (cache != null) {
-            cache.clear();
-            log.info("🗑️ Cleared cache for user: {}", userId);
+        if (userId == null || userId.isBlank()) {
+            return;
         }
+        int evicted = tagIndex.evict(RESPONSE_CACHE, List.of(CacheTagIndex.tagName("user", userId.trim())));
+        log.info("🗑️ Evicted {} cached responses for user: {}", evicted, userId);
     }
 }
\ No newline at end of file
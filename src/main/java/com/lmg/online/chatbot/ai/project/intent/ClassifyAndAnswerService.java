@@ -0,0 +1,253 @@
+package com.lmg.online.chatbot.ai.project.intent;
+
+import com.lmg.online.chatbot.ai.analytics.AiAnalyticsService;
+import com.lmg.online.chatbot.ai.analytics.ChatbotResponse;
+import com.lmg.online.chatbot.ai.analytics.TokenCostCalculator;
+import com.lmg.online.chatbot.ai.analytics.TokenUsage;
+import com.lmg.online.chatbot.ai.common.ConceptBaseUrlResolver;
+import com.lmg.online.chatbot.ai.project.doc.vector.MultiTenantSmartChatService;
+import com.lmg.online.chatbot.ai.request.ChatRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.converter.BeanOutputConverter;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single-call routing mode: one structured completion classifies the query and, for
+ * GENERAL_QUERY and POLICY_QUESTION, answers it in the same round-trip. Tool intents
+ * come back without an answer and continue to their handler as usual.
+ *
+ * Policy context is only retrieved when the keyword tier's best guess is a policy or general
+ * question (or there is no guess); a policy answer without context is left to the handler.
+ *
+ * Enabled per concept (chatbot.routing.classify-and-answer.concepts) and switchable at
+ * runtime, so the two paths can be compared in analytics: this mode is tracked under the
+ * "classifyAndAnswer" tool, the two-call path under "intentClassifier" plus the handler.
+ */
+@Slf4j
+@Service
+public class ClassifyAndAnswerService {
+
+    private static final String TOOL_NAME = "classifyAndAnswer";
+    private static final Set<String> ANSWERED_INTENTS = Set.of("GENERAL_QUERY", "POLICY_QUESTION");
+
+    private static final String PROMPT_TEMPLATE = """
+        Classify the user's intent from the following query and answer it only if it is a
+        general or policy question.
+
+        Query: %s
+
+        Available intents:
+        - ORDER_TRACKING: Questions about orders, delivery, shipment status
+        - STORE_LOCATOR: Finding store locations, addresses, nearest stores
+        - POLICY_QUESTION: Return, exchange, refund, shipping policies
+        - CUSTOMER_PROFILE: User profile, account details, personal information
+        - GIFT_CARD_BALANCE: Gift card balance inquiry
+        - GENERAL_QUERY: General questions, greetings, other queries
+
+        Policy context:
+        %s
+
+        Rules:
+        - ORDER_TRACKING, STORE_LOCATOR, CUSTOMER_PROFILE, GIFT_CARD_BALANCE: return the intent only, answer null.
+        - POLICY_QUESTION: answer strictly and only from the policy context, short and clear. If it has no
+          answer, reply only: 'Please contact our customer care for more details: %s'.
+        - GENERAL_QUERY: short, helpful answer with all important data. If appropriate, suggest order
+          tracking, store locator or policy information. For complex issues, suggest calling %s.
+
+        Return the result in the following format:
+        %s
+        """;
+
+    private final ChatClient chatClient;
+    private final BeanOutputConverter<IntentAnswer> intentAnswerConverter;
+    private final MultiTenantSmartChatService multiTenantSmartChatService;
+    private final IntentClassifier intentClassifier;
+    private final TieredIntentRouter intentRouter;
+    private final IntentRoutingStats routingStats;
+    private final TokenCostCalculator tokenCostCalculator;
+    private final AiAnalyticsService aiAnalyticsService;
+    private final Set<String> enabledConcepts = ConcurrentHashMap.newKeySet();
+
+    public ClassifyAndAnswerService(
+            @Qualifier("generalClient") ChatClient chatClient,
+            BeanOutputConverter<IntentAnswer> intentAnswerConverter,
+            MultiTenantSmartChatService multiTenantSmartChatService,
+            IntentClassifier intentClassifier,
+            TieredIntentRouter intentRouter,
+            IntentRoutingStats routingStats,
+            TokenCostCalculator tokenCostCalculator,
+            AiAnalyticsService aiAnalyticsService,
+            @Value("${chatbot.routing.classify-and-answer.concepts:}") List<String> concepts) {
+        this.chatClient = chatClient;
+        this.intentAnswerConverter = intentAnswerConverter;
+        this.multiTenantSmartChatService = multiTenantSmartChatService;
+        this.intentClassifier = intentClassifier;
+        this.intentRouter = intentRouter;
+        this.routingStats = routingStats;
+        this.tokenCostCalculator = tokenCostCalculator;
+        this.aiAnalyticsService = aiAnalyticsService;
+
+        concepts.stream()
+                .filter(concept -> !concept.isBlank())
+                .forEach(concept -> enabledConcepts.add(concept.trim().toUpperCase()));
+        log.info("✅ Classify-and-answer mode enabled for concepts: {}", enabledConcepts);
+    }
+
+    public boolean isEnabledFor(String concept) {
+        return concept != null && enabledConcepts.contains(concept.trim().toUpperCase());
+    }
+
+    public Set<String> getEnabledConcepts() {
+        return new TreeSet<>(enabledConcepts);
+    }
+
+    public void setEnabled(String concept, boolean enabled) {
+        if (concept == null || concept.isBlank()) {
+            throw new IllegalArgumentException("Concept code cannot be null or empty");
+        }
+        if (enabled) {
+            enabledConcepts.add(concept.trim().toUpperCase());
+        } else {
+            enabledConcepts.remove(concept.trim().toUpperCase());
+        }
+        log.info("🔧 Classify-and-answer mode {} for {}", enabled ? "enabled" : "disabled", concept);
+    }
+
+    /**
+     * Classifies and, where possible, answers the request in one completion
+     * @param routingQuery normalised query the intent is remembered under in the intent cache
+     * @return the routed intent plus the finished response when the model answered directly,
+     *         or null if the call failed and the caller should use the two-call path
+     */
+    public Result classifyAndAnswer(ChatRequest request, String routingQuery, long startTime) {
+        long callStart = System.nanoTime();
+        boolean withContext = needsPolicyContext(routingQuery);
+        List<Document> docs;
+        ChatResponse response;
+        String content;
+        IntentAnswer result;
+
+        try {
+            String phone = ConceptBaseUrlResolver.getPhoneNumber(request.getConcept());
+            docs = withContext ? retrievePolicyDocuments(request) : List.of();
+            String context = MultiTenantSmartChatService.formatContext(docs);
+            String prompt = String.format(
+                    PROMPT_TEMPLATE,
+                    request.getMessage(),
+                    context.isBlank() ? "(none)" : context,
+                    phone,
+                    phone,
+                    intentAnswerConverter.getFormat()
+            );
+
+            response = chatClient.prompt()
+                    .user(prompt)
+                    .call()
+                    .chatResponse();
+            routingStats.record(IntentTier.LLM, System.nanoTime() - callStart);
+
+            content = response.getResult().getOutput().getText();
+            result = intentAnswerConverter.convert(content);
+        } catch (Exception e) {
+            log.error("❌ Classify-and-answer failed, falling back to classify-then-handle", e);
+            return null;
+        }
+
+        // The call succeeded; nothing below may send the caller into a second LLM call
+        String intent = result.intent() != null ? result.intent().toUpperCase() : "GENERAL_QUERY";
+        IntentMatch match = new IntentMatch(intent, result.confidence(), IntentTier.LLM);
+        intentClassifier.remember(routingQuery, match);
+
+        long responseTime = System.currentTimeMillis() - startTime;
+        boolean answered = ANSWERED_INTENTS.contains(intent)
+                && (withContext || !"POLICY_QUESTION".equals(intent))
+                && result.answer() != null && !result.answer().isBlank();
+        // Only an answered row carries the intent: otherwise the handler logs its own labelled row
+        trackAnalytics(request, response, content, responseTime, answered ? intent : null);
+
+        if (!answered) {
+            log.info("🧩 Classify-and-answer routed to {} without an answer", intent);
+            return new Result(match, null);
+        }
+
+        log.info("🧩 Classify-and-answer answered {} in one call", intent);
+        TokenUsage tokens = tokenCostCalculator.buildTokenUsage(
+                response.getMetadata().getUsage(),
+                response.getMetadata().getModel()
+        );
+        return new Result(match, ChatbotResponse.<String>builder()
+                .data(result.answer())
+                .tokenUsage(tokens)
+                .responseTimeMs(responseTime)
+                .intent(intent)
+                .metadata(new HashMap<>())
+                .sourceDocumentIds(MultiTenantSmartChatService.documentIds(docs))
+                .build());
+    }
+
+    /**
+     * Vector search only pays off when the answer may come from the policy documents
+     */
+    private boolean needsPolicyContext(String routingQuery) {
+        IntentMatch candidate = intentRouter.keywordCandidate(routingQuery);
+        return candidate == null || ANSWERED_INTENTS.contains(candidate.intent());
+    }
+
+    private List<Document> retrievePolicyDocuments(ChatRequest request) {
+        try {
+            return multiTenantSmartChatService.retrievePolicyDocuments(request);
+        } catch (Exception e) {
+            log.warn("⚠️ Policy context unavailable for {}: {}", request.getConcept(), e.getMessage());
+            return List.of();
+        }
+    }
+
+    private void trackAnalytics(ChatRequest request, ChatResponse response, String content,
+                                long responseTime, String answeredIntent) {
+        if (request.isBackground()) {
+            return;
+        }
+        try {
+            var usage = response.getMetadata().getUsage();
+
+            aiAnalyticsService.trackUsage(
+                    null,
+                    null,
+                    request.getMessage(),
+                    content,
+                    usage.getPromptTokens(),
+                    usage.getCompletionTokens(),
+                    response.getMetadata().getModel(),
+                    response.getResult().getMetadata().getFinishReason(),
+                    false,
+                    TOOL_NAME,
+                    responseTime,
+                    answeredIntent,
+                    IntentTier.LLM.name()
+            );
+
+            log.info("📊 {} - Tokens: {} (↑{} ↓{}), Time: {}ms",
+                    TOOL_NAME, usage.getTotalTokens(), usage.getPromptTokens(),
+                    usage.getCompletionTokens(), responseTime);
+        } catch (Exception e) {
+            log.warn("⚠️ Analytics tracking failed for {}: {}", TOOL_NAME, e.getMessage());
+        }
+    }
+
+    /**
+     * Routed intent, plus the finished response when the model answered directly
+     */
+    public record Result(IntentMatch match, ChatbotResponse<String> response) {
+    }
+}
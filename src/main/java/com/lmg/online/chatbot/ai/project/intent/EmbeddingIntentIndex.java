@@ -0,0 +1,194 @@
+package com.lmg.online.chatbot.ai.project.intent;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-process nearest-centroid intent index.
+ *
+ * Labelled exemplar queries are embedded once with the shared EmbeddingModel and averaged
+ * into one unit-length centroid per intent, held in a flat float matrix. A query then
+ * costs a single embedding call plus a few thousand multiply-adds.
+ *
+ * The exemplar set can be replaced at runtime; the new matrix is built off to the side
+ * and swapped in atomically, so in-flight lookups never see a half-built index.
+ */
+@Slf4j
+@Component
+public class EmbeddingIntentIndex {
+
+    static final Map<String, List<String>> DEFAULT_EXEMPLARS = Map.of(
+            "ORDER_TRACKING", List.of(
+                    "where is my order", "track my order", "when will my package arrive",
+                    "has my order been shipped", "what is the delivery status of my purchase",
+                    "my parcel has not arrived yet"),
+            "STORE_LOCATOR", List.of(
+                    "nearest store", "find a store near me", "which mall has your outlet",
+                    "store address in my city", "is there a shop nearby", "store opening hours"),
+            "POLICY_QUESTION", List.of(
+                    "what is the return policy", "how do returns work", "can I exchange a product",
+                    "how long does a refund take", "how do I cancel my order", "are there delivery charges"),
+            "CUSTOMER_PROFILE", List.of(
+                    "show my profile", "what email is on my account", "update my personal details",
+                    "what is my registered mobile number", "my account information", "change my address"),
+            "GIFT_CARD_BALANCE", List.of(
+                    "check gift card balance", "how much is left on my gift card", "gift voucher balance",
+                    "is my gift card still valid", "balance on my card", "redeem gift card"),
+            "GENERAL_QUERY", List.of(
+                    "hello", "thank you", "who are you", "what can you do",
+                    "how do I contact customer care", "tell me about your brand")
+    );
+
+    private final EmbeddingModel embeddingModel;
+    private final double minMargin;
+    private final double minSimilarity;
+
+    private volatile Centroids centroids;
+
+    public EmbeddingIntentIndex(
+            EmbeddingModel embeddingModel,
+            @Value("${chatbot.intent.embedding.min-margin:0.05}") double minMargin,
+            @Value("${chatbot.intent.embedding.min-similarity:0.30}") double minSimilarity) {
+        this.embeddingModel = embeddingModel;
+        this.minMargin = minMargin;
+        this.minSimilarity = minSimilarity;
+    }
+
+    /**
+     * Nearest-centroid classification
+     * @return match, or null when the top-1/top-2 margin or the top similarity is too small
+     */
+    public IntentMatch match(String query) {
+        Centroids current = ensureLoaded();
+        float[] vector = normalize(embeddingModel.embed(query));
+
+        int best = -1;
+        double bestScore = -1;
+        double secondScore = -1;
+        for (int i = 0; i < current.intents().length; i++) {
+            double score = dot(current.matrix(), i * current.dimensions(), vector);
+            if (score > bestScore) {
+                secondScore = bestScore;
+                bestScore = score;
+                best = i;
+            } else if (score > secondScore) {
+                secondScore = score;
+            }
+        }
+
+        double margin = bestScore - secondScore;
+        if (best < 0 || bestScore < minSimilarity || margin < minMargin) {
+            log.info("🧭 Embedding tier inconclusive (best {} margin {})",
+                    String.format("%.3f", bestScore), String.format("%.3f", margin));
+            return null;
+        }
+        return new IntentMatch(current.intents()[best], bestScore, IntentTier.EMBEDDING);
+    }
+
+    /**
+     * Rebuilds the centroid matrix from a new exemplar set and swaps it in
+     */
+    public void reload(Map<String, List<String>> exemplars) {
+        if (exemplars == null || exemplars.isEmpty()) {
+            throw new IllegalArgumentException("Exemplar set must not be empty");
+        }
+
+        List<String> intents = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        List<Integer> owners = new ArrayList<>();
+        Map<String, List<String>> snapshot = new LinkedHashMap<>();
+        exemplars.forEach((intent, samples) -> {
+            if (samples == null || samples.isEmpty()) {
+                return;
+            }
+            intents.add(intent.toUpperCase());
+            snapshot.put(intent.toUpperCase(), List.copyOf(samples));
+            for (String sample : samples) {
+                texts.add(sample);
+                owners.add(intents.size() - 1);
+            }
+        });
+        if (texts.isEmpty()) {
+            throw new IllegalArgumentException("Exemplar set must contain at least one sample");
+        }
+
+        List<float[]> embeddings = embeddingModel.embed(texts);
+        int dimensions = embeddings.get(0).length;
+        float[] matrix = new float[intents.size() * dimensions];
+
+        for (int i = 0; i < embeddings.size(); i++) {
+            float[] vector = normalize(embeddings.get(i));
+            int offset = owners.get(i) * dimensions;
+            for (int d = 0; d < dimensions; d++) {
+                matrix[offset + d] += vector[d];
+            }
+        }
+        for (int i = 0; i < intents.size(); i++) {
+            normalizeInPlace(matrix, i * dimensions, dimensions);
+        }
+
+        this.centroids = new Centroids(intents.toArray(new String[0]), matrix, dimensions, snapshot);
+        log.info("✅ Embedding intent index loaded: {} intents, {} exemplars, {} dims",
+                intents.size(), texts.size(), dimensions);
+    }
+
+    /**
+     * Exemplar set currently backing the index
+     */
+    public Map<String, List<String>> getExemplars() {
+        Centroids current = centroids;
+        return current != null ? current.exemplars() : DEFAULT_EXEMPLARS;
+    }
+
+    private Centroids ensureLoaded() {
+        Centroids current = centroids;
+        if (current == null) {
+            synchronized (this) {
+                if (centroids == null) {
+                    reload(DEFAULT_EXEMPLARS);
+                }
+                current = centroids;
+            }
+        }
+        return current;
+    }
+
+    private static double dot(float[] matrix, int offset, float[] vector) {
+        double sum = 0;
+        for (int d = 0; d < vector.length; d++) {
+            sum += matrix[offset + d] * vector[d];
+        }
+        return sum;
+    }
+
+    private static float[] normalize(float[] vector) {
+        float[] copy = vector.clone();
+        normalizeInPlace(copy, 0, copy.length);
+        return copy;
+    }
+
+    private static void normalizeInPlace(float[] values, int offset, int length) {
+        double norm = 0;
+        for (int i = offset; i < offset + length; i++) {
+            norm += values[i] * values[i];
+        }
+        if (norm == 0) {
+            return;
+        }
+        float scale = (float) (1.0 / Math.sqrt(norm));
+        for (int i = offset; i < offset + length; i++) {
+            values[i] *= scale;
+        }
+    }
+
+    private record Centroids(String[] intents, float[] matrix, int dimensions,
+                             Map<String, List<String>> exemplars) {
+    }
+}
@@ -0,0 +1,14 @@
+package com.lmg.online.chatbot.ai.project.intent;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Structured output of the single-call classify-and-answer prompt.
+ * The answer is only filled in for GENERAL_QUERY and POLICY_QUESTION.
+ */
+public record IntentAnswer(
+        @JsonProperty("intent") String intent,
+        @JsonProperty("confidence") double confidence,
+        @JsonProperty("answer") String answer
+) {
+}
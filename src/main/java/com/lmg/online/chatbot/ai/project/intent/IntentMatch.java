@@ -0,0 +1,11 @@
+package com.lmg.online.chatbot.ai.project.intent;
+
+/**
+ * Result of intent routing
+ *
+ * @param intent     intent type, matches {@code IntentHandler#getIntentType()}
+ * @param confidence 0..1 confidence reported by the tier that produced the match
+ * @param tier       routing tier that produced the match
+ */
+public record IntentMatch(String intent, double confidence, IntentTier tier) {
+}
@@ -21,12 +21,14 @@ import java.util.stream.Collectors;
 public class IntentRouterService {
 
     private final Map<String, IntentHandler<?>> intentHandlers;
-    private final IntentClassifier intentClassifier;
+    private final TieredIntentRouter intentRouter;
+    private final SpellingCorrector spellingCorrector;
     private final IntentHandler<?> generalQueryHandler;
 
     public IntentRouterService(
             List<IntentHandler<?>> handlers,
-            IntentClassifier intentClassifier,
+            TieredIntentRouter intentRouter,
+            SpellingCorrector spellingCorrector,
             GeneralQueryIntentHandler generalQueryHandler) {
 
         // Create a map of intent type -> handler for quick lookup
@@ -36,7 +38,8 @@ public class IntentRouterService {
                         Function.identity()
                 ));
 
-        this.intentClassifier = intentClassifier;
+        this.intentRouter = intentRouter;
+        this.spellingCorrector = spellingCorrector;
         this.generalQueryHandler = generalQueryHandler;
 
         log.info("✅ IntentRouterService initialized with {} handlers: {}",
@@ -53,18 +56,13 @@ public class IntentRouterService {
         log.info("📨 Processing query: {}", query);
 
         try {
-            // Step 1: Try pattern-based routing first (fast path)
-            IntentHandler<?> handler =  null ;//findHandlerByPattern(query);
+            // Step 1 & 2: Keyword tier first (fast path), AI classifier only when ambiguous
+            IntentMatch match = intentRouter.route(spellingCorrector.correct(query).text());
+            IntentHandler<?> handler = intentHandlers.get(match.intent());
 
-            // Step 2: If no pattern match, use AI classifier
             if (handler == null) {
-                String intentType = intentClassifier.classify(query);
-                handler = intentHandlers.get(intentType);
-
-                if (handler == null) {
-                    log.warn("⚠️ No handler found for intent: {}, using general handler", intentType);
-                    handler = generalQueryHandler;
-                }
+                log.warn("⚠️ No handler found for intent: {}, using general handler", match.intent());
+                handler = generalQueryHandler;
             }
 
             // Step 3: Execute the handler
@@ -78,13 +76,13 @@ public class IntentRouterService {
     }
 
     /**
-     * Fast path: Check if any handler can handle based on pattern matching
+     * Classifies many messages without running their handlers
+     * @return one match per message, in input order
      */
-    private IntentHandler<?> findHandlerByPattern(String query) {
-        return intentHandlers.values().stream()
-                .filter(handler -> handler.canHandle(query))
-                .findFirst()
-                .orElse(null);
+    public List<IntentMatch> classifyBatch(List<String> messages) {
+        return intentRouter.routeBatch(messages.stream()
+                .map(message -> spellingCorrector.normalize(message == null ? "" : message))
+                .toList());
     }
 
     /**
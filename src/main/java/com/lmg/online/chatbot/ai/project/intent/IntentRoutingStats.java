@@ -0,0 +1,54 @@
+package com.lmg.online.chatbot.ai.project.intent;
+
+import com.lmg.online.chatbot.ai.common.LatencyHistogram;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-tier hit counters and routing latency, exposed on /api/chat/routing/stats
+ */
+@Component
+public class IntentRoutingStats {
+
+    private final Map<IntentTier, LongAdder> hits = new EnumMap<>(IntentTier.class);
+    private final Map<IntentTier, LatencyHistogram> latencies = new EnumMap<>(IntentTier.class);
+
+    public IntentRoutingStats() {
+        for (IntentTier tier : IntentTier.values()) {
+            hits.put(tier, new LongAdder());
+            latencies.put(tier, new LatencyHistogram());
+        }
+    }
+
+    public void record(IntentTier tier, long elapsedNanos) {
+        hits.get(tier).increment();
+        latencies.get(tier).record(elapsedNanos);
+    }
+
+    public long hits(IntentTier tier) {
+        return hits.get(tier).sum();
+    }
+
+    public Map<String, Object> snapshot() {
+        long total = hits.values().stream().mapToLong(LongAdder::sum).sum();
+        Map<String, Object> tiers = new LinkedHashMap<>();
+        for (IntentTier tier : IntentTier.values()) {
+            Map<String, Object> tierStats = new LinkedHashMap<>();
+            long tierHits = hits.get(tier).sum();
+            tierStats.put("hits", tierHits);
+            tierStats.put("share", total > 0 ? (double) tierHits / total : 0.0);
+            tierStats.put("latency", latencies.get(tier).snapshot());
+            tiers.put(tier.name(), tierStats);
+        }
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("totalRouted", total);
+        snapshot.put("llmCalls", hits.get(IntentTier.LLM).sum());
+        snapshot.put("tiers", tiers);
+        return snapshot;
+    }
+}
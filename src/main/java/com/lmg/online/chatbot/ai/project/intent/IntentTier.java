@@ -0,0 +1,13 @@
+package com.lmg.online.chatbot.ai.project.intent;
+
+/**
+ * Routing tier that resolved the intent of a query, cheapest first
+ */
+public enum IntentTier {
+    SESSION,
+    KEYWORD,
+    CACHE,
+    NGRAM,
+    EMBEDDING,
+    LLM
+}
@@ -0,0 +1,230 @@
+package com.lmg.online.chatbot.ai.project.intent;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deterministic first routing tier.
+ *
+ * Compiles the keywords of every intent handler into a single Aho-Corasick automaton
+ * (failure links folded into a dense transition table, so it runs as a DFA). A query is
+ * scanned once, left to right, and every intent is scored in that same pass.
+ *
+ * Keywords only match on word boundaries: both keywords and queries are folded to
+ * lower-case alphanumerics separated by single spaces and padded with a space on each
+ * side. Multi-word phrases weigh more than single words because they are more specific.
+ *
+ * Instances are immutable and thread-safe.
+ */
+public final class KeywordIntentMatcher {
+
+    private static final int SEPARATOR = 0;
+    private static final int ALPHABET = 1 + 26 + 10;
+    private static final int[] NO_OUTPUT = new int[0];
+
+    private final String[] intents;
+    private final int[][] transitions;
+    private final int[][] outputs;
+    private final int[] keywordIntent;
+    private final int[] keywordWeight;
+
+    private KeywordIntentMatcher(String[] intents, int[][] transitions, int[][] outputs,
+                                 int[] keywordIntent, int[] keywordWeight) {
+        this.intents = intents;
+        this.transitions = transitions;
+        this.outputs = outputs;
+        this.keywordIntent = keywordIntent;
+        this.keywordWeight = keywordWeight;
+    }
+
+    /**
+     * Builds the automaton
+     * @param keywordsByIntent keywords and phrases per intent type
+     */
+    public static KeywordIntentMatcher compile(Map<String, List<String>> keywordsByIntent) {
+        String[] intents = keywordsByIntent.keySet().toArray(new String[0]);
+        List<int[]> gotoRows = new ArrayList<>();
+        List<List<Integer>> ownOutputs = new ArrayList<>();
+        List<Integer> keywordIntents = new ArrayList<>();
+        List<Integer> keywordWeights = new ArrayList<>();
+        gotoRows.add(emptyRow());
+        ownOutputs.add(new ArrayList<>());
+
+        for (int intentIndex = 0; intentIndex < intents.length; intentIndex++) {
+            for (String keyword : keywordsByIntent.get(intents[intentIndex])) {
+                String normalized = normalize(keyword);
+                if (normalized.isBlank()) {
+                    continue;
+                }
+                int state = 0;
+                for (int i = 0; i < normalized.length(); i++) {
+                    int symbol = symbol(normalized.charAt(i));
+                    if (gotoRows.get(state)[symbol] < 0) {
+                        gotoRows.get(state)[symbol] = gotoRows.size();
+                        gotoRows.add(emptyRow());
+                        ownOutputs.add(new ArrayList<>());
+                    }
+                    state = gotoRows.get(state)[symbol];
+                }
+                ownOutputs.get(state).add(keywordIntents.size());
+                keywordIntents.add(intentIndex);
+                keywordWeights.add(normalized.trim().split(" ").length);
+            }
+        }
+
+        int stateCount = gotoRows.size();
+        int[][] transitions = gotoRows.toArray(new int[0][]);
+        int[][] outputs = new int[stateCount][];
+        int[] failure = new int[stateCount];
+
+        // Breadth-first: fold failure links into the transition table
+        Deque<Integer> queue = new ArrayDeque<>();
+        outputs[0] = toArray(ownOutputs.get(0));
+        for (int symbol = 0; symbol < ALPHABET; symbol++) {
+            int next = transitions[0][symbol];
+            if (next < 0) {
+                transitions[0][symbol] = 0;
+            } else {
+                failure[next] = 0;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            outputs[state] = merge(ownOutputs.get(state), outputs[failure[state]]);
+            for (int symbol = 0; symbol < ALPHABET; symbol++) {
+                int next = transitions[state][symbol];
+                if (next < 0) {
+                    transitions[state][symbol] = transitions[failure[state]][symbol];
+                } else {
+                    failure[next] = transitions[failure[state]][symbol];
+                    queue.add(next);
+                }
+            }
+        }
+
+        return new KeywordIntentMatcher(
+                intents,
+                transitions,
+                outputs,
+                keywordIntents.stream().mapToInt(Integer::intValue).toArray(),
+                keywordWeights.stream().mapToInt(Integer::intValue).toArray()
+        );
+    }
+
+    /**
+     * Scores every intent in a single pass over the query
+     * @return best intent with confidence = its share of the total score,
+     *         or null when nothing matched or the top two intents are tied
+     */
+    public IntentMatch match(String query) {
+        if (query == null || query.isBlank() || intents.length == 0) {
+            return null;
+        }
+
+        int[] scores = new int[intents.length];
+        int state = step(transitions[0][SEPARATOR], scores);
+        boolean lastWasSeparator = true;
+
+        for (int i = 0; i < query.length(); i++) {
+            int symbol = symbol(query.charAt(i));
+            if (symbol == SEPARATOR) {
+                if (lastWasSeparator) {
+                    continue;
+                }
+                lastWasSeparator = true;
+            } else {
+                lastWasSeparator = false;
+            }
+            state = step(transitions[state][symbol], scores);
+        }
+        if (!lastWasSeparator) {
+            step(transitions[state][SEPARATOR], scores);
+        }
+
+        int best = -1;
+        int bestScore = 0;
+        int secondScore = 0;
+        int total = 0;
+        for (int i = 0; i < scores.length; i++) {
+            total += scores[i];
+            if (scores[i] > bestScore) {
+                secondScore = bestScore;
+                bestScore = scores[i];
+                best = i;
+            } else if (scores[i] > secondScore) {
+                secondScore = scores[i];
+            }
+        }
+
+        if (best < 0 || bestScore == secondScore) {
+            return null;
+        }
+        return new IntentMatch(intents[best], (double) bestScore / total, IntentTier.KEYWORD);
+    }
+
+    /**
+     * Number of automaton states (useful for monitoring)
+     */
+    public int stateCount() {
+        return transitions.length;
+    }
+
+    private int step(int state, int[] scores) {
+        for (int keyword : outputs[state]) {
+            scores[keywordIntent[keyword]] += keywordWeight[keyword];
+        }
+        return state;
+    }
+
+    /**
+     * Folds text to the matcher alphabet: " word word ... "
+     */
+    static String normalize(String text) {
+        StringBuilder sb = new StringBuilder(text.length() + 2).append(' ');
+        for (int i = 0; i < text.length(); i++) {
+            int symbol = symbol(text.charAt(i));
+            if (symbol == SEPARATOR) {
+                if (sb.charAt(sb.length() - 1) != ' ') {
+                    sb.append(' ');
+                }
+            } else {
+                sb.append(Character.toLowerCase(text.charAt(i)));
+            }
+        }
+        if (sb.charAt(sb.length() - 1) != ' ') {
+            sb.append(' ');
+        }
+        return sb.toString();
+    }
+
+    private static int symbol(char c) {
+        if (c >= 'a' && c <= 'z') return 1 + (c - 'a');
+        if (c >= 'A' && c <= 'Z') return 1 + (c - 'A');
+        if (c >= '0' && c <= '9') return 27 + (c - '0');
+        return SEPARATOR;
+    }
+
+    private static int[] emptyRow() {
+        int[] row = new int[ALPHABET];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        return values.isEmpty() ? NO_OUTPUT : values.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int[] merge(List<Integer> own, int[] inherited) {
+        if (own.isEmpty()) {
+            return inherited;
+        }
+        int[] merged = Arrays.copyOf(toArray(own), own.size() + inherited.length);
+        System.arraycopy(inherited, 0, merged, own.size(), inherited.length);
+        return merged;
+    }
+}
@@ -0,0 +1,96 @@
+package com.lmg.online.chatbot.ai.project.intent;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Splits compound messages such as "where is my order and what's your return policy"
+ * into one sub-query per intent.
+ *
+ * The message is cut on conjunctions and sentence breaks, and each fragment is routed by
+ * the keyword tier alone. Fragments without an intent of their own stay attached to the
+ * preceding one ("track order 123 and 456"), fragments sharing an intent are merged, and
+ * greetings are dropped. Only when two or more distinct intents remain is the message
+ * treated as compound - anything less confident takes the normal single-intent path.
+ */
+@Slf4j
+@Component
+public class MultiIntentDecomposer {
+
+    private static final Pattern SPLIT_PATTERN = Pattern.compile(
+            "\\s*(?:\\b(?:and also|and then|as well as|and|also|plus)\\b|[;?&])\\s*",
+            Pattern.CASE_INSENSITIVE
+    );
+
+    private final TieredIntentRouter intentRouter;
+    private final SpellingCorrector spellingCorrector;
+    private final boolean enabled;
+    private final int maxParts;
+
+    public MultiIntentDecomposer(
+            TieredIntentRouter intentRouter,
+            SpellingCorrector spellingCorrector,
+            @Value("${chatbot.fanout.enabled:true}") boolean enabled,
+            @Value("${chatbot.fanout.max-parts:3}") int maxParts) {
+        this.intentRouter = intentRouter;
+        this.spellingCorrector = spellingCorrector;
+        this.enabled = enabled;
+        this.maxParts = maxParts;
+    }
+
+    /**
+     * @return one sub-query per intent, or an empty list when the message is not compound
+     */
+    public List<SubQuery> decompose(String message) {
+        if (!enabled || message == null) {
+            return List.of();
+        }
+
+        String[] fragments = SPLIT_PATTERN.split(message);
+        if (fragments.length < 2) {
+            return List.of();
+        }
+
+        Map<String, StringBuilder> byIntent = new LinkedHashMap<>();
+        String currentIntent = null;
+        for (String fragment : fragments) {
+            if (fragment.isBlank()) {
+                continue;
+            }
+            IntentMatch match = intentRouter.matchKeyword(spellingCorrector.normalize(fragment));
+            if (match != null) {
+                currentIntent = match.intent();
+            } else if (currentIntent == null) {
+                // Leading fragment we can't place - not confident enough to split
+                return List.of();
+            }
+
+            StringBuilder text = byIntent.get(currentIntent);
+            if (text == null) {
+                byIntent.put(currentIntent, new StringBuilder(fragment.trim()));
+            } else {
+                text.append(" and ").append(fragment.trim());
+            }
+        }
+
+        byIntent.remove("GENERAL_QUERY");
+        if (byIntent.size() < 2 || byIntent.size() > maxParts) {
+            return List.of();
+        }
+
+        List<SubQuery> parts = new ArrayList<>();
+        byIntent.forEach((intent, text) -> parts.add(new SubQuery(intent, text.toString())));
+        log.info("🔀 Compound query split into {} parts: {}", parts.size(), parts);
+        return parts;
+    }
+
+    public record SubQuery(String intent, String text) {
+    }
+}
@@ -0,0 +1,180 @@
+package com.lmg.online.chatbot.ai.project.intent;
+
+import com.lmg.online.chatbot.ai.analytics.AiAnalyticsService;
+import com.lmg.online.chatbot.ai.analytics.AiUsageAnalytics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Local intent tier backed by a hashed n-gram linear model ({@link NgramIntentModel})
+ * learned from ai_usage_analytics: every row a handler logged pairs the user's prompt
+ * with the tool that served it, which is the intent label. Only rows routed by the
+ * keyword or LLM tier are trusted as labels, so the model never trains on its own (or
+ * the embedding tier's) guesses; classify-and-answer rows carry the intent they answered.
+ *
+ * A scheduled job pulls rows above the last-seen id, trains a copy of the current model
+ * on just those rows and swaps it in atomically. Lookups run in microseconds with no
+ * network call, and are only trusted once enough samples have been seen.
+ */
+@Slf4j
+@Component
+public class NgramIntentIndex {
+
+    static final Map<String, String> TOOL_INTENTS = Map.of(
+            "orderTrackingTool", "ORDER_TRACKING",
+            "storeLocatorTool", "STORE_LOCATOR",
+            "policySearch", "POLICY_QUESTION",
+            "myProfileDetailsTool", "CUSTOMER_PROFILE",
+            "giftCardBalanceTool", "GIFT_CARD_BALANCE",
+            "none", "GENERAL_QUERY"
+    );
+
+    private static final String CLASSIFY_AND_ANSWER_TOOL = "classifyAndAnswer";
+
+    private static final Set<String> TRAINING_TOOLS = Stream.concat(
+            TOOL_INTENTS.keySet().stream(), Stream.of(CLASSIFY_AND_ANSWER_TOOL)).collect(Collectors.toSet());
+
+    private static final Set<String> TRAINING_TIERS = Set.of(IntentTier.KEYWORD.name(), IntentTier.LLM.name());
+
+    private static final String[] INTENTS = {
+            "ORDER_TRACKING", "STORE_LOCATOR", "POLICY_QUESTION",
+            "CUSTOMER_PROFILE", "GIFT_CARD_BALANCE", "GENERAL_QUERY"
+    };
+
+    private final AiAnalyticsService aiAnalyticsService;
+    private final boolean enabled;
+    private final double minConfidence;
+    private final long minSamples;
+    private final int epochs;
+    private final double learningRate;
+    private final int batchSize;
+    private final int maxRowsPerRun;
+
+    private volatile NgramIntentModel model;
+    private volatile long watermark;
+    private volatile LocalDateTime lastTrainedAt;
+    private volatile long lastTrainingMillis;
+
+    public NgramIntentIndex(
+            AiAnalyticsService aiAnalyticsService,
+            @Value("${chatbot.intent.ngram.enabled:true}") boolean enabled,
+            @Value("${chatbot.intent.ngram.min-confidence:0.85}") double minConfidence,
+            @Value("${chatbot.intent.ngram.min-samples:500}") long minSamples,
+            @Value("${chatbot.intent.ngram.buckets:65536}") int buckets,
+            @Value("${chatbot.intent.ngram.epochs:3}") int epochs,
+            @Value("${chatbot.intent.ngram.learning-rate:0.5}") double learningRate,
+            @Value("${chatbot.intent.ngram.batch-size:5000}") int batchSize,
+            @Value("${chatbot.intent.ngram.max-rows-per-run:100000}") int maxRowsPerRun) {
+        this.aiAnalyticsService = aiAnalyticsService;
+        this.enabled = enabled;
+        this.minConfidence = minConfidence;
+        this.minSamples = minSamples;
+        this.epochs = epochs;
+        this.learningRate = learningRate;
+        this.batchSize = batchSize;
+        this.maxRowsPerRun = maxRowsPerRun;
+        this.model = NgramIntentModel.empty(INTENTS, buckets);
+    }
+
+    /**
+     * @return match, or null when the model is disabled, under-trained or not confident
+     */
+    public IntentMatch match(String query) {
+        NgramIntentModel current = model;
+        if (!enabled || current.samples() < minSamples) {
+            return null;
+        }
+
+        IntentMatch match = current.match(query);
+        if (match == null || match.confidence() < minConfidence) {
+            log.info("🔤 N-gram tier inconclusive ({})", match);
+            return null;
+        }
+        return match;
+    }
+
+    /**
+     * Trains on analytics rows logged since the last run and swaps the new model in
+     */
+    @Scheduled(
+            initialDelayString = "${chatbot.intent.ngram.initial-delay-ms:60000}",
+            fixedDelayString = "${chatbot.intent.ngram.retrain-interval-ms:3600000}")
+    public synchronized void retrain() {
+        if (!enabled) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        long from = watermark;
+        long lastId = from;
+        List<NgramIntentModel.Sample> samples = new ArrayList<>();
+        NgramIntentModel current = model;
+
+        try {
+            while (samples.size() < maxRowsPerRun) {
+                List<AiUsageAnalytics> rows = aiAnalyticsService.getToolUsageAfter(
+                        lastId, TRAINING_TOOLS, TRAINING_TIERS, batchSize);
+                for (AiUsageAnalytics row : rows) {
+                    lastId = row.getId();
+                    int label = current.indexOf(labelOf(row));
+                    if (label >= 0 && row.getUserPrompt() != null && !row.getUserPrompt().isBlank()) {
+                        samples.add(new NgramIntentModel.Sample(row.getUserPrompt(), label));
+                    }
+                }
+                if (rows.size() < batchSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("❌ Failed to load n-gram training rows after id {}", from, e);
+            return;
+        }
+
+        if (samples.isEmpty()) {
+            watermark = lastId;
+            log.info("🔤 N-gram model up to date (watermark {})", lastId);
+            return;
+        }
+
+        this.model = current.train(samples, epochs, learningRate, lastId);
+        this.watermark = lastId;
+        this.lastTrainedAt = LocalDateTime.now();
+        this.lastTrainingMillis = System.currentTimeMillis() - start;
+
+        log.info("✅ N-gram intent model trained on {} new rows ({} total) in {}ms, watermark {}",
+                samples.size(), model.samples(), lastTrainingMillis, lastId);
+    }
+
+    /**
+     * Intent a row was resolved to, falling back to the tool that served it
+     */
+    static String labelOf(AiUsageAnalytics row) {
+        return row.getIntent() != null ? row.getIntent() : TOOL_INTENTS.get(row.getToolName());
+    }
+
+    public Map<String, Object> getStatus() {
+        NgramIntentModel current = model;
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("serving", enabled && current.samples() >= minSamples);
+        status.put("samples", current.samples());
+        status.put("minSamples", minSamples);
+        status.put("minConfidence", minConfidence);
+        status.put("buckets", current.buckets());
+        status.put("watermark", watermark);
+        status.put("lastTrainedAt", lastTrainedAt);
+        status.put("lastTrainingMs", lastTrainingMillis);
+        return status;
+    }
+}
@@ -0,0 +1,232 @@
+package com.lmg.online.chatbot.ai.project.intent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Immutable hashed n-gram softmax (multinomial logistic regression) intent model.
+ *
+ * Features are character trigrams plus word unigrams and bigrams over the case-folded
+ * query, hashed straight into a power-of-two bucket space without building any strings.
+ * Weights live in one flat float array laid out [bucket * classes + class], so scoring a
+ * query is one pass over its characters plus a handful of adds per feature.
+ *
+ * Training is plain SGD on cross-entropy and can warm-start from a previous model, which
+ * is how the scheduled job retrains incrementally on new rows only.
+ */
+final class NgramIntentModel {
+
+    private static final int MAX_FEATURES = 512;
+    private static final int FNV_OFFSET = 0x811C9DC5;
+    private static final int FNV_PRIME = 0x01000193;
+    private static final int TRIGRAM_SEED = 0x3C6EF372;
+    private static final int WORD_SEED = 0x5BD1E995;
+    private static final int BIGRAM_SEED = 0x27D4EB2F;
+
+    private static final ThreadLocal<int[]> FEATURE_BUFFER =
+            ThreadLocal.withInitial(() -> new int[MAX_FEATURES]);
+
+    private final String[] intents;
+    private final int mask;
+    private final float[] weights;
+    private final float[] bias;
+    private final long samples;
+
+    private NgramIntentModel(String[] intents, int mask, float[] weights, float[] bias, long samples) {
+        this.intents = intents;
+        this.mask = mask;
+        this.weights = weights;
+        this.bias = bias;
+        this.samples = samples;
+    }
+
+    /**
+     * Untrained model - every bucket at zero
+     * @param buckets feature space size, rounded up to a power of two
+     */
+    static NgramIntentModel empty(String[] intents, int buckets) {
+        int size = Integer.highestOneBit(Math.max(buckets - 1, 1)) << 1;
+        return new NgramIntentModel(intents.clone(), size - 1,
+                new float[size * intents.length], new float[intents.length], 0);
+    }
+
+    /**
+     * Most probable intent and its softmax probability, or null for an empty query
+     */
+    IntentMatch match(String query) {
+        int[] features = FEATURE_BUFFER.get();
+        int count = extractFeatures(query, mask, features);
+        if (count == 0) {
+            return null;
+        }
+
+        double[] scores = new double[intents.length];
+        score(features, count, scores);
+        int best = softmax(scores);
+        return new IntentMatch(intents[best], scores[best], IntentTier.NGRAM);
+    }
+
+    /**
+     * A copy of this model trained further on the given samples
+     */
+    NgramIntentModel train(List<Sample> batch, int epochs, double learningRate, long seed) {
+        float[] w = weights.clone();
+        float[] b = bias.clone();
+        int classes = intents.length;
+        int[] features = new int[MAX_FEATURES];
+        double[] scores = new double[classes];
+        List<Sample> order = new ArrayList<>(batch);
+        Random random = new Random(seed);
+
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            Collections.shuffle(order, random);
+            for (Sample sample : order) {
+                int count = extractFeatures(sample.text(), mask, features);
+                if (count == 0) {
+                    continue;
+                }
+                float scale = (float) (1.0 / Math.sqrt(count));
+
+                for (int c = 0; c < classes; c++) {
+                    scores[c] = b[c];
+                }
+                for (int i = 0; i < count; i++) {
+                    int base = features[i] * classes;
+                    for (int c = 0; c < classes; c++) {
+                        scores[c] += w[base + c] * scale;
+                    }
+                }
+                softmax(scores);
+
+                for (int c = 0; c < classes; c++) {
+                    float gradient = (float) (learningRate * (scores[c] - (c == sample.label() ? 1 : 0)));
+                    b[c] -= gradient;
+                    float step = gradient * scale;
+                    for (int i = 0; i < count; i++) {
+                        w[features[i] * classes + c] -= step;
+                    }
+                }
+            }
+        }
+        return new NgramIntentModel(intents, mask, w, b, samples + batch.size());
+    }
+
+    int indexOf(String intent) {
+        for (int i = 0; i < intents.length; i++) {
+            if (intents[i].equals(intent)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    long samples() {
+        return samples;
+    }
+
+    int buckets() {
+        return mask + 1;
+    }
+
+    private void score(int[] features, int count, double[] scores) {
+        int classes = intents.length;
+        double scale = 1.0 / Math.sqrt(count);
+        for (int c = 0; c < classes; c++) {
+            scores[c] = bias[c];
+        }
+        for (int i = 0; i < count; i++) {
+            int base = features[i] * classes;
+            for (int c = 0; c < classes; c++) {
+                scores[c] += weights[base + c] * scale;
+            }
+        }
+    }
+
+    /**
+     * In-place softmax
+     * @return index of the largest probability
+     */
+    private static int softmax(double[] scores) {
+        int best = 0;
+        for (int c = 1; c < scores.length; c++) {
+            if (scores[c] > scores[best]) {
+                best = c;
+            }
+        }
+        double max = scores[best];
+        double sum = 0;
+        for (int c = 0; c < scores.length; c++) {
+            scores[c] = Math.exp(scores[c] - max);
+            sum += scores[c];
+        }
+        for (int c = 0; c < scores.length; c++) {
+            scores[c] /= sum;
+        }
+        return best;
+    }
+
+    /**
+     * Hashes char trigrams, words and word bigrams of the folded query into out
+     * @return number of features written
+     */
+    static int extractFeatures(CharSequence query, int mask, int[] out) {
+        if (query == null) {
+            return 0;
+        }
+
+        int count = 0;
+        char c1 = ' ';
+        char c2 = ' ';
+        int wordHash = FNV_OFFSET;
+        boolean inWord = false;
+        int previousWord = 0;
+        boolean hasPrevious = false;
+        int length = query.length();
+
+        for (int i = 0; i <= length && count <= out.length - 3; i++) {
+            char c = i < length ? Character.toLowerCase(query.charAt(i)) : ' ';
+            if (!Character.isLetterOrDigit(c)) {
+                c = ' ';
+            }
+            if (c == ' ' && c2 == ' ') {
+                continue;
+            }
+
+            out[count++] = fmix(((TRIGRAM_SEED ^ c1) * FNV_PRIME ^ c2) * FNV_PRIME ^ c) & mask;
+            c1 = c2;
+            c2 = c;
+
+            if (c != ' ') {
+                wordHash = (wordHash ^ c) * FNV_PRIME;
+                inWord = true;
+            } else if (inWord) {
+                out[count++] = fmix(WORD_SEED ^ wordHash) & mask;
+                if (hasPrevious) {
+                    out[count++] = fmix(BIGRAM_SEED ^ (previousWord * 31 + wordHash)) & mask;
+                }
+                previousWord = wordHash;
+                hasPrevious = true;
+                wordHash = FNV_OFFSET;
+                inWord = false;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Murmur3 finaliser - spreads FNV hashes evenly over the low bits used as bucket index
+     */
+    private static int fmix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    record Sample(String text, int label) {
+    }
+}
@@ -0,0 +1,185 @@
+package com.lmg.online.chatbot.ai.project.intent;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lmg.online.chatbot.ai.common.FollowUpCues;
+import com.lmg.online.chatbot.ai.request.ChatRequest;
+import com.lmg.online.chatbot.ai.tools.storelocator.dto.StoreView;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Server-side intent state per conversation, keyed by ChatRequest.userId and sessionId, so a
+ * guessed or leaked sessionId sent with another userId starts a fresh conversation instead of
+ * inheriting someone else's intent and location.
+ *
+ * Remembers the last intent a session was routed to plus the tool parameters it ran with
+ * (location, the order number, the stores last shown, the gift card's last four digits), so
+ * short follow-ups ("and the second one?") go straight back to the same handler without
+ * classification and with what they refer to. Bounded in size and evicted after a period
+ * of inactivity.
+ *
+ * A follow-up is a message of at most chatbot.session.follow-up-max-words words with a
+ * follow-up cue (see {@link FollowUpCues}) that the keyword tier does not confidently place
+ * elsewhere. A confident keyword match to a different intent is a topic switch, and a message
+ * without a cue (a new question, small talk) routes normally, through the n-gram, embedding
+ * and LLM tiers.
+ */
+@Slf4j
+@Component
+public class SessionIntentStore {
+
+    private final Cache<String, SessionIntent> sessions;
+    private final TieredIntentRouter intentRouter;
+    private final IntentRoutingStats routingStats;
+    private final int followUpMaxWords;
+
+    private final LongAdder followUps = new LongAdder();
+    private final LongAdder topicSwitches = new LongAdder();
+
+    public SessionIntentStore(
+            TieredIntentRouter intentRouter,
+            IntentRoutingStats routingStats,
+            @Value("${chatbot.session.ttl-minutes:30}") long ttlMinutes,
+            @Value("${chatbot.session.max-size:50000}") long maxSize,
+            @Value("${chatbot.session.follow-up-max-words:8}") int followUpMaxWords) {
+        this.intentRouter = intentRouter;
+        this.routingStats = routingStats;
+        this.followUpMaxWords = followUpMaxWords;
+        this.sessions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(Duration.ofMinutes(ttlMinutes))
+                .build();
+    }
+
+    /**
+     * @param routingQuery normalised query
+     * @return SESSION-tier match on the session's last intent, or null when there is no
+     *         live session, the message is not a follow-up, or the topic switched
+     */
+    public IntentMatch matchFollowUp(ChatRequest request, String routingQuery) {
+        String sessionId = request.getSessionId();
+        long start = System.nanoTime();
+        SessionIntent session = find(request);
+        if (session == null) {
+            return null;
+        }
+
+        IntentMatch keywordMatch = intentRouter.matchKeyword(routingQuery);
+        if (keywordMatch != null && !keywordMatch.intent().equals(session.intent())) {
+            topicSwitches.increment();
+            log.info("🔄 Session {} switched topic: {} -> {}", sessionId, session.intent(), keywordMatch.intent());
+            return null;
+        }
+        if (wordCount(routingQuery) > followUpMaxWords || !FollowUpCues.isFollowUp(routingQuery)) {
+            return null;
+        }
+
+        followUps.increment();
+        routingStats.record(IntentTier.SESSION, System.nanoTime() - start);
+        log.info("📌 Session {} follow-up routed to {}", sessionId, session.intent());
+        return new IntentMatch(session.intent(), 1.0, IntentTier.SESSION);
+    }
+
+    /**
+     * Fills tool parameters the follow-up left out (location, order number, stores, card ending)
+     * from the session
+     */
+    public void applyParameters(ChatRequest request) {
+        SessionIntent session = find(request);
+        if (session == null) {
+            return;
+        }
+        if (request.getLatitude() == 0 && request.getLongitude() == 0) {
+            request.setLatitude(session.latitude());
+            request.setLongitude(session.longitude());
+        }
+        if (request.getConcept() == null) {
+            request.setConcept(session.concept());
+        }
+        if (request.getOrderNumber() == null) {
+            request.setOrderNumber(session.orderNumber());
+        }
+        if (request.getLastStores() == null) {
+            request.setLastStores(session.lastStores());
+        }
+        if (request.getCardLast4() == null) {
+            request.setCardLast4(session.cardLast4());
+        }
+    }
+
+    /**
+     * Records the intent a session's request was served by and the tool parameters the
+     * handler captured on the request; parameters this turn did not touch carry over while
+     * the intent stays the same
+     */
+    public void remember(ChatRequest request, String intent) {
+        String key = key(request.getUserId(), request.getSessionId());
+        if (key == null || intent == null) {
+            return;
+        }
+        SessionIntent previous = sessions.getIfPresent(key);
+        SessionIntent carried = previous != null && previous.intent().equals(intent) ? previous : null;
+        // Only the card's last four digits are kept, never the card number or PIN
+        sessions.put(key, new SessionIntent(
+                intent,
+                request.getConcept(),
+                request.getLatitude(),
+                request.getLongitude(),
+                request.getOrderNumber() != null || carried == null ? request.getOrderNumber() : carried.orderNumber(),
+                request.getLastStores() != null || carried == null ? request.getLastStores() : carried.lastStores(),
+                request.getCardLast4() != null || carried == null ? request.getCardLast4() : carried.cardLast4(),
+                Instant.now()
+        ));
+    }
+
+    public void forget(String userId, String sessionId) {
+        String key = key(userId, sessionId);
+        if (key != null) {
+            sessions.invalidate(key);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("activeSessions", sessions.estimatedSize());
+        stats.put("followUps", followUps.sum());
+        stats.put("topicSwitches", topicSwitches.sum());
+        return stats;
+    }
+
+    private SessionIntent find(ChatRequest request) {
+        String key = key(request.getUserId(), request.getSessionId());
+        return key != null ? sessions.getIfPresent(key) : null;
+    }
+
+    /**
+     * Session state is only visible to the user that created it
+     */
+    private static String key(String userId, String sessionId) {
+        if (sessionId == null || sessionId.isBlank()) {
+            return null;
+        }
+        return (userId == null ? "" : userId.trim()) + '\u001f' + sessionId.trim();
+    }
+
+    private static int wordCount(String text) {
+        return text.isEmpty() ? 0 : text.split(" ").length;
+    }
+
+    /**
+     * Last intent of a session and the tool parameters it ran with
+     */
+    public record SessionIntent(String intent, String concept, double latitude, double longitude,
+                                String orderNumber, List<StoreView> lastStores, String cardLast4,
+                                Instant updatedAt) {
+    }
+}
@@ -0,0 +1,211 @@
+package com.lmg.online.chatbot.ai.project.intent;
+
+import com.lmg.online.chatbot.ai.common.ConceptBaseUrlResolver;
+import com.lmg.online.chatbot.ai.common.QueryCanonicalizer;
+import com.lmg.online.chatbot.ai.common.SymSpellDictionary;
+import com.lmg.online.chatbot.ai.project.handler.IntentHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Typo-tolerant query normaliser run ahead of intent routing.
+ *
+ * Misspelt tokens are corrected towards routing words: every handler's keywords, the concept
+ * names and a small domain vocabulary, so "trak my ordr" routes like "track my order".
+ * Handlers still receive the user's original message, and response-cache keys are built from
+ * it too, so a wrong correction can never share another question's answer.
+ *
+ * Only near-misses are corrected: tokens of at least four characters, without digits, that are
+ * not a known word and are one edit (insert, delete, substitute or swap) away from a routing
+ * word. The first letter must match too, unless it was a slip onto the neighbouring key ("mear"
+ * into "near"). Two edits turned real words into routing words ("shoes" into "shop", "dress"
+ * into "address"), so common and product words are known too.
+ */
+@Slf4j
+@Component
+public class SpellingCorrector {
+
+    private static final int ROUTING_FREQUENCY = 100;
+    private static final int MIN_TOKEN_LENGTH = 4;
+    private static final int MAX_EDITS = 1;
+
+    private static final List<String> DOMAIN_VOCABULARY = List.of(
+            "order", "orders", "package", "parcel", "shipment", "shipped", "delivery", "delivered",
+            "tracking", "track", "store", "stores", "shop", "mall", "outlet", "branch", "near", "nearby", "nearest",
+            "location", "address", "refund", "return", "exchange", "cancel", "policy", "profile", "account",
+            "gift", "card", "voucher", "balance", "customer", "care", "contact", "home", "centre", "baby"
+    );
+
+    private static final List<String> COMMON_WORDS = List.of(
+            "the", "and", "for", "you", "your", "are", "was", "were", "what", "where", "when", "why", "how",
+            "which", "who", "can", "could", "would", "should", "will", "does", "did", "have", "has", "had",
+            "get", "got", "give", "show", "tell", "find", "want", "need", "please", "pls", "from", "with",
+            "not", "yes", "any", "all", "there", "here", "close", "closest", "around", "city", "area",
+            "open", "opening", "hours", "time", "timing", "today", "now", "current", "latest", "status",
+            "check", "know", "help", "about", "still", "yet", "arrived", "arrive", "received", "receive",
+            "item", "items", "product", "products", "money", "back", "days", "long", "much", "many", "left",
+            "valid", "expiry", "number", "mobile", "phone", "email", "name", "details", "update", "change",
+            "hello", "thanks", "thank", "hey", "good", "morning", "evening", "size", "colour", "color",
+            "price", "offer", "offers", "sale", "discount", "coupon", "buy", "purchase", "payment", "paid",
+            "pay", "cash", "online", "website", "this", "that", "mine", "our", "its", "some", "info"
+    );
+
+    // Real words close to a routing word, known so they are never corrected into one
+    private static final List<String> KNOWN_WORDS = List.of(
+            "shoe", "shoes", "dress", "dresses", "shirt", "skirt", "short", "shorts", "cart", "cars", "cord",
+            "stone", "stole", "story", "stories", "score", "shore", "sore", "hole", "hope", "hose", "gold",
+            "fund", "fork", "wall", "older", "charge", "charged", "changes", "contract", "police", "shopping",
+            "shopped", "statue", "brunch", "trace", "trick", "truck", "mail", "mails", "male", "malt", "mill",
+            "bear", "neat", "stare", "ship", "shot"
+    );
+
+    private static final List<String> KEYBOARD_ROWS = List.of("qwertyuiop", "asdfghjkl", "zxcvbnm");
+
+    private final SymSpellDictionary dictionary;
+    private final Set<String> knownWords;
+    private final boolean enabled;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder corrected = new LongAdder();
+    private final LongAdder correctedTokens = new LongAdder();
+    private final LongAdder keywordRescues = new LongAdder();
+
+    public SpellingCorrector(
+            List<IntentHandler<?>> handlers,
+            @Value("${chatbot.routing.spelling.enabled:true}") boolean enabled) {
+        Map<String, Integer> routingWords = new HashMap<>();
+        DOMAIN_VOCABULARY.forEach(word -> routingWords.put(word, ROUTING_FREQUENCY));
+        ConceptBaseUrlResolver.getConcepts().forEach(concept -> routingWords.put(concept.toLowerCase(), ROUTING_FREQUENCY));
+        handlers.forEach(handler -> handler.getKeywords().forEach(keyword -> {
+            for (String word : QueryCanonicalizer.canonicalize(keyword, false).split(" ")) {
+                if (word.length() >= 3) {
+                    routingWords.put(word, ROUTING_FREQUENCY);
+                }
+            }
+        }));
+        Set<String> known = new HashSet<>(routingWords.keySet());
+        known.addAll(COMMON_WORDS);
+        known.addAll(KNOWN_WORDS);
+
+        this.dictionary = SymSpellDictionary.build(routingWords, MAX_EDITS);
+        this.knownWords = Set.copyOf(known);
+        this.enabled = enabled;
+        log.info("✅ Spelling dictionary built: {} routing words, {} known words", dictionary.size(), knownWords.size());
+    }
+
+    /**
+     * Case/punctuation-folded query with misspelt tokens replaced by dictionary words
+     */
+    public CorrectedQuery correct(String query) {
+        requests.increment();
+        CorrectedQuery result = apply(query);
+        if (result.changed()) {
+            corrected.increment();
+            correctedTokens.add(result.corrections());
+            log.info("✏️ Corrected query '{}' -> '{}'", query, result.text());
+        }
+        return result;
+    }
+
+    /**
+     * Same correction without touching the request counters, for sub-queries and probes
+     */
+    public String normalize(String query) {
+        return apply(query).text();
+    }
+
+    private CorrectedQuery apply(String query) {
+        String folded = QueryCanonicalizer.canonicalize(query, false);
+        if (!enabled || folded.isEmpty()) {
+            return new CorrectedQuery(folded, 0);
+        }
+
+        String[] tokens = folded.split(" ");
+        int changes = 0;
+        for (int i = 0; i < tokens.length; i++) {
+            String token = tokens[i];
+            if (token.length() < MIN_TOKEN_LENGTH || hasDigit(token) || knownWords.contains(token)) {
+                continue;
+            }
+            String replacement = dictionary.lookup(token, MAX_EDITS);
+            if (replacement != null && sameStart(token, replacement)) {
+                tokens[i] = replacement;
+                changes++;
+            }
+        }
+
+        return changes == 0
+                ? new CorrectedQuery(folded, 0)
+                : new CorrectedQuery(String.join(" ", tokens), changes);
+    }
+
+    /**
+     * A corrected query resolved in the keyword tier that its original would have missed
+     */
+    public void recordKeywordRescue() {
+        keywordRescues.increment();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("routingWords", dictionary.size());
+        stats.put("knownWords", knownWords.size());
+        stats.put("requests", requests.sum());
+        stats.put("correctedRequests", corrected.sum());
+        stats.put("correctedTokens", correctedTokens.sum());
+        stats.put("keywordTierRescues", keywordRescues.sum());
+        return stats;
+    }
+
+    /**
+     * Same first letter, or a neighbouring key with the rest of the word unchanged
+     */
+    private static boolean sameStart(String token, String replacement) {
+        char first = token.charAt(0);
+        char other = replacement.charAt(0);
+        if (first == other) {
+            return true;
+        }
+        if (token.length() != replacement.length() || !token.regionMatches(1, replacement, 1, token.length() - 1)) {
+            return false;
+        }
+        for (String row : KEYBOARD_ROWS) {
+            int a = row.indexOf(first);
+            int b = row.indexOf(other);
+            if (a >= 0 && b >= 0 && Math.abs(a - b) == 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasDigit(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            if (Character.isDigit(token.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param text    folded and corrected query, used for routing (never for response-cache keys)
+     * @param corrections number of tokens that were corrected
+     */
+    public record CorrectedQuery(String text, int corrections) {
+
+        public boolean changed() {
+            return corrections > 0;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.lmg.online.chatbot.ai.project.intent;
+
+import com.lmg.online.chatbot.ai.project.handler.IntentHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves the intent of a query through the cheapest tier that is confident enough:
+ * 1. Keyword automaton compiled from every handler's keywords (microseconds, no network)
+ * 2. AI classifier (full LLM round-trip) - only for ambiguous or low-confidence matches
+ */
+@Slf4j
+@Service
+public class TieredIntentRouter {
+
+    private final KeywordIntentMatcher keywordMatcher;
+    private final IntentClassifier intentClassifier;
+    private final IntentRoutingStats routingStats;
+    private final double keywordMinConfidence;
+
+    public TieredIntentRouter(
+            List<IntentHandler<?>> handlers,
+            IntentClassifier intentClassifier,
+            IntentRoutingStats routingStats,
+            @Value("${chatbot.routing.keyword.min-confidence:0.6}") double keywordMinConfidence) {
+
+        Map<String, List<String>> keywordsByIntent = new LinkedHashMap<>();
+        handlers.forEach(handler -> keywordsByIntent.put(handler.getIntentType(), handler.getKeywords()));
+
+        this.keywordMatcher = KeywordIntentMatcher.compile(keywordsByIntent);
+        this.intentClassifier = intentClassifier;
+        this.routingStats = routingStats;
+        this.keywordMinConfidence = keywordMinConfidence;
+
+        log.info("✅ Keyword tier compiled: {} intents, {} automaton states, min confidence {}",
+                keywordsByIntent.size(), keywordMatcher.stateCount(), keywordMinConfidence);
+    }
+
+    /**
+     * Routes the query, falling through to the AI classifier only when needed
+     */
+    public IntentMatch route(String query) {
+        long start = System.nanoTime();
+
+        IntentMatch keywordMatch = keywordMatcher.match(query);
+        if (isConfident(keywordMatch)) {
+            routingStats.record(IntentTier.KEYWORD, System.nanoTime() - start);
+            return keywordMatch;
+        }
+
+        log.info("🔀 Keyword tier inconclusive ({}), falling back to AI classifier", keywordMatch);
+        IntentMatch llmMatch = intentClassifier.match(query);
+        routingStats.record(llmMatch.tier(), System.nanoTime() - start);
+        return llmMatch;
+    }
+
+    /**
+     * Routes many queries together: keyword tier per query, everything left over goes to
+     * the AI classifier as one batch
+     * @return one match per query, in input order
+     */
+    public List<IntentMatch> routeBatch(List<String> queries) {
+        long start = System.nanoTime();
+        IntentMatch[] results = new IntentMatch[queries.size()];
+        List<Integer> pending = new ArrayList<>();
+
+        for (int i = 0; i < queries.size(); i++) {
+            IntentMatch keywordMatch = matchKeyword(queries.get(i));
+            if (keywordMatch != null) {
+                routingStats.record(IntentTier.KEYWORD, System.nanoTime() - start);
+                results[i] = keywordMatch;
+            } else {
+                pending.add(i);
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            List<IntentMatch> matches = intentClassifier.matchBatch(pending.stream().map(queries::get).toList());
+            long elapsed = System.nanoTime() - start;
+            for (int j = 0; j < pending.size(); j++) {
+                results[pending.get(j)] = matches.get(j);
+                routingStats.record(matches.get(j).tier(), elapsed);
+            }
+        }
+        log.info("📦 Routed batch of {} queries, {} past the keyword tier", queries.size(), pending.size());
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Routes the query through the local tiers only (keyword, cache, embedding)
+     * @return match, or null when an LLM call would be needed
+     */
+    public IntentMatch routeLocally(String query) {
+        long start = System.nanoTime();
+
+        IntentMatch keywordMatch = keywordMatcher.match(query);
+        IntentMatch match = isConfident(keywordMatch) ? keywordMatch : intentClassifier.matchLocally(query);
+        if (match != null) {
+            routingStats.record(match.tier(), System.nanoTime() - start);
+        }
+        return match;
+    }
+
+    /**
+     * AI classifier only, for a query {@link #routeLocally} returned null for
+     */
+    public IntentMatch routeRemotely(String query) {
+        long start = System.nanoTime();
+        IntentMatch match = intentClassifier.matchRemotely(query);
+        routingStats.record(match.tier(), System.nanoTime() - start);
+        return match;
+    }
+
+    /**
+     * Keyword tier only, without recording stats
+     * @return the keyword match if it is confident, otherwise null
+     */
+    public IntentMatch matchKeyword(String query) {
+        IntentMatch keywordMatch = keywordMatcher.match(query);
+        return keywordMatch != null && keywordMatch.confidence() >= keywordMinConfidence ? keywordMatch : null;
+    }
+
+    /**
+     * Keyword tier's leading intent even below the confidence threshold, without recording stats
+     * @return the best keyword guess, or null when no keyword matched
+     */
+    public IntentMatch keywordCandidate(String query) {
+        return keywordMatcher.match(query);
+    }
+
+    private boolean isConfident(IntentMatch keywordMatch) {
+        if (keywordMatch == null || keywordMatch.confidence() < keywordMinConfidence) {
+            return false;
+        }
+        log.info("⚡ Keyword tier: {} (confidence {})", keywordMatch.intent(),
+                String.format("%.2f", keywordMatch.confidence()));
+        return true;
+    }
+}
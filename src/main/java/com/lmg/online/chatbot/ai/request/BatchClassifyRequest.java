@@ -0,0 +1,10 @@
+package com.lmg.online.chatbot.ai.request;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchClassifyRequest {
+    private List<String> messages;
+}
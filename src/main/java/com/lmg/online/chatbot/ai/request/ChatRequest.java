@@ -1,10 +1,16 @@
 package com.lmg.online.chatbot.ai.request;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.lmg.online.chatbot.ai.tools.giftcard.dto.GiftCardBalanceRequest;
+import com.lmg.online.chatbot.ai.tools.storelocator.dto.StoreView;
 import lombok.Data;
 
+import java.util.List;
+
 @Data
 public class ChatRequest {
     private String message;
+    private String sessionId;
     private String previousResponse;
     private String userId;
     private String question;
@@ -15,7 +21,42 @@ public class ChatRequest {
     private String appid;
     private String cardNumber;
     private String pin;
+    // Several card/PIN pairs checked in one go (batch gift card balance)
+    private List<GiftCardBalanceRequest> giftCards;
+    // Server-side cache warm-up or refresh, not a user query: no usage analytics row
+    @JsonIgnore
+    private boolean background;
+    // What a follow-up may refer to, captured by the handler and kept by SessionIntentStore:
+    // the order asked about, the stores last shown (best first) and the gift card's last four digits
+    @JsonIgnore
+    private String orderNumber;
+    @JsonIgnore
+    private List<StoreView> lastStores;
+    @JsonIgnore
+    private String cardLast4;
+    // IntentTier that routed this request, logged with the analytics row as its training label source
+    @JsonIgnore
+    private String routedBy;
 
-
-
+    /**
+     * Copy of this request carrying a different message (sub-queries of a compound request)
+     */
+    public ChatRequest withMessage(String message) {
+        ChatRequest copy = new ChatRequest();
+        copy.setMessage(message);
+        copy.setSessionId(sessionId);
+        copy.setPreviousResponse(previousResponse);
+        copy.setUserId(userId);
+        copy.setQuestion(question);
+        copy.setConcept(concept);
+        copy.setEnv(env);
+        copy.setLatitude(latitude);
+        copy.setLongitude(longitude);
+        copy.setAppid(appid);
+        copy.setCardNumber(cardNumber);
+        copy.setPin(pin);
+        copy.setGiftCards(giftCards);
+        copy.setBackground(background);
+        return copy;
+    }
 }
@@ -50,6 +50,19 @@ public class GiftCardBalanceTool {
             String appId,
             String cardNumber,
             String pin) {
+        // The balance endpoint is anonymous: callWithAuthRetry authorises the call, not the user's token
+        return checkGiftCardBalance(concept, env, appId, cardNumber, pin);
+    }
+
+    /**
+     * Balance enquiry for callers outside tool calling, which have no user token to pass
+     */
+    public GiftCardBalanceResponse checkGiftCardBalance(
+            String concept,
+            String env,
+            String appId,
+            String cardNumber,
+            String pin) {
 
         // Build endpoint URL
         String url = ConceptBaseUrlResolver.buildApiUrl(
@@ -0,0 +1,124 @@
+package com.lmg.online.chatbot.ai.tools.giftcard;
+
+import com.lmg.online.chatbot.ai.common.TimedTasks;
+import com.lmg.online.chatbot.ai.tools.giftcard.dto.GiftCardBalanceRequest;
+import com.lmg.online.chatbot.ai.tools.giftcard.dto.GiftCardBalanceResponse;
+import com.lmg.online.chatbot.ai.tools.giftcard.dto.GiftCardError;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Balance of several gift cards in one request.
+ *
+ * Every card is enquired concurrently through GiftCardBalanceTool on the giftCardExecutor
+ * pool, so a batch takes about as long as its slowest card. A card that fails, exceeds
+ * chatbot.giftcard.batch.timeout-ms (its call is then interrupted) or finds the pool full gets
+ * an error entry of its own; the others are still returned. A card listed twice is enquired
+ * once.
+ */
+@Slf4j
+@Service
+public class GiftCardBatchService {
+
+    public static final String SERVER_ERROR = "lmg.giftcard.client.server.error";
+    public static final String TIMEOUT = "lmg.giftcard.client.timeout";
+
+    private final GiftCardBalanceTool giftCardBalanceTool;
+    private final AsyncTaskExecutor giftCardExecutor;
+    private final long timeoutMs;
+    private final int maxCards;
+
+    public GiftCardBatchService(
+            GiftCardBalanceTool giftCardBalanceTool,
+            @Qualifier("giftCardExecutor") AsyncTaskExecutor giftCardExecutor,
+            @Value("${chatbot.giftcard.batch.timeout-ms:10000}") long timeoutMs,
+            @Value("${chatbot.giftcard.batch.max-cards:20}") int maxCards) {
+        this.giftCardBalanceTool = giftCardBalanceTool;
+        this.giftCardExecutor = giftCardExecutor;
+        this.timeoutMs = timeoutMs;
+        this.maxCards = maxCards;
+    }
+
+    public int getMaxCards() {
+        return maxCards;
+    }
+
+    /**
+     * One result per card, in the order given
+     */
+    public List<GiftCardBalanceResponse> checkBalances(String concept, String env, String appId,
+                                                       List<GiftCardBalanceRequest> cards) {
+        if (cards.size() > maxCards) {
+            throw new IllegalArgumentException("At most " + maxCards + " gift cards can be checked at once");
+        }
+        long start = System.currentTimeMillis();
+        Map<String, CompletableFuture<GiftCardBalanceResponse>> lookups = new LinkedHashMap<>();
+        for (GiftCardBalanceRequest card : cards) {
+            String cardNumber = normalise(card.getCardNumber());
+            lookups.computeIfAbsent(key(cardNumber, card.getPin()), k -> TimedTasks
+                    .supplyAsync(() -> giftCardBalanceTool.checkGiftCardBalance(
+                            concept, env, appId, cardNumber, card.getPin()), giftCardExecutor, timeoutMs)
+                    .exceptionally(e -> failed(cardNumber, e)));
+        }
+
+        List<GiftCardBalanceResponse> results = cards.stream()
+                .map(card -> {
+                    String cardNumber = normalise(card.getCardNumber());
+                    GiftCardBalanceResponse result = lookups.get(key(cardNumber, card.getPin())).join();
+                    return withCardNumber(result != null ? result : failed(cardNumber, null), cardNumber);
+                })
+                .toList();
+        log.info("🎁 Checked {} gift cards ({} enquiries) in {}ms",
+                cards.size(), lookups.size(), System.currentTimeMillis() - start);
+        return results;
+    }
+
+    private static GiftCardBalanceResponse failed(String cardNumber, Throwable e) {
+        boolean timedOut = e instanceof TimeoutException || (e != null && e.getCause() instanceof TimeoutException);
+        log.warn("⚠️ Gift card enquiry for card ending {} failed: {}", lastFour(cardNumber),
+                timedOut ? "timed out" : e != null ? e.getMessage() : "no response");
+        GiftCardError error = new GiftCardError();
+        error.setMessage(timedOut ? TIMEOUT : SERVER_ERROR);
+        error.setReason(timedOut ? TIMEOUT : SERVER_ERROR);
+        GiftCardBalanceResponse response = new GiftCardBalanceResponse();
+        response.setErrorOccurred(true);
+        response.setErrors(List.of(error));
+        return response;
+    }
+
+    /**
+     * Results are shared between duplicate cards, so the card number is set on a copy
+     */
+    private static GiftCardBalanceResponse withCardNumber(GiftCardBalanceResponse result, String cardNumber) {
+        GiftCardBalanceResponse copy = new GiftCardBalanceResponse();
+        copy.setCardNumber(result.getCardNumber() != null ? result.getCardNumber() : cardNumber);
+        copy.setStatus(result.getStatus());
+        copy.setMessage(result.getMessage());
+        copy.setBalanceAmount(result.getBalanceAmount());
+        copy.setCurrency(result.getCurrency());
+        copy.setErrorOccurred(result.getErrorOccurred());
+        copy.setErrors(result.getErrors());
+        return copy;
+    }
+
+    private static String key(String cardNumber, String pin) {
+        return cardNumber + '\u001f' + (pin != null ? pin.trim() : "");
+    }
+
+    private static String normalise(String cardNumber) {
+        return cardNumber == null ? "" : cardNumber.replaceAll("[ -]", "").trim();
+    }
+
+    private static String lastFour(String cardNumber) {
+        return cardNumber.length() > 4 ? cardNumber.substring(cardNumber.length() - 4) : cardNumber;
+    }
+}
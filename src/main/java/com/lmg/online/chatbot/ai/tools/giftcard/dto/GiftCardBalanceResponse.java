@@ -42,4 +42,7 @@ public class GiftCardBalanceResponse {
 
     @JsonPropertyDescription("List of errors if the balance enquiry failed")
     private List<GiftCardError> errors;
+
+    @JsonPropertyDescription("Per-card results of a batch balance enquiry, in request order")
+    private List<GiftCardBalanceResponse> cards;
 }
@@ -10,12 +10,17 @@ import java.util.Objects;
 
 public class OrderDataProcessor {
 
+    /**
+     * Rewrites order numbers and product paths into site URLs. Idempotent, since a response
+     * shared between coalesced callers may pass through here more than once.
+     */
     public static void enrichOrderDetails(OrderResponse response, String conceptCode, String envPrefix) {
         if (response == null || response.getOrderDetailsList() == null) return;
 
         for (OrderDetail detail : response.getOrderDetailsList()) {
             // --- Ensure orderNo format is standardized
-            if (detail.getOrderNo() != null && !detail.getOrderNo().startsWith(conceptCode.substring(0, 2))) {
+            if (detail.getOrderNo() != null && !detail.getOrderNo().startsWith("http")
+                    && !detail.getOrderNo().startsWith(conceptCode.substring(0, 2))) {
                 detail.setOrderNo(ConceptBaseUrlResolver.buildReactUrl(conceptCode,envPrefix,"my-account/order/"+detail.getOrderNo()+"?iS=false&p=0"));
             }
 
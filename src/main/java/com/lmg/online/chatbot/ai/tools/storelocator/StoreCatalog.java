@@ -0,0 +1,348 @@
+package com.lmg.online.chatbot.ai.tools.storelocator;
+
+import com.lmg.online.chatbot.ai.tools.storelocator.dto.StoreData;
+import com.lmg.online.chatbot.ai.tools.storelocator.dto.StoreView;
+import com.lmg.online.chatbot.ai.tools.storelocator.helper.StoreLocatorHelper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable snapshot of one concept/env store list, indexed for nearest-store queries.
+ *
+ * Stores are bucketed in a uniform lat/lon grid. A query scans rings of cells outward from
+ * the user's cell and keeps the closest stores in a bounded max-heap, stopping once no
+ * unscanned ring can hold anything closer than the heap's worst entry. Stores are ranked by
+ * squared chord length between precomputed unit vectors: it orders exactly like the
+ * Haversine distance but needs no trigonometry per store, so only the returned stores get a
+ * Haversine distance. When the user is so far from every store that the rings would probe
+ * more cells than there are stores, all stores are scanned instead.
+ *
+ * Place-name queries ("stores in Pune", "near 560037") go through a StoreSearchIndex built
+ * with the catalog, so they work without coordinates. Every store is searchable by name;
+ * only stores with coordinates take part in nearest-store queries.
+ *
+ * Longitudes do not wrap at the antimeridian, which no concept's stores are near.
+ */
+public final class StoreCatalog {
+
+    private final List<StoreData> stores;
+    // Positions of the stores with coordinates
+    private final int[] located;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    // Unit vectors, for trig-free ranking
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] zs;
+    private final double cellDegrees;
+    private final Map<Long, int[]> cells;
+    private final int minLatCell;
+    private final int maxLatCell;
+    private final int minLonCell;
+    private final int maxLonCell;
+    private final StoreSearchIndex searchIndex;
+    private final long loadedAt = System.currentTimeMillis();
+
+    /**
+     * @param stores      stores from the store locator API; ones without coordinates are only
+     *                    found by search
+     * @param cellDegrees grid cell size in degrees (0.5 is about 55 km of latitude)
+     */
+    public StoreCatalog(List<StoreData> stores, double cellDegrees) {
+        this.stores = stores == null ? List.of() : List.copyOf(stores);
+        this.located = IntStream.range(0, this.stores.size())
+                .filter(i -> this.stores.get(i).getGeoPoint() != null)
+                .toArray();
+        this.cellDegrees = cellDegrees;
+        this.latitudes = new double[this.stores.size()];
+        this.longitudes = new double[this.stores.size()];
+        this.xs = new double[this.stores.size()];
+        this.ys = new double[this.stores.size()];
+        this.zs = new double[this.stores.size()];
+
+        Map<Long, List<Integer>> buckets = new HashMap<>();
+        int minLat = Integer.MAX_VALUE;
+        int maxLat = Integer.MIN_VALUE;
+        int minLon = Integer.MAX_VALUE;
+        int maxLon = Integer.MIN_VALUE;
+        for (int i : located) {
+            latitudes[i] = this.stores.get(i).getGeoPoint().getLatitude();
+            longitudes[i] = this.stores.get(i).getGeoPoint().getLongitude();
+            double lat = Math.toRadians(latitudes[i]);
+            double lon = Math.toRadians(longitudes[i]);
+            xs[i] = Math.cos(lat) * Math.cos(lon);
+            ys[i] = Math.cos(lat) * Math.sin(lon);
+            zs[i] = Math.sin(lat);
+            int latCell = cell(latitudes[i]);
+            int lonCell = cell(longitudes[i]);
+            buckets.computeIfAbsent(cellKey(latCell, lonCell), key -> new ArrayList<>()).add(i);
+            minLat = Math.min(minLat, latCell);
+            maxLat = Math.max(maxLat, latCell);
+            minLon = Math.min(minLon, lonCell);
+            maxLon = Math.max(maxLon, lonCell);
+        }
+        this.cells = new HashMap<>(buckets.size() * 2);
+        buckets.forEach((key, indexes) -> cells.put(key, indexes.stream().mapToInt(Integer::intValue).toArray()));
+        this.minLatCell = minLat;
+        this.maxLatCell = maxLat;
+        this.minLonCell = minLon;
+        this.maxLonCell = maxLon;
+        this.searchIndex = new StoreSearchIndex(this.stores);
+    }
+
+    /**
+     * Whether the client sent real coordinates; apps send (0,0) when location is unavailable
+     */
+    public static boolean isLocated(double latitude, double longitude) {
+        return (latitude != 0 || longitude != 0) && Math.abs(latitude) <= 90 && Math.abs(longitude) <= 180;
+    }
+
+    public int size() {
+        return stores.size();
+    }
+
+    public int cellCount() {
+        return cells.size();
+    }
+
+    public int termCount() {
+        return searchIndex.termCount();
+    }
+
+    public long getLoadedAt() {
+        return loadedAt;
+    }
+
+    /**
+     * Stores matching the place names in a query, best match first; among equal matches the
+     * closest first when the user is located. Distance is 0 when the user or the store has no
+     * coordinates. Empty when the query names no indexed place.
+     */
+    public List<StoreView> search(String query, double latitude, double longitude, int limit) {
+        StoreSearchIndex.Hits hits = searchIndex.search(query);
+        if (hits.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        boolean userLocated = isLocated(latitude, longitude);
+        int[] found = hits.stores();
+        // Stores without coordinates rank after the located ones of equal score
+        double[] distances = new double[found.length];
+        Integer[] order = new Integer[found.length];
+        for (int i = 0; i < found.length; i++) {
+            order[i] = i;
+            if (userLocated) {
+                distances[i] = stores.get(found[i]).getGeoPoint() == null ? Double.POSITIVE_INFINITY
+                        : StoreLocatorHelper.calculateDistance(
+                                latitude, longitude, latitudes[found[i]], longitudes[found[i]]);
+            }
+        }
+        // Hits are already by score; located users get the closer of equal matches first
+        if (userLocated) {
+            double[] scores = hits.scores();
+            Arrays.sort(order, (left, right) -> {
+                int byScore = Double.compare(scores[right], scores[left]);
+                return byScore != 0 ? byScore : Double.compare(distances[left], distances[right]);
+            });
+        }
+        List<StoreView> views = new ArrayList<>(Math.min(limit, found.length));
+        for (int i = 0; i < found.length && i < limit; i++) {
+            double distance = distances[order[i]];
+            views.add(StoreLocatorHelper.toView(stores.get(found[order[i]]),
+                    Double.isInfinite(distance) ? 0 : distance));
+        }
+        return views;
+    }
+
+    /**
+     * The limit nearest stores, closest first, with Haversine distances in km
+     */
+    public List<StoreView> nearest(double latitude, double longitude, int limit) {
+        if (located.length == 0 || limit <= 0) {
+            return List.of();
+        }
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        Heap heap = new Heap(Math.min(located.length, limit),
+                Math.cos(lat) * Math.cos(lon), Math.cos(lat) * Math.sin(lon), Math.sin(lat));
+
+        int userLatCell = cell(latitude);
+        int userLonCell = cell(longitude);
+        int lastRing = Math.max(
+                Math.max(Math.abs(userLatCell - minLatCell), Math.abs(userLatCell - maxLatCell)),
+                Math.max(Math.abs(userLonCell - minLonCell), Math.abs(userLonCell - maxLonCell)));
+
+        long probes = 0;
+        for (int ring = 0; ring <= lastRing; ring++) {
+            if (heap.isFull() && ringLowerBound(ring, latitude) > heap.worst()) {
+                break;
+            }
+            // Only the part of the ring that overlaps the occupied cells
+            int fromLat = Math.max(userLatCell - ring, minLatCell);
+            int toLat = Math.min(userLatCell + ring, maxLatCell);
+            int fromLon = Math.max(userLonCell - ring, minLonCell);
+            int toLon = Math.min(userLonCell + ring, maxLonCell);
+            probes += ring == 0 ? 1 : 2L * Math.max(0, toLat - fromLat + 1) + 2L * Math.max(0, toLon - fromLon + 1);
+            if (probes > located.length) {
+                heap.clear();
+                for (int store : located) {
+                    heap.offer(store);
+                }
+                break;
+            }
+            for (int latCell = fromLat; latCell <= toLat; latCell++) {
+                if (latCell == userLatCell - ring || latCell == userLatCell + ring) {
+                    // Full rows at the ring's top and bottom edge
+                    for (int lonCell = fromLon; lonCell <= toLon; lonCell++) {
+                        offerCell(heap, latCell, lonCell);
+                    }
+                } else {
+                    // Only the two end cells in between
+                    offerCell(heap, latCell, userLonCell - ring);
+                    offerCell(heap, latCell, userLonCell + ring);
+                }
+            }
+        }
+        return heap.toViews(latitude, longitude);
+    }
+
+    private void offerCell(Heap heap, int latCell, int lonCell) {
+        int[] members = cells.get(cellKey(latCell, lonCell));
+        if (members != null) {
+            for (int store : members) {
+                heap.offer(store);
+            }
+        }
+    }
+
+    /**
+     * Squared chord length no store in ring r or beyond can be under: such a store is r - 1
+     * whole cells away in latitude, or in longitude with both points no further poleward than
+     * the ring's outer edge (chord >= 2 cos(maxLat) sin(dLon / 2))
+     */
+    private double ringLowerBound(int ring, double latitude) {
+        if (ring <= 1) {
+            return 0;
+        }
+        double halfAngle = Math.toRadians(Math.min(180, (ring - 1) * cellDegrees)) / 2;
+        double farthestLatitude = Math.min(90, Math.abs(latitude) + (ring + 1) * cellDegrees);
+        double chord = 2 * Math.sin(halfAngle) * Math.cos(Math.toRadians(farthestLatitude));
+        return chord * chord;
+    }
+
+    /**
+     * Bounded max-heap of store indexes by squared chord length to the user
+     */
+    private final class Heap {
+
+        private final double ux;
+        private final double uy;
+        private final double uz;
+        private final double[] distances;
+        private final int[] members;
+        private int size;
+
+        Heap(int capacity, double ux, double uy, double uz) {
+            this.ux = ux;
+            this.uy = uy;
+            this.uz = uz;
+            this.distances = new double[capacity];
+            this.members = new int[capacity];
+        }
+
+        boolean isFull() {
+            return size == members.length;
+        }
+
+        double worst() {
+            return distances[0];
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        void offer(int store) {
+            double dx = xs[store] - ux;
+            double dy = ys[store] - uy;
+            double dz = zs[store] - uz;
+            double distance = dx * dx + dy * dy + dz * dz;
+            if (size < members.length) {
+                distances[size] = distance;
+                members[size] = store;
+                siftUp(size++);
+            } else if (distance < distances[0]) {
+                distances[0] = distance;
+                members[0] = store;
+                siftDown();
+            }
+        }
+
+        List<StoreView> toViews(double latitude, double longitude) {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (left, right) -> Double.compare(distances[left], distances[right]));
+            List<StoreView> views = new ArrayList<>(size);
+            for (Integer i : order) {
+                int store = members[i];
+                views.add(StoreLocatorHelper.toView(stores.get(store), StoreLocatorHelper.calculateDistance(
+                        latitude, longitude, latitudes[store], longitudes[store])));
+            }
+            return views;
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) / 2;
+                if (distances[parent] >= distances[index]) {
+                    return;
+                }
+                swap(parent, index);
+                index = parent;
+            }
+        }
+
+        private void siftDown() {
+            int index = 0;
+            while (true) {
+                int largest = index;
+                int left = 2 * index + 1;
+                int right = left + 1;
+                if (left < size && distances[left] > distances[largest]) {
+                    largest = left;
+                }
+                if (right < size && distances[right] > distances[largest]) {
+                    largest = right;
+                }
+                if (largest == index) {
+                    return;
+                }
+                swap(index, largest);
+                index = largest;
+            }
+        }
+
+        private void swap(int i, int j) {
+            double distance = distances[i];
+            distances[i] = distances[j];
+            distances[j] = distance;
+            int store = members[i];
+            members[i] = members[j];
+            members[j] = store;
+        }
+    }
+
+    private int cell(double degrees) {
+        return (int) Math.floor(degrees / cellDegrees);
+    }
+
+    private static long cellKey(int latCell, int lonCell) {
+        return ((long) latCell << 32) | (lonCell & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,163 @@
+package com.lmg.online.chatbot.ai.tools.storelocator;
+
+import com.lmg.online.chatbot.ai.auth.AuthenticationServiceUtil;
+import com.lmg.online.chatbot.ai.common.ConceptBaseUrlResolver;
+import com.lmg.online.chatbot.ai.common.SingleFlight;
+import com.lmg.online.chatbot.ai.tools.storelocator.dto.StoreData;
+import com.lmg.online.chatbot.ai.tools.storelocator.dto.StoreList;
+import com.lmg.online.chatbot.ai.tools.storelocator.dto.StoreLocatorAPIResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory store catalog per concept/env/appId, so nearest-store queries are answered
+ * without calling the store locator API. appId is part of the key because it is sent to the
+ * API, which may list different stores per channel.
+ *
+ * A catalog is fetched on the first query for its key (concurrent first queries share one
+ * fetch) and re-fetched in the background every chatbot.store.catalog.refresh-interval-ms.
+ * An empty store list counts as a failed fetch: a failed first fetch installs nothing, so
+ * the next query tries again, and a failed refresh keeps serving the previous catalog;
+ * store lists change about once a day.
+ */
+@Slf4j
+@Service
+public class StoreCatalogService {
+
+    private final AuthenticationServiceUtil authenticationServiceUtil;
+    private final double cellDegrees;
+
+    private final Map<String, Loaded> catalogs = new ConcurrentHashMap<>();
+    private final SingleFlight<String, Loaded> loads = new SingleFlight<>();
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder searchHits = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+
+    /**
+     * A catalog and what is needed to fetch it again
+     */
+    private record Loaded(StoreCatalog catalog, String concept, String env, String appId) {
+    }
+
+    public StoreCatalogService(
+            AuthenticationServiceUtil authenticationServiceUtil,
+            @Value("${chatbot.store.catalog.cell-degrees:0.5}") double cellDegrees) {
+        this.authenticationServiceUtil = authenticationServiceUtil;
+        this.cellDegrees = cellDegrees;
+    }
+
+    /**
+     * The limit stores nearest to lat/lng, closest first
+     */
+    public StoreList nearest(String concept, String env, String appId, double lat, double lng, int limit) {
+        queries.increment();
+        StoreList stores = new StoreList();
+        stores.setStores(catalogFor(concept, env, appId).nearest(lat, lng, limit));
+        return stores;
+    }
+
+    /**
+     * Stores matching the place names in query (city, pincode, mall or store name), or an
+     * empty list when it names none
+     */
+    public StoreList search(String concept, String env, String appId, String query,
+                            double lat, double lng, int limit) {
+        searches.increment();
+        StoreList stores = new StoreList();
+        stores.setStores(catalogFor(concept, env, appId).search(query, lat, lng, limit));
+        if (!stores.getStores().isEmpty()) {
+            searchHits.increment();
+        }
+        return stores;
+    }
+
+    public StoreCatalog catalogFor(String concept, String env, String appId) {
+        String key = key(concept, env, appId);
+        Loaded loaded = catalogs.get(key);
+        if (loaded != null) {
+            return loaded.catalog();
+        }
+        return loads.execute(key, () -> catalogs.computeIfAbsent(key, k -> fetch(concept, env, appId)))
+                .value()
+                .catalog();
+    }
+
+    /**
+     * Re-fetches every catalog loaded so far
+     */
+    @Scheduled(
+            initialDelayString = "${chatbot.store.catalog.refresh-interval-ms:21600000}",
+            fixedDelayString = "${chatbot.store.catalog.refresh-interval-ms:21600000}")
+    public void refreshAll() {
+        catalogs.forEach((key, loaded) -> {
+            try {
+                catalogs.put(key, fetch(loaded.concept(), loaded.env(), loaded.appId()));
+            } catch (Exception e) {
+                refreshFailures.increment();
+                log.warn("⚠️ Store catalog refresh for {} failed, keeping {} stores from {}: {}",
+                        key, loaded.catalog().size(), Instant.ofEpochMilli(loaded.catalog().getLoadedAt()),
+                        e.getMessage());
+            }
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> byCatalog = new TreeMap<>();
+        catalogs.forEach((key, loaded) -> {
+            Map<String, Object> catalog = new LinkedHashMap<>();
+            catalog.put("stores", loaded.catalog().size());
+            catalog.put("cells", loaded.catalog().cellCount());
+            catalog.put("searchTerms", loaded.catalog().termCount());
+            catalog.put("loadedAt", Instant.ofEpochMilli(loaded.catalog().getLoadedAt()).toString());
+            byCatalog.put(key, catalog);
+        });
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("catalogs", byCatalog);
+        stats.put("cellDegrees", cellDegrees);
+        stats.put("queries", queries.sum());
+        stats.put("searches", searches.sum());
+        stats.put("searchHits", searchHits.sum());
+        stats.put("refreshFailures", refreshFailures.sum());
+        stats.put("loads", loads.snapshot());
+        return stats;
+    }
+
+    private Loaded fetch(String concept, String env, String appId) {
+        long start = System.currentTimeMillis();
+        String url = ConceptBaseUrlResolver.buildApiUrl(concept, env, "/en/storeLocator/", appId);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        StoreLocatorAPIResponse response = authenticationServiceUtil.callWithAuthRetry(
+                appId, url, HttpMethod.POST, headers, null, StoreLocatorAPIResponse.class, env).getBody();
+        List<StoreData> stores = response != null ? response.getStores() : null;
+        if (stores == null || stores.isEmpty()) {
+            throw new IllegalStateException("Store locator returned no stores for " + key(concept, env, appId));
+        }
+        StoreCatalog catalog = new StoreCatalog(stores, cellDegrees);
+        log.info("🏬 Store catalog {} loaded: {} stores in {} cells ({}ms)",
+                key(concept, env, appId), catalog.size(), catalog.cellCount(), System.currentTimeMillis() - start);
+        return new Loaded(catalog, concept, env, appId);
+    }
+
+    private static String key(String concept, String env, String appId) {
+        return (concept == null ? "" : concept.trim().toUpperCase(Locale.ROOT))
+                + "|" + (env == null ? "" : env.trim())
+                + "|" + (appId == null ? "" : appId.trim());
+    }
+}
@@ -0,0 +1,245 @@
+package com.lmg.online.chatbot.ai.tools.storelocator;
+
+import com.lmg.online.chatbot.ai.tools.storelocator.dto.Address;
+import com.lmg.online.chatbot.ai.tools.storelocator.dto.StoreData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Inverted index over a catalog's store names, cities, postal codes and address lines, for
+ * place-name queries such as "stores in Pune", "Max near 560037" or "Phoenix Marketcity".
+ *
+ * Each query word is looked up exactly, then as a prefix of indexed terms ("banga" finds
+ * "bangalore"), then within one or two edits for longer words ("bengalru"). Digit words only
+ * match exactly or by prefix. A store scores the IDF of its best match per query word, so rare
+ * place terms dominate. Name and address-line terms in more than half of the stores, such as a
+ * concept name in every store name, carry no place information and are skipped, as are words
+ * matching nothing. City and postal-code terms always count, so "Dubai" still finds stores
+ * when every store is in Dubai.
+ */
+final class StoreSearchIndex {
+
+    private static final double EXACT = 1.0;
+    private static final double PREFIX = 0.8;
+    private static final double FUZZY = 0.7;
+    private static final int MAX_PREFIX_TERMS = 50;
+    // Stores scoring at least this share of the best score are returned
+    private static final double RELATIVE_CUTOFF = 0.5;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "store", "stores", "shop", "shops", "outlet", "outlets", "branch", "branches", "mall", "malls",
+            "location", "locations", "address", "near", "nearby", "nearest", "close", "closest", "around",
+            "me", "my", "in", "at", "to", "of", "the", "a", "an", "and", "or", "is", "are", "any", "find",
+            "show", "where", "which", "what", "please", "there", "here", "open", "timings", "hours", "get",
+            "by", "i", "you", "can", "want", "visit", "how", "far", "city", "area", "pincode", "pin", "code"
+    );
+
+    private final String[] terms;
+    private final int[][] postings;
+    private final double[] idf;
+    // Terms from a city or postal code, exempt from the more-than-half cutoff
+    private final boolean[] alwaysPlace;
+    private final int storeCount;
+
+    /**
+     * Hits of a query: store positions in the catalog, best score first, and their scores
+     */
+    record Hits(int[] stores, double[] scores) {
+
+        static final Hits NONE = new Hits(new int[0], new double[0]);
+
+        boolean isEmpty() {
+            return stores.length == 0;
+        }
+    }
+
+    StoreSearchIndex(List<StoreData> stores) {
+        Map<String, TreeSet<Integer>> index = new TreeMap<>();
+        Set<String> placeTerms = new HashSet<>();
+        for (int i = 0; i < stores.size(); i++) {
+            StoreData store = stores.get(i);
+            Address address = store.getAddress();
+            addTerms(index, i, store.getStoreName());
+            addTerms(index, i, store.getLine1());
+            addTerms(index, i, store.getLine2());
+            placeTerms.addAll(addTerms(index, i, store.getPostalCode()));
+            if (address != null) {
+                placeTerms.addAll(addTerms(index, i, address.getCity()));
+                placeTerms.addAll(addTerms(index, i, address.getPostalCode()));
+                addTerms(index, i, address.getLine1());
+                addTerms(index, i, address.getLine2());
+            }
+        }
+        this.storeCount = stores.size();
+        this.terms = new String[index.size()];
+        this.postings = new int[index.size()][];
+        this.idf = new double[index.size()];
+        this.alwaysPlace = new boolean[index.size()];
+        int t = 0;
+        for (Map.Entry<String, TreeSet<Integer>> entry : index.entrySet()) {
+            terms[t] = entry.getKey();
+            alwaysPlace[t] = placeTerms.contains(entry.getKey());
+            postings[t] = entry.getValue().stream().mapToInt(Integer::intValue).toArray();
+            idf[t] = Math.log(1 + (double) storeCount / postings[t].length);
+            t++;
+        }
+    }
+
+    int termCount() {
+        return terms.length;
+    }
+
+    Hits search(String query) {
+        if (query == null || query.isBlank() || terms.length == 0) {
+            return Hits.NONE;
+        }
+        double[] scores = new double[storeCount];
+        for (String word : tokenize(query)) {
+            if (word.length() < 2 || STOP_WORDS.contains(word)) {
+                continue;
+            }
+            // Best match per store for this word, so several prefix terms do not add up
+            Map<Integer, Double> best = new HashMap<>();
+            for (int[] match : matches(word)) {
+                double weight = match[1] == 0 ? EXACT : match[1] == 1 ? PREFIX : FUZZY;
+                double score = weight * idf[match[0]];
+                for (int store : postings[match[0]]) {
+                    best.merge(store, score, Math::max);
+                }
+            }
+            best.forEach((store, score) -> scores[store] += score);
+        }
+
+        double top = 0;
+        for (double score : scores) {
+            top = Math.max(top, score);
+        }
+        if (top == 0) {
+            return Hits.NONE;
+        }
+        List<Integer> hits = new ArrayList<>();
+        for (int store = 0; store < storeCount; store++) {
+            if (scores[store] >= top * RELATIVE_CUTOFF) {
+                hits.add(store);
+            }
+        }
+        hits.sort((left, right) -> Double.compare(scores[right], scores[left]));
+        return new Hits(
+                hits.stream().mapToInt(Integer::intValue).toArray(),
+                hits.stream().mapToDouble(store -> scores[store]).toArray());
+    }
+
+    /**
+     * Indexed terms matching a word, as {term, kind} with kind 0 exact, 1 prefix, 2 fuzzy;
+     * only the best kind that matches anything is returned
+     */
+    private List<int[]> matches(String word) {
+        List<int[]> found = new ArrayList<>();
+        int at = Arrays.binarySearch(terms, word);
+        if (at >= 0) {
+            if (isPlaceTerm(at)) {
+                found.add(new int[]{at, 0});
+            }
+            return found;
+        }
+        if (word.length() >= 3) {
+            for (int t = -at - 1; t < terms.length && terms[t].startsWith(word) && found.size() < MAX_PREFIX_TERMS; t++) {
+                if (isPlaceTerm(t)) {
+                    found.add(new int[]{t, 1});
+                }
+            }
+            if (!found.isEmpty()) {
+                return found;
+            }
+        }
+        int maxEdits = word.length() >= 8 ? 2 : word.length() >= 5 ? 1 : 0;
+        if (maxEdits == 0 || Character.isDigit(word.charAt(0))) {
+            return found;
+        }
+        for (int t = 0; t < terms.length; t++) {
+            if (Math.abs(terms[t].length() - word.length()) <= maxEdits
+                    && !Character.isDigit(terms[t].charAt(0))
+                    && isPlaceTerm(t)
+                    && editDistance(word, terms[t], maxEdits) <= maxEdits) {
+                found.add(new int[]{t, 2});
+            }
+        }
+        return found;
+    }
+
+    private boolean isPlaceTerm(int term) {
+        return alwaysPlace[term] || storeCount <= 2 || postings[term].length * 2 <= storeCount;
+    }
+
+    /**
+     * @return the terms added
+     */
+    private static List<String> addTerms(Map<String, TreeSet<Integer>> index, int store, String text) {
+        if (text == null) {
+            return List.of();
+        }
+        List<String> terms = tokenize(text);
+        for (String term : terms) {
+            index.computeIfAbsent(term, key -> new TreeSet<>()).add(store);
+        }
+        return terms;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                token.append(c);
+            } else if (!token.isEmpty()) {
+                tokens.add(token.toString().toLowerCase(Locale.ROOT));
+                token.setLength(0);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Optimal string alignment distance (adjacent transpositions count once), giving up
+     * above max
+     */
+    static int editDistance(String a, String b, int max) {
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int distance = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    distance = Math.min(distance, previous2[j - 2] + 1);
+                }
+                current[j] = distance;
+                rowMin = Math.min(rowMin, distance);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+}
@@ -18,4 +18,8 @@ public class StoreList {
    @JsonPropertyDescription("List of stores matching the query")
    private List<StoreView> stores;
 
+   @JsonProperty("chat_message")
+   @JsonPropertyDescription("Short reply naming the nearest stores")
+   private String chat_message;
+
 }
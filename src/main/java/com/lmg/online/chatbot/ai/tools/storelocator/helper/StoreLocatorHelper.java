@@ -1,5 +1,6 @@
 package com.lmg.online.chatbot.ai.tools.storelocator.helper;
 
+import com.lmg.online.chatbot.ai.tools.storelocator.dto.StoreData;
 import com.lmg.online.chatbot.ai.tools.storelocator.dto.StoreList;
 import com.lmg.online.chatbot.ai.tools.storelocator.dto.StoreLocatorAPIResponse;
 import com.lmg.online.chatbot.ai.tools.storelocator.dto.StoreView;
@@ -31,23 +32,8 @@ public class StoreLocatorHelper {
 
         List<StoreView> storeViewLis= response.getStores().stream()
                 .filter(s -> s.getGeoPoint() != null)
-                .map(s -> {
-                    double lat = s.getGeoPoint().getLatitude();
-                    double lon = s.getGeoPoint().getLongitude();
-                    double distance = calculateDistance(userLat, userLon, lat, lon);
-
-                    return new StoreView(
-                            s.getStoreId(),
-                            s.getStoreName(),
-                            s.getAddress() != null ? s.getAddress().getCity() : "N/A",
-                            s.getAddress() != null ? s.getAddress().getContactNumber() : "N/A",
-                            s.getAddress() != null ? s.getAddress().getContactNumber(): "N/A",
-                            s.getWorkingHours(),
-                            lat,
-                            lon,
-                            distance,s.getAddress() != null ?s.getAddress().getLine1():"", s.getAddress() != null ?s.getAddress().getLine2():"", s.getAddress() != null ?s.getAddress().getPostalCode():""
-                    );
-                })
+                .map(s -> toView(s, calculateDistance(userLat, userLon,
+                        s.getGeoPoint().getLatitude(), s.getGeoPoint().getLongitude())))
                 .sorted(Comparator.comparingDouble(StoreView::getDistance))
                 .limit(limit)
                 .collect(Collectors.toList());
@@ -57,10 +43,28 @@ public class StoreLocatorHelper {
         return st;
     }
 
+    /**
+     * Store as returned to the user, with its distance in km; a store without coordinates
+     * gets (0,0), which clients already treat as no location
+     */
+    public static StoreView toView(StoreData s, double distance) {
+        return new StoreView(
+                s.getStoreId(),
+                s.getStoreName(),
+                s.getAddress() != null ? s.getAddress().getCity() : "N/A",
+                s.getAddress() != null ? s.getAddress().getAddress() : "N/A",
+                s.getAddress() != null ? s.getAddress().getContactNumber() : "N/A",
+                s.getWorkingHours(),
+                s.getGeoPoint() != null ? s.getGeoPoint().getLatitude() : 0,
+                s.getGeoPoint() != null ? s.getGeoPoint().getLongitude() : 0,
+                distance, s.getAddress() != null ? s.getAddress().getLine1() : "", s.getAddress() != null ? s.getAddress().getLine2() : "", s.getAddress() != null ? s.getAddress().getPostalCode() : ""
+        );
+    }
+
     /**
      * Haversine formula to calculate distance (in km) between two lat/lon points.
      */
-    private static double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
+    public static double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
         final int EARTH_RADIUS = 6371; // in km
         double dLat = Math.toRadians(lat2 - lat1);
         double dLon = Math.toRadians(lon2 - lon1);
@@ -0,0 +1,38 @@
+package com.lmg.online.chatbot.ai.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FollowUpCuesTest {
+
+    @Test
+    void referencesOrdinalsAndFillerAreFollowUps() {
+        for (String query : List.of("is it shipped yet?", "and the second one?", "what about the 3rd",
+                "and now?", "any update", "same for that store",
+                "ok is it shipped")) {
+            assertTrue(FollowUpCues.isFollowUp(query), query);
+        }
+    }
+
+    @Test
+    void newQuestionsAndSmallTalkAreNot() {
+        for (String query : List.of("what is your return policy", "stores in pune", "thanks", "hello there?!",
+                "ok thank you for that", "")) {
+            assertFalse(FollowUpCues.isFollowUp(query), query);
+        }
+    }
+
+    @Test
+    void ordinalIndexWithinTheList() {
+        assertEquals(1, FollowUpCues.ordinalIndex("where is the second one", 3));
+        assertEquals(2, FollowUpCues.ordinalIndex("the 3rd", 3));
+        assertEquals(2, FollowUpCues.ordinalIndex("and the last?", 3));
+        assertEquals(-1, FollowUpCues.ordinalIndex("the fifth", 3));
+        assertEquals(-1, FollowUpCues.ordinalIndex("nearest store", 3));
+    }
+}
@@ -0,0 +1,55 @@
+package com.lmg.online.chatbot.ai.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MessageTemplateTest {
+
+    @Test
+    void rendersNamedPlaceholders() {
+        MessageTemplate template = MessageTemplate.compile("Your order for {product} is {status}.");
+
+        assertEquals("Your order for Blue Shirt is Shipped.",
+                template.render(Map.of("product", "Blue Shirt", "status", "Shipped")));
+    }
+
+    @Test
+    void missingAndNullValuesRenderEmpty() {
+        MessageTemplate template = MessageTemplate.compile("Hi {name}! {greeting}");
+        Map<String, Object> values = new HashMap<>();
+        values.put("greeting", null);
+
+        assertEquals("Hi ! ", template.render(values));
+    }
+
+    @Test
+    void placeholderAtEitherEndAndRepeated() {
+        MessageTemplate template = MessageTemplate.compile("{count} of {count}");
+
+        assertEquals("3 of 3", template.render(Map.of("count", 3)));
+    }
+
+    @Test
+    void textWithoutPlaceholdersIsKept() {
+        assertEquals("No orders.", MessageTemplate.compile("No orders.").render(Map.of()));
+    }
+
+    @Test
+    void appendsToAnExistingBuilder() {
+        StringBuilder sb = new StringBuilder("Hi Asha! ");
+
+        MessageTemplate.compile(" Expected delivery: {date}.").appendTo(sb, Map.of("date", "12 Oct"));
+
+        assertEquals("Hi Asha!  Expected delivery: 12 Oct.", sb.toString());
+    }
+
+    @Test
+    void unclosedPlaceholderIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> MessageTemplate.compile("Your order {status"));
+    }
+}
@@ -0,0 +1,103 @@
+package com.lmg.online.chatbot.ai.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MicroBatcherTest {
+
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+    @Test
+    void fullBatchesAreSplitAtMaxBatchSize() throws Exception {
+        try (MicroBatcher<Integer, Integer> batcher = new MicroBatcher<>("test-batcher", 200, 2, this::times10, Runnable::run)) {
+            List<CompletableFuture<Integer>> futures = List.of(
+                    batcher.submit(1), batcher.submit(2), batcher.submit(3), batcher.submit(4), batcher.submit(5));
+
+            for (int i = 0; i < futures.size(); i++) {
+                assertEquals((i + 1) * 10, futures.get(i).get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(List.of(2, 2, 1), batchSizes);
+        }
+    }
+
+    @Test
+    void windowClosesAPartialBatch() throws Exception {
+        try (MicroBatcher<Integer, Integer> batcher = new MicroBatcher<>("test-batcher", 50, 10, this::times10, Runnable::run)) {
+            CompletableFuture<Integer> first = batcher.submit(1);
+            CompletableFuture<Integer> second = batcher.submit(2);
+            CompletableFuture<Integer> third = batcher.submit(3);
+
+            assertEquals(30, third.get(5, TimeUnit.SECONDS));
+            assertEquals(10, first.get());
+            assertEquals(20, second.get());
+            assertEquals(List.of(3), batchSizes);
+            assertEquals(1L, batcher.snapshot().get("batches"));
+        }
+    }
+
+    @Test
+    void sizeMismatchFailsEveryCaller() throws Exception {
+        try (MicroBatcher<Integer, Integer> batcher = new MicroBatcher<>("test-batcher", 50, 3,
+                items -> List.of(0), Runnable::run)) {
+            List<CompletableFuture<Integer>> futures = List.of(batcher.submit(1), batcher.submit(2), batcher.submit(3));
+
+            for (CompletableFuture<Integer> future : futures) {
+                ExecutionException failure = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(IllegalStateException.class, failure.getCause());
+            }
+        }
+    }
+
+    @Test
+    void shutdownFailsQueuedAndLaterItems() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MicroBatcher<Integer, Integer> batcher = new MicroBatcher<>("test-batcher", 0, 1, items -> {
+            started.countDown();
+            awaitUninterruptibly(release);
+            return times10(items);
+        }, Runnable::run);
+
+        CompletableFuture<Integer> inFlight = batcher.submit(1);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Integer> queued = batcher.submit(2);
+        batcher.close();
+        release.countDown();
+
+        assertEquals(10, inFlight.get(5, TimeUnit.SECONDS));
+        ExecutionException drained = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, drained.getCause());
+        assertTrue(batcher.submit(3).isCompletedExceptionally());
+    }
+
+    private List<Integer> times10(List<Integer> items) {
+        batchSizes.add(items.size());
+        return items.stream().map(item -> item * 10).toList();
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
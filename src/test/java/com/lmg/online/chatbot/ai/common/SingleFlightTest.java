@@ -0,0 +1,65 @@
+package com.lmg.online.chatbot.ai.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> flight = new SingleFlight<>();
+
+    @Test
+    void concurrentCallerSharesTheInFlightResult() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<SingleFlight.Result<String>> leader = CompletableFuture.supplyAsync(
+                () -> flight.execute("k", () -> {
+                    started.countDown();
+                    await(release);
+                    return "leader";
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<SingleFlight.Result<String>> waiter = CompletableFuture.supplyAsync(
+                () -> flight.execute("k", () -> "waiter", 5000));
+        Thread.sleep(50);
+        release.countDown();
+
+        assertEquals("leader", waiter.get(5, TimeUnit.SECONDS).value());
+        assertTrue(waiter.get().shared());
+        assertFalse(leader.get(5, TimeUnit.SECONDS).shared());
+    }
+
+    @Test
+    void waiterRunsItsOwnComputationAfterTheWaitTimeout() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture.runAsync(() -> flight.execute("k", () -> {
+            started.countDown();
+            await(release);
+            return "stuck";
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        SingleFlight.Result<String> result = flight.execute("k", () -> "own", 50);
+        release.countDown();
+
+        assertEquals("own", result.value());
+        assertFalse(result.shared());
+        assertEquals(1L, flight.snapshot().get("waitTimeouts"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.lmg.online.chatbot.ai.common;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimedTasksTest {
+
+    private ThreadPoolTaskExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void completesWithTheResult() {
+        assertEquals("done", TimedTasks.supplyAsync(() -> "done", executor, 1000).join());
+    }
+
+    @Test
+    void timedOutTaskIsInterrupted() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        CompletableFuture<String> slow = TimedTasks.supplyAsync(() -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return "late";
+        }, executor, 50);
+
+        Throwable failure = slow.handle((value, e) -> e).get(5, TimeUnit.SECONDS);
+        assertInstanceOf(TimeoutException.class, failure);
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS), "task kept running after its deadline");
+    }
+
+    @Test
+    void fullPoolRejectsInsteadOfRunningOnTheCaller() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> busy = TimedTasks.supplyAsync(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "busy";
+        }, executor, 5000);
+
+        CompletableFuture<Thread> rejected = TimedTasks.supplyAsync(Thread::currentThread, executor, 5000);
+
+        Throwable failure = rejected.handle((value, e) -> e).get(5, TimeUnit.SECONDS);
+        assertInstanceOf(RejectedExecutionException.class, failure);
+        release.countDown();
+        assertEquals("busy", busy.get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,76 @@
+package com.lmg.online.chatbot.ai.project.cache;
+
+import com.lmg.online.chatbot.ai.common.QueryCanonicalizer;
+import com.lmg.online.chatbot.ai.request.ChatRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Key construction cost per request: CacheKeys against the former regex + MD5 schemes.
+ *
+ * Run with the main method (or any JMH runner); add -prof gc to see allocation per key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheKeyBenchmark {
+
+    @Param({
+            "What is your return policy?",
+            "Hi, can you please tell me where is my order 1234567890 placed last week",
+            "Find stores near me"
+    })
+    public String message;
+
+    private ChatRequest request;
+    private String folded;
+
+    @Setup
+    public void setUp() {
+        request = new ChatRequest();
+        request.setMessage(message);
+        request.setUserId("user-42");
+        request.setConcept("LIFESTYLE");
+        request.setEnv("prod");
+        request.setLatitude(12.9716);
+        request.setLongitude(77.5946);
+        folded = QueryCanonicalizer.canonicalize(message, false);
+    }
+
+    @Benchmark
+    public String legacyServiceKey() {
+        return LegacyCacheKeys.serviceKey(request, folded);
+    }
+
+    @Benchmark
+    public String legacyKeyGeneratorKey() {
+        return LegacyCacheKeys.keyGeneratorKey(request);
+    }
+
+    @Benchmark
+    public String canonicalKey() {
+        return CacheKeys.forRequest(request, folded);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(CacheKeyBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,94 @@
+package com.lmg.online.chatbot.ai.project.cache;
+
+import com.lmg.online.chatbot.ai.common.QueryCanonicalizer;
+import com.lmg.online.chatbot.ai.request.ChatRequest;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Replays logged prompts through an LRU cache under the legacy and the canonical key
+ * schemes and prints the hit ratio of each.
+ *
+ * A hit whose prompt differs from the cached one in more than case, spacing and punctuation
+ * is counted as a false hit: two different questions that only share a key because filler
+ * words were dropped. The first few are printed so the filler list can be checked against
+ * real traffic.
+ *
+ * Input is one prompt per line in arrival order, e.g. exported with
+ * SELECT user_prompt FROM ai_usage_analytics WHERE created_at >= ... ORDER BY created_at
+ *
+ * Usage: CacheKeyReplay prompts.txt [cacheEntries=1000] [concept=LIFESTYLE]
+ */
+public final class CacheKeyReplay {
+
+    private static final int FALSE_HIT_SAMPLES = 10;
+
+    private CacheKeyReplay() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: CacheKeyReplay prompts.txt [cacheEntries] [concept]");
+            return;
+        }
+        List<String> prompts = Files.readAllLines(Path.of(args[0])).stream()
+                .filter(line -> !line.isBlank())
+                .toList();
+        int capacity = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        String concept = args.length > 2 ? args[2] : "LIFESTYLE";
+
+        System.out.printf("%d prompts, LRU of %d entries%n", prompts.size(), capacity);
+        report("legacy key generator", prompts, capacity,
+                prompt -> LegacyCacheKeys.keyGeneratorKey(request(prompt, concept)));
+        report("legacy service key", prompts, capacity,
+                prompt -> LegacyCacheKeys.serviceKey(request(prompt, concept),
+                        QueryCanonicalizer.canonicalize(prompt, false)));
+        report("canonical key", prompts, capacity,
+                prompt -> CacheKeys.forRequest(request(prompt, concept),
+                        QueryCanonicalizer.canonicalize(prompt, false)));
+    }
+
+    private static void report(String scheme, List<String> prompts, int capacity, Function<String, String> keyOf) {
+        // Key -> folded prompt that filled the entry
+        Map<String, String> lru = new LinkedHashMap<>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > capacity;
+            }
+        };
+        long hits = 0;
+        long falseHits = 0;
+        List<String> samples = new ArrayList<>();
+        for (String prompt : prompts) {
+            String folded = QueryCanonicalizer.canonicalize(prompt, false);
+            String cached = lru.putIfAbsent(keyOf.apply(prompt), folded);
+            if (cached == null) {
+                continue;
+            }
+            hits++;
+            if (!cached.equals(folded)) {
+                falseHits++;
+                if (samples.size() < FALSE_HIT_SAMPLES) {
+                    samples.add("\"" + cached + "\" = \"" + folded + "\"");
+                }
+            }
+        }
+        System.out.printf("%-22s hit ratio %.2f%%, false hits %d (%.2f%% of hits), %d distinct keys%n", scheme,
+                prompts.isEmpty() ? 0 : 100.0 * hits / prompts.size(), falseHits,
+                hits == 0 ? 0 : 100.0 * falseHits / hits, lru.size());
+        samples.forEach(sample -> System.out.println("    " + sample));
+    }
+
+    private static ChatRequest request(String prompt, String concept) {
+        ChatRequest request = new ChatRequest();
+        request.setMessage(prompt);
+        request.setConcept(concept);
+        return request;
+    }
+}
@@ -0,0 +1,91 @@
+package com.lmg.online.chatbot.ai.project.cache;
+
+import com.lmg.online.chatbot.ai.project.handler.CachePolicy;
+import com.lmg.online.chatbot.ai.request.ChatRequest;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class CacheKeysTest {
+
+    @Test
+    void fillerWordsCasePunctuationAndDigitsDoNotChangeTheKey() {
+        assertEquals(
+                CacheKeys.forRequest(request("Can you please tell me the return policy?"), "Can you please tell me the return policy?"),
+                CacheKeys.forRequest(request("return policy"), "return policy"));
+        assertEquals(CacheKeys.forQuery("Where is my order 12345"), CacheKeys.forQuery("where is order 67890!"));
+    }
+
+    @Test
+    void negationsAndConceptDoChangeTheKey() {
+        assertNotEquals(CacheKeys.forQuery("order not delivered"), CacheKeys.forQuery("order delivered"));
+
+        ChatRequest max = request("return policy");
+        max.setConcept("MAX");
+        assertNotEquals(CacheKeys.forRequest(request("return policy"), "return policy"),
+                CacheKeys.forRequest(max, "return policy"));
+    }
+
+    @Test
+    void digitsChangeAResponseKeyButNotAnIntentKey() {
+        assertNotEquals(CacheKeys.forRequest(request("track order 123"), "track order 123"),
+                CacheKeys.forRequest(request("track order 456"), "track order 456"));
+        assertEquals(CacheKeys.forQuery("track order 123"), CacheKeys.forQuery("track order 456"));
+    }
+
+    @Test
+    void responseKeysFollowTheIntentsCachePolicy() {
+        CachePolicy perConcept = CachePolicy.cached(Duration.ofHours(24), CachePolicy.KeyPart.CONCEPT);
+        ChatRequest alice = request("return policy");
+        alice.setUserId("alice");
+        ChatRequest bob = request("return policy");
+        bob.setUserId("bob");
+
+        assertEquals(CacheKeys.forRequest(alice, "return policy", "POLICY_QUESTION", perConcept),
+                CacheKeys.forRequest(bob, "return policy", "POLICY_QUESTION", perConcept));
+        assertNotEquals(CacheKeys.forRequest(alice, "track order 123", "ORDER_TRACKING", CachePolicy.DEFAULT),
+                CacheKeys.forRequest(alice, "track order 456", "ORDER_TRACKING", CachePolicy.DEFAULT));
+    }
+
+    @Test
+    void appIdChangesTheKeyWhenThePolicyKeysOnIt() {
+        CachePolicy perApp = CachePolicy.cached(Duration.ofHours(6), CachePolicy.KeyPart.CONCEPT, CachePolicy.KeyPart.APP);
+        CachePolicy perConcept = CachePolicy.cached(Duration.ofHours(6), CachePolicy.KeyPart.CONCEPT);
+        ChatRequest android = request("stores in pune");
+        android.setAppid("android");
+        ChatRequest ios = request("stores in pune");
+        ios.setAppid("ios");
+
+        assertNotEquals(CacheKeys.forRequest(android, "stores in pune", "STORE_LOCATOR", perApp),
+                CacheKeys.forRequest(ios, "stores in pune", "STORE_LOCATOR", perApp));
+        assertNotEquals(CacheKeys.forRequest(android, "stores in pune"), CacheKeys.forRequest(ios, "stores in pune"));
+        assertEquals(CacheKeys.forRequest(android, "stores in pune", "STORE_LOCATOR", perConcept),
+                CacheKeys.forRequest(ios, "stores in pune", "STORE_LOCATOR", perConcept));
+    }
+
+    @Test
+    void nearbyCoordinatesShareAGeoBucket() {
+        ChatRequest here = request("stores near me");
+        here.setLatitude(12.97160);
+        here.setLongitude(77.59460);
+        ChatRequest nextDoor = request("stores near me");
+        nextDoor.setLatitude(12.97165);
+        nextDoor.setLongitude(77.59468);
+        ChatRequest otherCity = request("stores near me");
+        otherCity.setLatitude(19.0760);
+        otherCity.setLongitude(72.8777);
+
+        assertEquals(CacheKeys.forRequest(here, "stores near me"), CacheKeys.forRequest(nextDoor, "stores near me"));
+        assertNotEquals(CacheKeys.forRequest(here, "stores near me"), CacheKeys.forRequest(otherCity, "stores near me"));
+    }
+
+    private static ChatRequest request(String message) {
+        ChatRequest request = new ChatRequest();
+        request.setMessage(message);
+        request.setConcept("LIFESTYLE");
+        return request;
+    }
+}
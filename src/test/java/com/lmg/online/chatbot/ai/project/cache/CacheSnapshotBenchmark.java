@@ -0,0 +1,102 @@
+package com.lmg.online.chatbot.ai.project.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lmg.online.chatbot.ai.analytics.ChatbotResponse;
+import com.lmg.online.chatbot.ai.project.intent.IntentMatch;
+import com.lmg.online.chatbot.ai.project.intent.IntentTier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup restore time of a snapshot holding {@code entries} cached responses plus as many
+ * intent classifications, into empty caches configured like production.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CacheSnapshotBenchmark {
+
+    @Param({"100000"})
+    public int entries;
+
+    private final CacheSnapshotFile.Codec codec = CacheSnapshotFile.typedJsonCodec();
+    private Path file;
+    private Map<String, Cache<Object, Object>> targets;
+
+    @Setup(Level.Trial)
+    public void writeSnapshot() throws Exception {
+        Cache<Object, Object> responses = newCache();
+        Cache<Object, Object> intents = newCache();
+        for (int i = 0; i < entries; i++) {
+            Map<String, Object> metadata = new HashMap<>();
+            metadata.put("cached", false);
+            responses.put(CacheKeys.forQuery("response " + i), ChatbotResponse.<String>builder()
+                    .data("Our return policy allows returns within 30 days of delivery, request " + i)
+                    .intent("POLICY_QUERY")
+                    .responseTimeMs(1200L)
+                    .metadata(metadata)
+                    .success(true)
+                    .build());
+            intents.put(CacheKeys.forQuery("intent " + i), new IntentMatch("ORDER_TRACKING", 0.9, IntentTier.LLM));
+        }
+        Map<String, Cache<Object, Object>> caches = new LinkedHashMap<>();
+        caches.put("chatbotResponses", responses);
+        caches.put("intentClassifications", intents);
+
+        file = Files.createTempFile("cache-snapshot", ".bin");
+        CacheSnapshotFile.write(file, caches, codec);
+    }
+
+    @Setup(Level.Invocation)
+    public void emptyCaches() {
+        targets = Map.of("chatbotResponses", newCache(), "intentClassifications", newCache());
+    }
+
+    @Benchmark
+    public CacheSnapshotFile.RestoreResult restore() throws Exception {
+        return CacheSnapshotFile.restore(file, targets::get, codec);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteSnapshot() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    private static Cache<Object, Object> newCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(1_000_000)
+                .expireAfter(new JitteredExpiry(Duration.ofHours(1), 0.1))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(CacheSnapshotBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
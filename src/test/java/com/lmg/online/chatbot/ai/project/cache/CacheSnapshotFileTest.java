@@ -0,0 +1,173 @@
+package com.lmg.online.chatbot.ai.project.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lmg.online.chatbot.ai.analytics.ChatbotResponse;
+import com.lmg.online.chatbot.ai.analytics.TokenUsage;
+import com.lmg.online.chatbot.ai.project.intent.IntentMatch;
+import com.lmg.online.chatbot.ai.project.intent.IntentTier;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CacheSnapshotFileTest {
+
+    private static final CacheSnapshotFile.Codec STRINGS = new CacheSnapshotFile.Codec() {
+        @Override
+        public byte[] encode(Object value) {
+            return value.toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public Object decode(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void restoresEntriesWithTheirRemainingTimeToLive() throws Exception {
+        Cache<Object, Object> source = newCache();
+        source.policy().expireVariably().orElseThrow().put("short", "a", Duration.ofMinutes(5));
+        source.policy().expireVariably().orElseThrow().put("long", "b", Duration.ofHours(2));
+        Path file = dir.resolve("snapshot.bin");
+
+        CacheSnapshotFile.write(file, Map.of("chatbotResponses", source), STRINGS);
+        Cache<Object, Object> target = newCache();
+        CacheSnapshotFile.RestoreResult result = CacheSnapshotFile.restore(file, name -> target, STRINGS);
+
+        assertEquals(2, result.entries());
+        assertEquals("a", target.getIfPresent("short"));
+        assertEquals("b", target.getIfPresent("long"));
+        Duration remaining = target.policy().expireVariably().orElseThrow().getExpiresAfter("short").orElseThrow();
+        assertTrue(remaining.compareTo(Duration.ofMinutes(5)) <= 0 && remaining.compareTo(Duration.ofMinutes(4)) > 0);
+    }
+
+    @Test
+    void cachesNotAskedForAreSkipped() throws Exception {
+        Cache<Object, Object> source = newCache();
+        source.put("key", "value");
+        Path file = dir.resolve("snapshot.bin");
+
+        CacheSnapshotFile.write(file, Map.of("userContext", source), STRINGS);
+        CacheSnapshotFile.RestoreResult result = CacheSnapshotFile.restore(file, name -> null, STRINGS);
+
+        assertEquals(0, result.entries());
+        assertEquals(1, result.skipped());
+    }
+
+    @Test
+    void tagsAreRestoredWithTheirEntries() throws Exception {
+        Cache<Object, Object> source = newCache();
+        source.put("key", "value");
+        Path file = dir.resolve("snapshot.bin");
+        Map<String, Collection<String>> restoredTags = new HashMap<>();
+
+        CacheSnapshotFile.write(file, Map.of("chatbotResponses", source), STRINGS, new CacheSnapshotFile.Tags() {
+            @Override
+            public Set<String> tagsOf(String cacheName, String key) {
+                return Set.of("concept:MAX");
+            }
+
+            @Override
+            public void tag(String cacheName, String key, Collection<String> tags) {
+            }
+        });
+        CacheSnapshotFile.restore(file, name -> newCache(), STRINGS, new CacheSnapshotFile.Tags() {
+            @Override
+            public Set<String> tagsOf(String cacheName, String key) {
+                return Set.of();
+            }
+
+            @Override
+            public void tag(String cacheName, String key, Collection<String> tags) {
+                restoredTags.put(cacheName + "/" + key, tags);
+            }
+        });
+
+        assertEquals(Map.of("chatbotResponses/key", List.of("concept:MAX")), restoredTags);
+    }
+
+    @Test
+    void typedJsonCodecRoundTripsCachedValues() throws Exception {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("cached", false);
+        ChatbotResponse<String> response = ChatbotResponse.<String>builder()
+                .data("Returns are accepted within 15 days of delivery.")
+                .tokenUsage(TokenUsage.builder().promptTokens(120).completionTokens(30).totalTokens(150)
+                        .cost(0.0004).model("gpt-4o-mini").build())
+                .responseTimeMs(950L)
+                .intent("POLICY_QUESTION")
+                .links(new ArrayList<>(List.of("https://www.maxfashion.in/returns")))
+                .metadata(metadata)
+                .success(true)
+                .build();
+        IntentMatch match = new IntentMatch("ORDER_TRACKING", 0.93, IntentTier.LLM);
+        Cache<Object, Object> responses = newCache();
+        responses.put("response", response);
+        Cache<Object, Object> intents = newCache();
+        intents.put("intent", match);
+        Path file = dir.resolve("snapshot.bin");
+        CacheSnapshotFile.Codec codec = CacheSnapshotFile.typedJsonCodec();
+
+        CacheSnapshotFile.write(file, Map.of("chatbotResponses", responses, "intentClassifications", intents), codec);
+        Map<String, Cache<Object, Object>> targets = Map.of(
+                "chatbotResponses", newCache(), "intentClassifications", newCache());
+        CacheSnapshotFile.RestoreResult result = CacheSnapshotFile.restore(file, targets::get, codec);
+
+        assertEquals(2, result.entries());
+        assertEquals(response, targets.get("chatbotResponses").getIfPresent("response"));
+        assertEquals(match, targets.get("intentClassifications").getIfPresent("intent"));
+    }
+
+    @Test
+    void userKeyedEntriesAreNotWritten() throws Exception {
+        Cache<Object, Object> source = newCache();
+        source.put("order", "your order ships today");
+        source.put("policy", "returns within 15 days");
+        Path file = dir.resolve("snapshot.bin");
+
+        CacheSnapshotFile.WriteResult written = CacheSnapshotFile.write(file, Map.of("chatbotResponses", source),
+                STRINGS, new CacheSnapshotFile.Tags() {
+                    @Override
+                    public Set<String> tagsOf(String cacheName, String key) {
+                        return key.equals("order")
+                                ? Set.of("intent:ORDER_TRACKING", "user:42")
+                                : Set.of("intent:POLICY_QUESTION");
+                    }
+
+                    @Override
+                    public void tag(String cacheName, String key, Collection<String> tags) {
+                    }
+                });
+        Cache<Object, Object> target = newCache();
+        CacheSnapshotFile.restore(file, name -> target, STRINGS);
+
+        assertEquals(1, written.entries());
+        assertEquals(1, written.personal());
+        assertNull(target.getIfPresent("order"));
+        assertEquals("returns within 15 days", target.getIfPresent("policy"));
+    }
+
+    private static Cache<Object, Object> newCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(100)
+                .expireAfter(new JitteredExpiry(Duration.ofHours(1), 0))
+                .build();
+    }
+}
@@ -0,0 +1,114 @@
+package com.lmg.online.chatbot.ai.project.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CacheTagIndexTest {
+
+    private Cache cache;
+    private CacheTagIndex index;
+
+    @BeforeEach
+    void setUp() {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        index = new CacheTagIndex(beans.getBeanProvider(CacheManager.class), beans.getBeanProvider(CacheL2Store.class));
+        CaffeineCacheManager cacheManager = caffeineManager(index);
+        beans.addBean("cacheManager", cacheManager);
+        cache = cacheManager.getCache("chatbotResponses");
+    }
+
+    @Test
+    void evictsOnlyEntriesCarryingEveryTag() {
+        put("maxPolicy", "concept:MAX", "intent:POLICY_QUESTION");
+        put("lsPolicy", "concept:LIFESTYLE", "intent:POLICY_QUESTION");
+        put("maxStore", "concept:MAX", "intent:STORE_LOCATOR");
+
+        int evicted = index.evict("chatbotResponses", List.of("concept:MAX", "intent:POLICY_QUESTION"));
+
+        assertEquals(1, evicted);
+        assertNull(cache.get("maxPolicy"));
+        assertNotNull(cache.get("lsPolicy"));
+        assertNotNull(cache.get("maxStore"));
+    }
+
+    @Test
+    void retaggingAnEntryReplacesItsTags() {
+        put("order", "user:1");
+        put("order", "user:2");
+
+        assertEquals(0, index.evict("chatbotResponses", List.of("user:1")));
+        assertEquals(1, index.evict("chatbotResponses", List.of("user:2")));
+    }
+
+    @Test
+    void explicitEvictionUntagsTheEntry() {
+        put("order", "user:1");
+
+        cache.evict("order");
+
+        assertTrue(index.tagsOf("chatbotResponses", "order").isEmpty());
+    }
+
+    @Test
+    void entriesTaggedByAnotherNodeAreEvictedThroughL2() {
+        InMemoryCacheL2Store l2 = new InMemoryCacheL2Store();
+        Node writer = new Node(l2);
+        Node restarted = new Node(l2);
+        writer.cache.put("maxPolicy", "answer");
+        writer.index.tag("chatbotResponses", "maxPolicy", List.of("concept:MAX", "doc:d1"), Duration.ofHours(1));
+
+        int evicted = restarted.index.evict("chatbotResponses", List.of("doc:d1"));
+
+        assertEquals(1, evicted);
+        assertNull(l2.get("chatbotResponses", "maxPolicy"));
+        assertNull(writer.cache.get("maxPolicy"));
+        assertTrue(l2.keysWithAllTags("chatbotResponses", List.of("doc:d1")).isEmpty());
+    }
+
+    /**
+     * A node with its own near-cache and tag index over a shared L2 store
+     */
+    private static final class Node {
+
+        private final CacheTagIndex index;
+        private final Cache cache;
+
+        Node(InMemoryCacheL2Store l2) {
+            StaticListableBeanFactory beans = new StaticListableBeanFactory();
+            beans.addBean("l2", l2);
+            index = new CacheTagIndex(beans.getBeanProvider(CacheManager.class), beans.getBeanProvider(CacheL2Store.class));
+            TwoTierCacheManager cacheManager =
+                    new TwoTierCacheManager(caffeineManager(index), l2, name -> Duration.ofHours(1));
+            beans.addBean("cacheManager", cacheManager);
+            cache = cacheManager.getCache("chatbotResponses");
+        }
+    }
+
+    private static CaffeineCacheManager caffeineManager(CacheTagIndex index) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache("chatbotResponses", Caffeine.newBuilder()
+                .maximumSize(100)
+                .executor(Runnable::run)
+                .removalListener(index.removalListener("chatbotResponses"))
+                .build());
+        return cacheManager;
+    }
+
+    private void put(String key, String... tags) {
+        cache.put(key, "answer");
+        index.tag("chatbotResponses", key, List.of(tags));
+    }
+}
@@ -0,0 +1,45 @@
+package com.lmg.online.chatbot.ai.project.cache;
+
+import com.lmg.online.chatbot.ai.request.ChatRequest;
+import org.springframework.util.DigestUtils;
+
+/**
+ * The two key schemes CacheKeys replaced, kept as the baseline for the benchmark and the
+ * replay comparison
+ */
+final class LegacyCacheKeys {
+
+    private LegacyCacheKeys() {
+    }
+
+    /**
+     * Former ChatbotService.generateCacheKey (query already folded by the spelling corrector)
+     */
+    static String serviceKey(ChatRequest request, String normalizedQuery) {
+        StringBuilder keyBuilder = new StringBuilder();
+        if (request.getUserId() != null) {
+            keyBuilder.append(request.getUserId()).append(":");
+        }
+        keyBuilder.append(normalizedQuery);
+        if (request.getLatitude() != 0 && request.getLongitude() != 0) {
+            keyBuilder.append(":loc:")
+                    .append(String.format("%.2f,%.2f", request.getLatitude(), request.getLongitude()));
+        }
+        if (request.getEnv() != null) {
+            keyBuilder.append(":env:").append(request.getEnv());
+        }
+        return DigestUtils.md5DigestAsHex(keyBuilder.toString().getBytes());
+    }
+
+    /**
+     * Former ChatCacheKeyGenerator.generateCacheKey
+     */
+    static String keyGeneratorKey(ChatRequest request) {
+        String query = request.getMessage();
+        String normalizedMessage = query == null ? "" : query.toLowerCase()
+                .trim()
+                .replaceAll("\\s+", " ")
+                .replaceAll("[^a-z0-9 ]", "");
+        return serviceKey(request, normalizedMessage);
+    }
+}
@@ -0,0 +1,68 @@
+package com.lmg.online.chatbot.ai.project.cache;
+
+import com.lmg.online.chatbot.ai.analytics.ChatbotResponse;
+import com.lmg.online.chatbot.ai.analytics.TokenUsage;
+import com.lmg.online.chatbot.ai.project.intent.IntentMatch;
+import com.lmg.online.chatbot.ai.project.intent.IntentTier;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Values as RedisCacheL2Store stores them: typed JSON read back without a target type
+ */
+class RedisValueSerializerTest {
+
+    private final GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer();
+
+    @Test
+    void intentMatchRecordRoundTrips() {
+        IntentMatch match = new IntentMatch("ORDER_TRACKING", 0.93, IntentTier.LLM);
+
+        assertEquals(match, roundTrip(match));
+    }
+
+    @Test
+    void chatbotResponseWithTextRoundTrips() {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("concept", "MAX");
+        metadata.put("cached", false);
+        ChatbotResponse<String> response = ChatbotResponse.<String>builder()
+                .data("Returns are accepted within 15 days.")
+                .tokenUsage(TokenUsage.builder().promptTokens(120).completionTokens(30).totalTokens(150)
+                        .cost(0.0004).model("gpt-4o-mini").build())
+                .responseTimeMs(812L)
+                .intent("POLICY_QUESTION")
+                .links(new ArrayList<>(List.of("https://www.maxfashion.in/returns")))
+                .metadata(metadata)
+                .success(true)
+                .build();
+
+        assertEquals(response, roundTrip(response));
+    }
+
+    @Test
+    void chatbotResponseWithTypedDataRoundTrips() {
+        List<IntentMatch> matches = new ArrayList<>(List.of(
+                new IntentMatch("ORDER_TRACKING", 0.9, IntentTier.KEYWORD),
+                new IntentMatch("POLICY_QUESTION", 0.7, IntentTier.NGRAM)));
+        ChatbotResponse<List<IntentMatch>> response = ChatbotResponse.<List<IntentMatch>>builder()
+                .data(matches)
+                .intent("MULTI_INTENT")
+                .metadata(new HashMap<>())
+                .success(true)
+                .build();
+
+        assertEquals(response, roundTrip(response));
+    }
+
+    private Object roundTrip(Object value) {
+        return serializer.deserialize(serializer.serialize(value));
+    }
+}
@@ -0,0 +1,110 @@
+package com.lmg.online.chatbot.ai.project.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two nodes sharing one in-process L2 store
+ */
+class TwoTierCacheManagerTest {
+
+    private final AtomicInteger published = new AtomicInteger();
+    private Cache nodeA;
+    private Cache nodeB;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryCacheL2Store l2 = new InMemoryCacheL2Store() {
+            @Override
+            public void publish(CacheInvalidation invalidation) {
+                published.incrementAndGet();
+                super.publish(invalidation);
+            }
+        };
+        nodeA = newManager(l2).getCache("chatbotResponses");
+        nodeB = newManager(l2).getCache("chatbotResponses");
+    }
+
+    @Test
+    void valueWrittenOnOneNodeIsReadThroughL2OnAnother() {
+        nodeA.put("key", "answer");
+
+        assertEquals("answer", nodeB.get("key", String.class));
+    }
+
+    @Test
+    void evictionReachesOtherNodesNearCache() {
+        nodeA.put("key", "answer");
+        assertEquals("answer", nodeB.get("key", String.class));
+
+        nodeA.evict("key");
+
+        assertNull(nodeB.get("key"));
+    }
+
+    @Test
+    void clearReachesOtherNodesNearCache() {
+        nodeA.put("first", "one");
+        nodeA.put("second", "two");
+        nodeB.get("first");
+        nodeB.get("second");
+
+        nodeA.clear();
+
+        assertNull(nodeB.get("first"));
+        assertNull(nodeB.get("second"));
+    }
+
+    @Test
+    void overwriteOnOneNodeReplacesStaleNearCacheCopy() {
+        nodeA.put("key", "old");
+        assertEquals("old", nodeB.get("key", String.class));
+
+        nodeA.put("key", "new");
+
+        assertEquals("new", nodeB.get("key", String.class));
+    }
+
+    @Test
+    void firstWritePublishesNoInvalidation() {
+        nodeA.put("key", "answer");
+        assertEquals(0, published.get());
+
+        nodeA.put("key", "newer");
+        assertEquals(1, published.get());
+    }
+
+    @Test
+    void writeGivesBothTiersTheSameDrawnTtl() {
+        InMemoryCacheL2Store l2 = new InMemoryCacheL2Store();
+        CaffeineCacheManager l1 = new CaffeineCacheManager("chatbotResponses");
+        l1.setCaffeine(Caffeine.newBuilder().maximumSize(100).expireAfter(new JitteredExpiry(Duration.ofHours(1), 0.5)));
+        AtomicInteger draws = new AtomicInteger();
+        TwoTierCache cache = (TwoTierCache) new TwoTierCacheManager(
+                l1, l2, name -> Duration.ofMinutes(draws.incrementAndGet())).getCache("chatbotResponses");
+
+        cache.put("key", "answer");
+
+        Duration l1Ttl = cache.getNativeCache().policy().expireVariably().orElseThrow().getExpiresAfter("key").orElseThrow();
+        Duration l2Ttl = l2.getTimeToLive("chatbotResponses", "key");
+        assertEquals(1, draws.get());
+        assertTrue(Duration.ofMinutes(1).minus(l1Ttl).abs().toSeconds() <= 1, "L1 expires after " + l1Ttl);
+        assertTrue(Duration.ofMinutes(1).minus(l2Ttl).abs().toSeconds() <= 1, "L2 expires after " + l2Ttl);
+    }
+
+    private static TwoTierCacheManager newManager(InMemoryCacheL2Store l2) {
+        CaffeineCacheManager l1 = new CaffeineCacheManager("chatbotResponses");
+        l1.setCaffeine(Caffeine.newBuilder().maximumSize(100));
+        return new TwoTierCacheManager(l1, l2, name -> Duration.ofMinutes(5));
+    }
+}
@@ -0,0 +1,28 @@
+package com.lmg.online.chatbot.ai.project.handler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntentHandlerTest {
+
+    private final Pattern pattern = IntentHandler.keywordPattern(List.of("gift card", "balance", "c++"));
+
+    @Test
+    void keywordPatternMatchesEveryKeywordAsWholeWords() {
+        assertTrue(pattern.matcher("check my Gift Card please").matches());
+        assertTrue(pattern.matcher("giftcard").matches());
+        assertTrue(pattern.matcher("what is my balance?").matches());
+        assertFalse(pattern.matcher("balances").matches());
+        assertFalse(pattern.matcher("gift cards").matches());
+    }
+
+    @Test
+    void keywordPatternQuotesRegexCharacters() {
+        assertFalse(pattern.matcher("cc").matches());
+    }
+}
@@ -0,0 +1,89 @@
+package com.lmg.online.chatbot.ai.project.handler.giftcard;
+
+import com.lmg.online.chatbot.ai.project.handler.giftcard.GiftCardBalanceIntentHandler.CardDetails;
+import com.lmg.online.chatbot.ai.tools.giftcard.dto.GiftCardBalanceResponse;
+import com.lmg.online.chatbot.ai.tools.giftcard.dto.GiftCardError;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GiftCardBalanceIntentHandlerTest {
+
+    @Test
+    void extractsCardNumberAndPin() {
+        assertEquals(new CardDetails("1234567890123456", "4321"),
+                GiftCardBalanceIntentHandler.extractCard("balance of gift card 1234567890123456 pin 4321"));
+        assertEquals(new CardDetails("1234567890123456", "654321"),
+                GiftCardBalanceIntentHandler.extractCard("PIN: 654321, card 1234567890123456"));
+    }
+
+    @Test
+    void extractsGroupedCardNumbers() {
+        assertEquals(new CardDetails("1234567890123456", "4321"),
+                GiftCardBalanceIntentHandler.extractCard("check balance 1234 5678 9012 3456 pin is 4321"));
+        assertEquals(new CardDetails("1234567890123456", "4321"),
+                GiftCardBalanceIntentHandler.extractCard("gift card 1234-5678-9012-3456 PIN=4321"));
+    }
+
+    @Test
+    void extractsPinDirectlyAfterTheCardNumber() {
+        assertEquals(new CardDetails("1234567890123456", "4321"),
+                GiftCardBalanceIntentHandler.extractCard("gift card 1234567890123456pin4321"));
+        assertEquals(new CardDetails("1234567890123456", "4321"),
+                GiftCardBalanceIntentHandler.extractCard("gift card 1234 5678 9012 3456 4321"));
+        assertEquals(new CardDetails("1234567890123456", "654321"),
+                GiftCardBalanceIntentHandler.extractCard("gift card 1234567890123456 / 654321"));
+    }
+
+    @Test
+    void missingPartsAreNull() {
+        assertEquals(new CardDetails("1234567890123456", null),
+                GiftCardBalanceIntentHandler.extractCard("what is the balance on 1234567890123456?"));
+        assertEquals(new CardDetails(null, null),
+                GiftCardBalanceIntentHandler.extractCard("check my gift card balance, order 123456"));
+        assertEquals(new CardDetails(null, null), GiftCardBalanceIntentHandler.extractCard(null));
+    }
+
+    @Test
+    void masksEveryDigitRun() {
+        assertEquals("card # pin #, worth #",
+                GiftCardBalanceIntentHandler.maskDigits("card 1234 5678-9012 3456 pin 4321, worth 500"));
+        assertEquals("", GiftCardBalanceIntentHandler.maskDigits(null));
+    }
+
+    @Test
+    void balanceTemplate() {
+        GiftCardBalanceResponse data = new GiftCardBalanceResponse();
+        data.setBalanceAmount(250.5);
+        data.setCurrency("AED ");
+
+        assertEquals("Your gift card ending 3456 has a balance of AED 250.50.",
+                GiftCardBalanceIntentHandler.renderBalanceMessage(data, "1234567890123456"));
+    }
+
+    @Test
+    void notFoundTemplate() {
+        assertEquals("I couldn't find a gift card ending 3456. Please check the card number and PIN and try again.",
+                GiftCardBalanceIntentHandler.renderBalanceMessage(failed("GIFT_CARD_NOT_FOUND"), "1234567890123456"));
+    }
+
+    @Test
+    void failedTemplate() {
+        assertEquals("I couldn't check the balance of the gift card ending 3456 right now. Please try again in a few minutes.",
+                GiftCardBalanceIntentHandler.renderBalanceMessage(
+                        failed("lmg.giftcard.client.server.error"), "1234567890123456"));
+        assertEquals("I couldn't check the balance of the gift card ending 3456 right now. Please try again in a few minutes.",
+                GiftCardBalanceIntentHandler.renderBalanceMessage(new GiftCardBalanceResponse(), "1234567890123456"));
+    }
+
+    private static GiftCardBalanceResponse failed(String reason) {
+        GiftCardError error = new GiftCardError();
+        error.setReason(reason);
+        GiftCardBalanceResponse data = new GiftCardBalanceResponse();
+        data.setErrorOccurred(true);
+        data.setErrors(List.of(error));
+        return data;
+    }
+}
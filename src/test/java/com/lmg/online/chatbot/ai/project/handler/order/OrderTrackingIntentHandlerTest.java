@@ -0,0 +1,79 @@
+package com.lmg.online.chatbot.ai.project.handler.order;
+
+import com.lmg.online.chatbot.ai.tools.order.dto.OrderDetail;
+import com.lmg.online.chatbot.ai.tools.order.dto.OrderResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class OrderTrackingIntentHandlerTest {
+
+    @Test
+    void freeFormQuestionAboutAnOrderGoesToTheModel() {
+        assertEquals("1234567", OrderTrackingIntentHandler.freeFormOrderNumber("why is order 1234567 delayed?"));
+        assertEquals("7654321", OrderTrackingIntentHandler.freeFormOrderNumber("Can I cancel MX7654321"));
+        assertEquals("1234567", OrderTrackingIntentHandler.freeFormOrderNumber("wrong size delivered in 1234567"));
+    }
+
+    @Test
+    void statusQuestionsUseTheTemplate() {
+        assertNull(OrderTrackingIntentHandler.freeFormOrderNumber("where is my order 1234567"));
+        assertNull(OrderTrackingIntentHandler.freeFormOrderNumber("track order 1234567"));
+        assertNull(OrderTrackingIntentHandler.freeFormOrderNumber(null));
+    }
+
+    @Test
+    void freeFormQuestionWithoutAnOrderNumberUsesTheTemplate() {
+        assertNull(OrderTrackingIntentHandler.freeFormOrderNumber("why is my order late"));
+        // Five digits is a pincode or quantity, not an order number
+        assertNull(OrderTrackingIntentHandler.freeFormOrderNumber("can you deliver order to 56003"));
+    }
+
+    @Test
+    void followUpQuestionFallsBackToTheSessionOrder() {
+        assertEquals("1234567", OrderTrackingIntentHandler.freeFormOrderNumber("why is it late?", "1234567"));
+        assertEquals("7654321", OrderTrackingIntentHandler.freeFormOrderNumber("why is 7654321 late?", "1234567"));
+        assertNull(OrderTrackingIntentHandler.freeFormOrderNumber("where is it now", "1234567"));
+        assertNull(OrderTrackingIntentHandler.freeFormOrderNumber("why is it late?", null));
+    }
+
+    @Test
+    void singleOrderMessage() {
+        OrderResponse data = orders("Asha", order("Blue Shirt", "Shipped", "12 Oct"));
+
+        assertEquals("Hi Asha! Your order for Blue Shirt is Shipped. Expected delivery: 12 Oct.",
+                OrderTrackingIntentHandler.renderStatusMessage(data));
+    }
+
+    @Test
+    void multipleOrdersMessageDescribesTheLatest() {
+        OrderResponse data = orders(null, order("Sneakers", null, null), order("Jeans", "Delivered", null));
+
+        assertEquals("You have 2 active orders. The latest, for Sneakers, is being processed.",
+                OrderTrackingIntentHandler.renderStatusMessage(data));
+    }
+
+    @Test
+    void noOrdersMessage() {
+        assertEquals("Hi Asha! I couldn't find any active orders on your account.",
+                OrderTrackingIntentHandler.renderStatusMessage(orders("Asha")));
+    }
+
+    private static OrderResponse orders(String name, OrderDetail... details) {
+        OrderResponse data = new OrderResponse();
+        data.setCustomerName(name);
+        data.setOrderDetailsList(List.of(details));
+        return data;
+    }
+
+    private static OrderDetail order(String product, String status, String estimatedDate) {
+        OrderDetail detail = new OrderDetail();
+        detail.setProductName(product);
+        detail.setLatestStatus(status);
+        detail.setEstmtDate(estimatedDate);
+        return detail;
+    }
+}
@@ -0,0 +1,70 @@
+package com.lmg.online.chatbot.ai.project.intent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class KeywordIntentMatcherTest {
+
+    @Test
+    void matchesWholeWordsOnly() {
+        KeywordIntentMatcher matcher = KeywordIntentMatcher.compile(Map.of("STORE_LOCATOR", List.of("store")));
+
+        assertEquals("STORE_LOCATOR", matcher.match("Store near me?").intent());
+        assertEquals("STORE_LOCATOR", matcher.match("which  store,please").intent());
+        assertNull(matcher.match("restore my password"));
+        assertNull(matcher.match("stores"));
+        assertNull(matcher.match("storehouse"));
+    }
+
+    @Test
+    void overlappingKeywordsAreAllFoundThroughFailureLinks() {
+        Map<String, List<String>> keywords = new LinkedHashMap<>();
+        keywords.put("ORDER_TRACKING", List.of("track order"));
+        keywords.put("POLICY", List.of("order status", "status", "cancel"));
+        KeywordIntentMatcher matcher = KeywordIntentMatcher.compile(keywords);
+
+        // " track order " fails over to " order " to find " order status ", then " status "
+        IntentMatch match = matcher.match("track order status");
+
+        assertEquals("POLICY", match.intent());
+        assertEquals(3.0 / 5, match.confidence(), 1e-9);
+        assertEquals(IntentTier.KEYWORD, match.tier());
+    }
+
+    @Test
+    void tiesAndMissesReturnNull() {
+        Map<String, List<String>> keywords = new LinkedHashMap<>();
+        keywords.put("ORDER_TRACKING", List.of("order"));
+        keywords.put("POLICY", List.of("refund"));
+        KeywordIntentMatcher matcher = KeywordIntentMatcher.compile(keywords);
+
+        assertNull(matcher.match("refund for my order"));
+        assertNull(matcher.match("hello there"));
+        assertNull(matcher.match("   "));
+        assertNull(matcher.match(null));
+    }
+
+    @Test
+    void phrasesWeighByWordCount() {
+        Map<String, List<String>> keywords = new LinkedHashMap<>();
+        keywords.put("GIFT_CARD_BALANCE", List.of("check balance"));
+        keywords.put("CUSTOMER_PROFILE", List.of("balance"));
+        KeywordIntentMatcher matcher = KeywordIntentMatcher.compile(keywords);
+
+        IntentMatch match = matcher.match("Check balance");
+
+        assertEquals("GIFT_CARD_BALANCE", match.intent());
+        assertEquals(2.0 / 3, match.confidence(), 1e-9);
+    }
+
+    @Test
+    void normalizeFoldsToSpaceSeparatedLowerCase() {
+        assertEquals(" gift card 2 ", KeywordIntentMatcher.normalize("Gift-Card  #2!"));
+    }
+}
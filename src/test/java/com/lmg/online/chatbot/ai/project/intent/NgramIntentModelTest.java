@@ -0,0 +1,83 @@
+package com.lmg.online.chatbot.ai.project.intent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NgramIntentModelTest {
+
+    private static final String[] INTENTS = {"ORDER_TRACKING", "STORE_LOCATOR"};
+
+    @Test
+    void featuresAreDeterministicCaseFoldedAndInRange() {
+        int mask = 1023;
+        int[] first = new int[512];
+        int[] second = new int[512];
+
+        int count = NgramIntentModel.extractFeatures("Where is my ORDER?", mask, first);
+        int again = NgramIntentModel.extractFeatures("where is my order", mask, second);
+
+        assertTrue(count > 0);
+        assertEquals(count, again);
+        assertArrayEquals(Arrays.copyOf(first, count), Arrays.copyOf(second, again));
+        for (int i = 0; i < count; i++) {
+            assertTrue(first[i] >= 0 && first[i] <= mask);
+        }
+        assertEquals(0, NgramIntentModel.extractFeatures(null, mask, first));
+        assertEquals(0, NgramIntentModel.extractFeatures("  ?! ", mask, first));
+    }
+
+    @Test
+    void bucketsRoundUpToPowerOfTwo() {
+        assertEquals(1024, NgramIntentModel.empty(INTENTS, 1000).buckets());
+        assertEquals(1024, NgramIntentModel.empty(INTENTS, 1024).buckets());
+    }
+
+    @Test
+    void trainingSeparatesIntents() {
+        NgramIntentModel model = NgramIntentModel.empty(INTENTS, 4096);
+        List<NgramIntentModel.Sample> samples = new ArrayList<>();
+        for (String text : List.of("where is my order", "track my order", "order status please",
+                "when will my order arrive")) {
+            samples.add(new NgramIntentModel.Sample(text, model.indexOf("ORDER_TRACKING")));
+        }
+        for (String text : List.of("nearest store", "store near me", "find a store in dubai",
+                "mall stores open now")) {
+            samples.add(new NgramIntentModel.Sample(text, model.indexOf("STORE_LOCATOR")));
+        }
+
+        NgramIntentModel trained = model.train(samples, 20, 0.5, 42);
+
+        IntentMatch order = trained.match("track order");
+        IntentMatch store = trained.match("store near dubai");
+        assertEquals("ORDER_TRACKING", order.intent());
+        assertEquals(IntentTier.NGRAM, order.tier());
+        assertTrue(order.confidence() > 0.5);
+        assertEquals("STORE_LOCATOR", store.intent());
+        assertNull(trained.match(""));
+    }
+
+    @Test
+    void trainingReturnsNewModelAndCountsSamples() {
+        NgramIntentModel model = NgramIntentModel.empty(INTENTS, 1024);
+        List<NgramIntentModel.Sample> samples = List.of(
+                new NgramIntentModel.Sample("track order", 0),
+                new NgramIntentModel.Sample("nearest store", 1));
+
+        NgramIntentModel trained = model.train(samples, 1, 0.5, 1);
+
+        assertNotSame(model, trained);
+        assertEquals(0, model.samples());
+        assertEquals(2, trained.samples());
+        assertEquals(0.5, model.match("track order").confidence(), 1e-9);
+        assertEquals(-1, model.indexOf("POLICY_QUESTION"));
+    }
+}
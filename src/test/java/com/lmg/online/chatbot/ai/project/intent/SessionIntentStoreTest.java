@@ -0,0 +1,105 @@
+package com.lmg.online.chatbot.ai.project.intent;
+
+import com.lmg.online.chatbot.ai.analytics.ChatbotResponse;
+import com.lmg.online.chatbot.ai.project.handler.IntentHandler;
+import com.lmg.online.chatbot.ai.request.ChatRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SessionIntentStoreTest {
+
+    private final SessionIntentStore store = new SessionIntentStore(
+            new TieredIntentRouter(List.of(
+                    handler("ORDER_TRACKING", "order", "track order", "my order"),
+                    handler("STORE_LOCATOR", "store", "stores", "nearest store")), null, new IntentRoutingStats(), 0.6),
+            new IntentRoutingStats(), 30, 100, 8);
+
+    @Test
+    void followUpGoesBackToTheSessionIntentWithItsParameters() {
+        ChatRequest first = request("where is my order 1234567");
+        first.setOrderNumber("1234567");
+        store.remember(first, "ORDER_TRACKING");
+
+        ChatRequest next = request("why is it late?");
+        IntentMatch match = store.matchFollowUp(next, "why is it late");
+        store.applyParameters(next);
+
+        assertEquals(new IntentMatch("ORDER_TRACKING", 1.0, IntentTier.SESSION), match);
+        assertEquals("1234567", next.getOrderNumber());
+        assertEquals(IntentTier.SESSION, store.matchFollowUp(request("and the second one"), "and the second one").tier());
+    }
+
+    @Test
+    void keywordMatchToAnotherIntentIsATopicSwitch() {
+        store.remember(request("nearest store"), "STORE_LOCATOR");
+
+        assertNull(store.matchFollowUp(request("track my order"), "track my order"));
+        assertEquals(1L, store.getStats().get("topicSwitches"));
+    }
+
+    @Test
+    void smallTalkAndNewQuestionsRouteNormally() {
+        store.remember(request("track my order"), "ORDER_TRACKING");
+
+        assertNull(store.matchFollowUp(request("thanks"), "thanks"));
+        assertNull(store.matchFollowUp(request("hello there"), "hello there"));
+        assertNull(store.matchFollowUp(request("what is your return policy"), "what is your return policy"));
+    }
+
+    @Test
+    void parametersCarryOverWhileTheIntentStaysTheSame() {
+        ChatRequest first = request("why is 1234567 late");
+        first.setOrderNumber("1234567");
+        store.remember(first, "ORDER_TRACKING");
+        store.remember(request("track my order"), "ORDER_TRACKING");
+
+        ChatRequest sameIntent = request("is it shipped");
+        store.applyParameters(sameIntent);
+        assertEquals("1234567", sameIntent.getOrderNumber());
+
+        store.remember(request("nearest store"), "STORE_LOCATOR");
+        ChatRequest switched = request("the first one");
+        store.applyParameters(switched);
+        assertNull(switched.getOrderNumber());
+    }
+
+    @Test
+    void sessionIsOnlyVisibleToItsUser() {
+        store.remember(request("track my order"), "ORDER_TRACKING");
+
+        ChatRequest other = request("is it shipped");
+        other.setUserId("someone-else");
+        assertNull(store.matchFollowUp(other, "is it shipped"));
+    }
+
+    private static ChatRequest request(String message) {
+        ChatRequest request = new ChatRequest();
+        request.setMessage(message);
+        request.setUserId("user-1");
+        request.setSessionId("session-1");
+        return request;
+    }
+
+    private static IntentHandler<Object> handler(String intent, String... keywords) {
+        return new IntentHandler<>() {
+            @Override
+            public ChatbotResponse<Object> handle(ChatRequest request, long startTime) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public String getIntentType() {
+                return intent;
+            }
+
+            @Override
+            public List<String> getKeywords() {
+                return List.of(keywords);
+            }
+        };
+    }
+}
@@ -0,0 +1,74 @@
+package com.lmg.online.chatbot.ai.project.intent;
+
+import com.lmg.online.chatbot.ai.analytics.ChatbotResponse;
+import com.lmg.online.chatbot.ai.project.handler.IntentHandler;
+import com.lmg.online.chatbot.ai.request.ChatRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class SpellingCorrectorTest {
+
+    private final SpellingCorrector corrector = new SpellingCorrector(List.of(
+            handler("STORE_LOCATOR", "store", "shop", "address", "near me", "mall"),
+            handler("ORDER_TRACKING", "order", "track order", "shipping"),
+            handler("GIFT_CARD_BALANCE", "gift card", "card balance")), true);
+
+    @Test
+    void nearMissesOfRoutingWordsAreCorrected() {
+        assertEquals("track my order", corrector.normalize("trak my ordr"));
+        assertEquals("where is the nearest store", corrector.normalize("where is the nearest stroe"));
+        assertEquals("gift card balance", corrector.normalize("gift card balanse"));
+    }
+
+    @Test
+    void slipOntoNeighbouringFirstKeyIsCorrected() {
+        assertEquals("get me the near by store or mall", corrector.normalize("get me the mear by store or mall"));
+        assertEquals("nearby mall", corrector.normalize("mearby mall"));
+    }
+
+    @Test
+    void realWordsOutsideTheDomainStayUnchanged() {
+        for (String query : List.of(
+                "do you have red shoes",
+                "show me a party dress",
+                "add it to my cart",
+                "looking for a small wall clock",
+                "story books for kids",
+                "check my mail",
+                "teddy bear",
+                "shopping bags",
+                "gold earrings")) {
+            SpellingCorrector.CorrectedQuery result = corrector.correct(query);
+            assertFalse(result.changed(), query + " became " + result.text());
+        }
+    }
+
+    @Test
+    void tokensWithDigitsOrUnderFourLettersAreLeftAlone() {
+        assertEquals("shp", corrector.normalize("shp"));
+        assertEquals("ord3r", corrector.normalize("ord3r"));
+    }
+
+    private static IntentHandler<Object> handler(String intent, String... keywords) {
+        return new IntentHandler<>() {
+            @Override
+            public ChatbotResponse<Object> handle(ChatRequest request, long startTime) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public String getIntentType() {
+                return intent;
+            }
+
+            @Override
+            public List<String> getKeywords() {
+                return List.of(keywords);
+            }
+        };
+    }
+}
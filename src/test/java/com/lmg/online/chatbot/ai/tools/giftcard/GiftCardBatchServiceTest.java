@@ -0,0 +1,110 @@
+package com.lmg.online.chatbot.ai.tools.giftcard;
+
+import com.lmg.online.chatbot.ai.tools.giftcard.dto.GiftCardBalanceRequest;
+import com.lmg.online.chatbot.ai.tools.giftcard.dto.GiftCardBalanceResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class GiftCardBatchServiceTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    // Enquiries hold their thread until this many are in flight at once, or it times out
+    private CountDownLatch allStarted = new CountDownLatch(0);
+    private ThreadPoolTaskExecutor executor;
+
+    // Card "bad" fails
+    private final GiftCardBalanceTool tool = new GiftCardBalanceTool(null) {
+        @Override
+        public GiftCardBalanceResponse checkGiftCardBalance(String concept, String env, String appId,
+                                                            String cardNumber, String pin) {
+            calls.incrementAndGet();
+            peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                allStarted.countDown();
+                await(allStarted);
+                if (cardNumber.equals("bad")) {
+                    throw new IllegalStateException("upstream down");
+                }
+                GiftCardBalanceResponse response = new GiftCardBalanceResponse();
+                response.setBalanceAmount(Double.valueOf(cardNumber.length()));
+                response.setCurrency("AED");
+                return response;
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    };
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void checksCardsConcurrentlyWithPerCardErrors() {
+        GiftCardBatchService service = new GiftCardBatchService(tool, executor(4, 10), 5000, 20);
+        allStarted = new CountDownLatch(3);
+
+        List<GiftCardBalanceResponse> results = service.checkBalances("MAX", "prod", "Mobile", List.of(
+                new GiftCardBalanceRequest("1234-5678", "1111"),
+                new GiftCardBalanceRequest("bad", "2222"),
+                new GiftCardBalanceRequest("123", "3333"),
+                new GiftCardBalanceRequest("12345678", "1111")));
+
+        assertEquals(4, results.size());
+        assertEquals(8.0, results.get(0).getBalanceAmount());
+        assertEquals("12345678", results.get(0).getCardNumber());
+        assertNull(results.get(1).getBalanceAmount());
+        assertEquals(GiftCardBatchService.SERVER_ERROR, results.get(1).getErrors().get(0).getReason());
+        assertEquals(3.0, results.get(2).getBalanceAmount());
+        // The same card and PIN twice is enquired once, and all three enquiries ran at once
+        assertEquals(3, calls.get());
+        assertEquals(3, peakInFlight.get());
+    }
+
+    @Test
+    void cardsRejectedByAFullPoolGetAnError() {
+        GiftCardBatchService service = new GiftCardBatchService(tool, executor(1, 0), 5000, 20);
+        // The first enquiry keeps the only thread, waiting for a second one that is rejected
+        allStarted = new CountDownLatch(2);
+
+        List<GiftCardBalanceResponse> results = service.checkBalances("MAX", "prod", "Mobile", List.of(
+                new GiftCardBalanceRequest("1234-5678", "1111"),
+                new GiftCardBalanceRequest("123", "3333")));
+
+        assertEquals(8.0, results.get(0).getBalanceAmount());
+        assertNull(results.get(1).getBalanceAmount());
+        assertEquals(GiftCardBatchService.SERVER_ERROR, results.get(1).getErrors().get(0).getReason());
+        assertEquals(1, calls.get());
+    }
+
+    private ThreadPoolTaskExecutor executor(int threads, int queueCapacity) {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.lmg.online.chatbot.ai.tools.storelocator;
+
+import com.lmg.online.chatbot.ai.tools.storelocator.dto.StoreList;
+import com.lmg.online.chatbot.ai.tools.storelocator.dto.StoreLocatorAPIResponse;
+import com.lmg.online.chatbot.ai.tools.storelocator.dto.StoreView;
+import com.lmg.online.chatbot.ai.tools.storelocator.helper.StoreLocatorHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nearest-10 query cost: the StoreCatalog grid index against the former Haversine-every-store
+ * stream sort (StoreLocatorHelper.getNearestStores), over synthetic UAE/India store lists.
+ *
+ * Run with the main method (or any JMH runner); add -prof gc to see allocation per query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StoreCatalogBenchmark {
+
+    @Param({"200", "2000", "20000"})
+    public int stores;
+
+    // Dubai
+    private final double latitude = 25.2048;
+    private final double longitude = 55.2708;
+
+    private StoreLocatorAPIResponse response;
+    private StoreCatalog catalog;
+
+    @Setup
+    public void setUp() {
+        response = SyntheticStores.response(stores, 42);
+        catalog = new StoreCatalog(response.getStores(), 0.5);
+    }
+
+    @Benchmark
+    public StoreList streamSort() {
+        return StoreLocatorHelper.getNearestStores(response, latitude, longitude, 10);
+    }
+
+    @Benchmark
+    public List<StoreView> catalog() {
+        return catalog.nearest(latitude, longitude, 10);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(StoreCatalogBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,95 @@
+package com.lmg.online.chatbot.ai.tools.storelocator;
+
+import com.lmg.online.chatbot.ai.tools.storelocator.dto.Address;
+import com.lmg.online.chatbot.ai.tools.storelocator.dto.GeoPoint;
+import com.lmg.online.chatbot.ai.tools.storelocator.dto.StoreData;
+import com.lmg.online.chatbot.ai.tools.storelocator.dto.StoreLocatorAPIResponse;
+import com.lmg.online.chatbot.ai.tools.storelocator.dto.StoreView;
+import com.lmg.online.chatbot.ai.tools.storelocator.helper.StoreLocatorHelper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StoreCatalogTest {
+
+    @Test
+    void nearestMatchesTheFullSort() {
+        StoreLocatorAPIResponse response = SyntheticStores.response(3000, 7);
+        StoreCatalog catalog = new StoreCatalog(response.getStores(), 0.5);
+        double[][] users = {{25.2048, 55.2708}, {12.9716, 77.5946}, {22.0, 65.0}, {-33.87, 151.21}};
+
+        for (double[] user : users) {
+            List<String> expected = ids(StoreLocatorHelper.getNearestStores(response, user[0], user[1], 10).getStores());
+            assertEquals(expected, ids(catalog.nearest(user[0], user[1], 10)));
+        }
+    }
+
+    @Test
+    void searchResolvesPlaceNamesWithoutCoordinates() {
+        StoreCatalog catalog = new StoreCatalog(SyntheticStores.response(3000, 7).getStores(), 0.5);
+
+        assertTrue(catalog.search("stores in Bengaluru", 0, 0, 10).stream()
+                .allMatch(store -> store.getCity().equals("Bengaluru")));
+        assertTrue(catalog.search("Max near 560037", 0, 0, 10).stream()
+                .allMatch(store -> store.getPostalCode().equals("560037")));
+        assertEquals(10, catalog.search("dubay outlets", 0, 0, 10).stream()
+                .filter(store -> store.getCity().equals("Dubai"))
+                .count());
+        assertTrue(catalog.search("find a store near me", 0, 0, 10).isEmpty());
+    }
+
+    @Test
+    void storesWithoutCoordinatesAreSearchableButNotNearest() {
+        List<StoreData> stores = new ArrayList<>(SyntheticStores.response(200, 7).getStores());
+        stores.add(store("oasis", "Oasis Centre", "Sharjah", null));
+        StoreCatalog catalog = new StoreCatalog(stores, 0.5);
+
+        assertEquals(201, catalog.size());
+        List<StoreView> byName = catalog.search("Oasis Centre", 25.2048, 55.2708, 10);
+        assertEquals(List.of("oasis"), ids(byName));
+        assertEquals(0.0, byName.get(0).getDistance(), 0.0);
+        assertTrue(ids(catalog.nearest(25.35, 55.4, 200)).stream().noneMatch("oasis"::equals));
+    }
+
+    @Test
+    void cityInEveryStoreStillMatchesButConceptNameDoesNot() {
+        List<StoreData> stores = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            stores.add(store("dxb-" + i, "Max " + (i == 0 ? "Deira" : "Store " + i), "Dubai", new double[]{25.2, 55.3}));
+        }
+        StoreCatalog catalog = new StoreCatalog(stores, 0.5);
+
+        assertEquals(6, catalog.search("stores in Dubai", 0, 0, 10).size());
+        assertEquals(List.of("dxb-0"), ids(catalog.search("Max Deira", 0, 0, 10)));
+        assertTrue(catalog.search("Max", 0, 0, 10).isEmpty());
+    }
+
+    @Test
+    void emptyCatalogFindsNothing() {
+        assertTrue(new StoreCatalog(null, 0.5).nearest(25.2, 55.3, 10).isEmpty());
+    }
+
+    private static StoreData store(String id, String name, String city, double[] latLng) {
+        Address address = new Address();
+        address.setCity(city);
+        StoreData store = new StoreData();
+        store.setStoreId(id);
+        store.setStoreName(name);
+        store.setAddress(address);
+        if (latLng != null) {
+            GeoPoint point = new GeoPoint();
+            point.setLatitude(latLng[0]);
+            point.setLongitude(latLng[1]);
+            store.setGeoPoint(point);
+        }
+        return store;
+    }
+
+    private static List<String> ids(List<StoreView> stores) {
+        return stores.stream().map(StoreView::getStoreId).toList();
+    }
+}
@@ -0,0 +1,51 @@
+package com.lmg.online.chatbot.ai.tools.storelocator;
+
+import com.lmg.online.chatbot.ai.tools.storelocator.dto.Address;
+import com.lmg.online.chatbot.ai.tools.storelocator.dto.GeoPoint;
+import com.lmg.online.chatbot.ai.tools.storelocator.dto.StoreData;
+import com.lmg.online.chatbot.ai.tools.storelocator.dto.StoreLocatorAPIResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Store lists clustered around GCC and Indian cities, with pincodes in India, shaped like the store locator API response
+ */
+final class SyntheticStores {
+
+    private static final String[] CITIES = {"Dubai", "Abu Dhabi", "Riyadh", "Bengaluru", "Mumbai", "Delhi"};
+    private static final double[][] CENTRES = {
+            {25.2048, 55.2708}, {24.4539, 54.3773}, {24.7136, 46.6753},
+            {12.9716, 77.5946}, {19.0760, 72.8777}, {28.6139, 77.2090}
+    };
+    private static final String[] PINCODE_PREFIXES = {null, null, null, "5600", "4000", "1100"};
+
+    private SyntheticStores() {
+    }
+
+    static StoreLocatorAPIResponse response(int count, long seed) {
+        Random random = new Random(seed);
+        List<StoreData> stores = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int city = random.nextInt(CITIES.length);
+            GeoPoint point = new GeoPoint();
+            point.setLatitude(CENTRES[city][0] + random.nextGaussian() * 0.4);
+            point.setLongitude(CENTRES[city][1] + random.nextGaussian() * 0.4);
+            Address address = new Address();
+            address.setCity(CITIES[city]);
+            if (PINCODE_PREFIXES[city] != null) {
+                address.setPostalCode(PINCODE_PREFIXES[city] + String.format("%02d", i % 100));
+            }
+            StoreData store = new StoreData();
+            store.setStoreId("store-" + i);
+            store.setStoreName(CITIES[city] + " Store " + i);
+            store.setAddress(address);
+            store.setGeoPoint(point);
+            stores.add(store);
+        }
+        StoreLocatorAPIResponse response = new StoreLocatorAPIResponse();
+        response.setStores(stores);
+        return response;
+    }
+}